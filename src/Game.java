@@ -1,6 +1,11 @@
 import view.View;
+import model.MatchClock;
 import model.Model;
 import controller.Controller;
+import bot.BotPool;
+import diagnostics.EdtWatchdog;
+import diagnostics.EngineStats;
+import strategy.OpeningBook;
 
 
 /**
@@ -17,6 +22,12 @@ public class Game {
      */
     public static void main(String[] args) {
         // SwingUtilities.invokeLater(App::runGame);
+        // Opt-in with -Dbattleship.watchdog.ms=<threshold>
+        EdtWatchdog.installIfEnabled();
+        EngineStats.register();
+        MatchClock.readProperty();
+        OpeningBook.loadInBackground();
+        BotPool.startInBackground();
     	View view = new View();
         Model model = new Model();
         Controller controller = new Controller(view, model);
@@ -0,0 +1,102 @@
+package benchmark;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import model.SparseBoard;
+
+/**
+ * The LargeBoardBenchmark class measures how fleet placement and shot
+ * resolution on a SparseBoard scale as the board grows from 10x10 to
+ * 1000x1000. Every size is run a few times to warm up the JIT before it is
+ * measured.
+ *
+ * The shooter used for the shot measurements hunts with random probes and
+ * then follows up hits through a target queue, so its work per shot depends on
+ * the hits it has made rather than on the number of cells.
+ *
+ * Run with: java benchmark.LargeBoardBenchmark [rounds]
+ */
+public class LargeBoardBenchmark {
+
+    private static final int[] SIZES = { 10, 50, 100, 250, 500, 1000 };
+    private static final int SHOTS = 100_000;
+
+    /**
+     * Runs the benchmark and prints one row per board size.
+     *
+     * @param args optionally, the number of measured rounds per size
+     */
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Random random = new Random(42);
+
+        System.out.printf("%-10s %8s %14s %14s %14s %12s%n", "size", "ships", "place ms", "ns/ship",
+                "ns/shot", "footprint");
+        for (int size : SIZES) {
+            int[] fleet = SparseBoard.megaFleet(size, size);
+
+            for (int i = 0; i < 3; i++) {
+                run(size, fleet, random);
+            }
+
+            long placeNanos = 0;
+            long shotNanos = 0;
+            long shots = 0;
+            long footprint = 0;
+            for (int i = 0; i < rounds; i++) {
+                long[] result = run(size, fleet, random);
+                placeNanos += result[0];
+                shotNanos += result[1];
+                shots += result[2];
+                footprint = result[3];
+            }
+
+            System.out.printf("%-10s %8d %14.2f %14.1f %14.1f %10d KB%n", size + "x" + size, fleet.length,
+                    placeNanos / 1e6 / rounds, (double) placeNanos / rounds / fleet.length,
+                    (double) shotNanos / shots, footprint / 1024);
+        }
+    }
+
+    /**
+     * Places a fleet on a new board and fires at it.
+     *
+     * @return placement nanos, shooting nanos, shots fired and board footprint
+     */
+    private static long[] run(int size, int[] fleet, Random random) {
+        SparseBoard board = new SparseBoard(size, size, fleet);
+
+        long start = System.nanoTime();
+        board.randomize(random);
+        long placed = System.nanoTime();
+
+        int cells = size * size;
+        int limit = Math.min(SHOTS, cells / 2);
+        ArrayDeque<Integer> targets = new ArrayDeque<>();
+        int fired = 0;
+        while (fired < limit && board.getShipsLeft() > 0) {
+            int cell = -1;
+            while (!targets.isEmpty() && (cell < 0 || board.isShot(cell))) {
+                cell = targets.poll();
+            }
+            if (cell < 0 || board.isShot(cell)) {
+                do {
+                    cell = random.nextInt(cells);
+                } while (board.isShot(cell));
+            }
+
+            if (board.shoot(cell) == SparseBoard.HIT) {
+                int row = cell / size;
+                int col = cell % size;
+                if (row > 0) targets.add(cell - size);
+                if (row < size - 1) targets.add(cell + size);
+                if (col > 0) targets.add(cell - 1);
+                if (col < size - 1) targets.add(cell + 1);
+            }
+            fired++;
+        }
+        long shot = System.nanoTime();
+
+        return new long[] { placed - start, shot - placed, fired, board.footprintBytes() };
+    }
+}
@@ -0,0 +1,115 @@
+package bot;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import model.SparseBoard;
+import strategy.HeadlessMatch;
+
+/**
+ * The BotMatchRunner class plays many headless games with an external bot
+ * against randomly placed fleets, one game per pooled process at a time, and
+ * reports the throughput and the mean time per move. With a trivial bot such
+ * as SampleBot the time per move is the protocol overhead.
+ *
+ * Run with: java bot.BotMatchRunner games dimension processes command...
+ */
+public class BotMatchRunner {
+
+    /**
+     * Plays one game with a bot.
+     *
+     * @param bot          the bot
+     * @param board        the board to shoot at, with its ships placed
+     * @param fleet        the ship lengths of the board
+     * @param timeoutNanos the time the bot has for each move
+     * @return the number of shots the bot needed to sink every ship
+     * @throws IOException if the bot fails or fires at an invalid cell
+     */
+    public static int play(BotProcess bot, SparseBoard board, int[] fleet, long timeoutNanos) throws IOException {
+        int cells = board.getWidth() * board.getHeight();
+        bot.newGame(board.getWidth(), board.getHeight(), fleet);
+        int shots = 0;
+        while (board.getShipsLeft() > 0) {
+            int cell = bot.move(timeoutNanos);
+            if (cell < 0 || cell >= cells || board.isShot(cell)) {
+                throw new IOException("Bot " + bot.getName() + " fired at invalid cell " + cell);
+            }
+            int result = board.shoot(cell);
+            bot.result(cell, result, result == SparseBoard.SUNK ? board.getShipCells(board.getShipAt(cell)) : null);
+            shots++;
+        }
+        bot.gameOver(shots);
+        return shots;
+    }
+
+    /**
+     * Runs the games and prints a summary.
+     *
+     * @param args the number of games, the game dimension, the number of bot
+     *             processes and the bot command line
+     * @throws Exception if the pool cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.out.println("Usage: java bot.BotMatchRunner games dimension processes command...");
+            return;
+        }
+        int games = Integer.parseInt(args[0]);
+        int dimension = Integer.parseInt(args[1]);
+        int processes = Integer.parseInt(args[2]);
+        int size = 2 * dimension;
+        int[] fleet = HeadlessMatch.fleetFor(dimension);
+
+        long startup = System.nanoTime();
+        try (BotPool pool = new BotPool(Arrays.asList(args).subList(3, args.length), processes)) {
+            startup = System.nanoTime() - startup;
+
+            AtomicInteger next = new AtomicInteger();
+            LongAdder shots = new LongAdder();
+            LongAdder failures = new LongAdder();
+            LongAdder waitNanos = new LongAdder();
+            ExecutorService executor = Executors.newFixedThreadPool(processes);
+            long start = System.nanoTime();
+            for (int i = 0; i < processes; i++) {
+                executor.execute(() -> {
+                    Random random = new Random();
+                    while (next.getAndIncrement() < games) {
+                        SparseBoard board = new SparseBoard(size, size, fleet);
+                        board.randomize(random);
+                        BotProcess bot = null;
+                        try {
+                            bot = pool.acquire();
+                            long waitBefore = bot.getWaitNanos();
+                            shots.add(play(bot, board, fleet, BotPool.MOVE_MILLIS * 1_000_000L));
+                            waitNanos.add(bot.getWaitNanos() - waitBefore);
+                        } catch (IOException e) {
+                            failures.increment();
+                            System.out.println("Game failed: " + e.getMessage());
+                        } finally {
+                            if (bot != null) {
+                                pool.release(bot);
+                            }
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.DAYS);
+            long elapsed = System.nanoTime() - start;
+
+            long played = games - failures.sum();
+            System.out.printf("pool startup       %10.1f ms%n", startup / 1e6);
+            System.out.printf("games              %10d (%d failed)%n", played, failures.sum());
+            System.out.printf("games per minute   %10.0f%n", played * 60e9 / elapsed);
+            System.out.printf("mean shots         %10.1f%n", shots.sum() / (double) Math.max(1, played));
+            System.out.printf("mean us per move   %10.1f%n", waitNanos.sum() / 1e3 / Math.max(1, shots.sum()));
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package bot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import diagnostics.Log;
+
+/**
+ * The BotPool class keeps a fixed number of external bot processes running and
+ * hands them out one game at a time. Starting a process (and a JVM or
+ * interpreter inside it) costs far more than playing a game, so processes are
+ * started up front and reused; a process that breaks is closed and replaced
+ * when it is returned.
+ *
+ * The shared pool used by the game is configured with system properties:
+ * {@code battleship.bot} holds the command line of the bot and
+ * {@code battleship.bot.pool} the number of processes (default 1). The
+ * command line is split into words as a shell would, so paths with spaces
+ * can be quoted.
+ */
+public class BotPool implements Closeable {
+
+    /** The time a bot has to answer the handshake. */
+    public static final long HANDSHAKE_MILLIS = 5000;
+    /**
+     * The time a bot has for each move without time controls, set with
+     * {@code battleship.bot.timeoutMs}.
+     */
+    public static final long MOVE_MILLIS = Long.getLong("battleship.bot.timeoutMs", 1000);
+
+    private static final long POLL_MILLIS = 100;
+
+    private static BotPool shared;
+
+    private final List<String> command;
+    private final BlockingQueue<BotProcess> idle;
+    private final List<BotProcess> all = new ArrayList<>();
+    private int live;
+
+    /**
+     * Starts a pool of bot processes.
+     *
+     * @param command the command line of the bot
+     * @param size    the number of processes
+     * @throws IOException if a process cannot be started
+     */
+    public BotPool(List<String> command, int size) throws IOException {
+        this.command = new ArrayList<>(command);
+        idle = new ArrayBlockingQueue<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                BotProcess bot = new BotProcess(command, HANDSHAKE_MILLIS);
+                all.add(bot);
+                idle.add(bot);
+                live++;
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether a bot is configured for the shared pool.
+     *
+     * @return true if the battleship.bot property is set
+     */
+    public static boolean isConfigured() {
+        String command = System.getProperty("battleship.bot");
+        return command != null && !command.trim().isEmpty();
+    }
+
+    /**
+     * Starts the shared pool on a daemon thread when a bot is configured, so
+     * that the first game does not wait for the handshakes.
+     */
+    public static void startInBackground() {
+        if (!isConfigured()) {
+            return;
+        }
+        Thread starter = new Thread(() -> {
+            try {
+                shared();
+            } catch (IOException e) {
+                Log.warn("Could not start the bot pool: {}", e.getMessage());
+            }
+        }, "bot-pool");
+        starter.setDaemon(true);
+        starter.start();
+    }
+
+    /**
+     * Returns the shared pool, starting it on first use.
+     *
+     * @return the shared pool
+     * @throws IOException if no bot is configured or it cannot be started
+     */
+    public static synchronized BotPool shared() throws IOException {
+        if (shared == null) {
+            if (!isConfigured()) {
+                throw new IOException("No bot configured, set battleship.bot");
+            }
+            List<String> command = parseCommand(System.getProperty("battleship.bot"));
+            shared = new BotPool(command, Integer.getInteger("battleship.bot.pool", 1));
+        }
+        return shared;
+    }
+
+    /**
+     * Splits a command line into words. Words are separated by whitespace
+     * outside quotes; single quotes keep everything up to the next single
+     * quote, double quotes everything up to the next unescaped double quote,
+     * and a backslash outside single quotes escapes the next character.
+     *
+     * @param line the command line
+     * @return the words
+     * @throws IOException if a quote is not closed
+     */
+    static List<String> parseCommand(String line) throws IOException {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        boolean inWord = false;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quote == '\'') {
+                if (ch == '\'') {
+                    quote = 0;
+                } else {
+                    word.append(ch);
+                }
+            } else if (ch == '\\' && i + 1 < line.length()) {
+                word.append(line.charAt(++i));
+                inWord = true;
+            } else if (quote == '"') {
+                if (ch == '"') {
+                    quote = 0;
+                } else {
+                    word.append(ch);
+                }
+            } else if (ch == '\'' || ch == '"') {
+                quote = ch;
+                inWord = true;
+            } else if (Character.isWhitespace(ch)) {
+                if (inWord) {
+                    words.add(word.toString());
+                    word.setLength(0);
+                    inWord = false;
+                }
+            } else {
+                word.append(ch);
+                inWord = true;
+            }
+        }
+        if (quote != 0) {
+            throw new IOException("Unclosed " + quote + " in bot command: " + line);
+        }
+        if (inWord) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    /**
+     * Takes an idle bot, waiting until one is returned if all are busy.
+     *
+     * @return a bot ready for a new game
+     * @throws IOException if every bot has failed and none could be restarted,
+     *                     also while waiting
+     */
+    public BotProcess acquire() throws IOException {
+        try {
+            while (true) {
+                synchronized (this) {
+                    if (live == 0) {
+                        throw new IOException("No bot processes left in the pool");
+                    }
+                }
+                BotProcess bot = idle.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (bot != null) {
+                    return bot;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a bot", e);
+        }
+    }
+
+    /**
+     * Returns a bot to the pool after a game. A broken bot is closed and
+     * replaced by a new process.
+     *
+     * @param bot the bot to return
+     */
+    public void release(BotProcess bot) {
+        if (!bot.isBroken()) {
+            idle.add(bot);
+            return;
+        }
+        bot.close();
+        synchronized (this) {
+            all.remove(bot);
+            try {
+                BotProcess replacement = new BotProcess(command, HANDSHAKE_MILLIS);
+                all.add(replacement);
+                idle.add(replacement);
+            } catch (IOException e) {
+                live--;
+                Log.error("Could not restart bot: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of processes the pool keeps running.
+     *
+     * @return the live process count
+     */
+    public synchronized int getSize() {
+        return live;
+    }
+
+    /**
+     * Stops every process of the pool.
+     */
+    @Override
+    public synchronized void close() {
+        for (BotProcess bot : all) {
+            bot.close();
+        }
+        all.clear();
+        idle.clear();
+        live = 0;
+    }
+}
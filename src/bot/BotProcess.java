@@ -0,0 +1,262 @@
+package bot;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import diagnostics.Log;
+
+/**
+ * The BotProcess class runs one external bot and talks to it with the
+ * BotProtocol. Output to the bot is buffered and flushed only when a move is
+ * requested. A daemon thread reads the bot's output into a queue, so waiting
+ * for a move can time out without blocking on the pipe.
+ *
+ * A bot that times out, exits or breaks the protocol is marked broken and
+ * must not be used again; BotPool replaces it.
+ *
+ * A BotProcess plays one game at a time and is not thread-safe.
+ */
+public class BotProcess implements Closeable {
+
+    private static final String EOF = new String("EOF");
+
+    private final Process process;
+    private final BufferedWriter out;
+    private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    private final StringBuilder message = new StringBuilder(64);
+    private String name;
+    private volatile boolean broken;
+    private long moves;
+    private long waitNanos;
+
+    /**
+     * Starts a bot and performs the handshake.
+     *
+     * @param command         the command line of the bot
+     * @param handshakeMillis the time the bot has to answer the handshake
+     * @throws IOException if the bot cannot be started or does not answer
+     */
+    public BotProcess(List<String> command, long handshakeMillis) throws IOException {
+        name = command.get(0);
+        process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        out = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.US_ASCII));
+
+        Thread reader = new Thread(this::readLines, "bot-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        try {
+            send(BotProtocol.HELLO + " " + BotProtocol.VERSION);
+            out.flush();
+            String[] answer = expect(BotProtocol.READY, handshakeMillis * 1_000_000L);
+            if (answer.length > 1) {
+                name = answer[1];
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        Log.info("Started bot {}", name);
+    }
+
+    private void readLines() {
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.add(line);
+            }
+        } catch (IOException e) {
+            Log.debug("Bot output closed: {}", e.getMessage());
+        }
+        lines.add(EOF);
+    }
+
+    /**
+     * Returns the name the bot gave in the handshake.
+     *
+     * @return the bot name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Checks whether the bot has failed and must be replaced.
+     *
+     * @return true if the bot timed out, exited or broke the protocol
+     */
+    public boolean isBroken() {
+        return broken || !process.isAlive();
+    }
+
+    /**
+     * Announces a new game. The message is sent with the first move request.
+     *
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @param fleet  the length of every ship
+     * @throws IOException if the bot cannot be written to
+     */
+    public void newGame(int width, int height, int[] fleet) throws IOException {
+        message.setLength(0);
+        message.append(BotProtocol.NEW_GAME).append(' ').append(width).append(' ').append(height).append(' ');
+        BotProtocol.appendList(message, fleet);
+        send(message);
+    }
+
+    /**
+     * Reports the result of the bot's last shot. The message is sent with the
+     * next move request.
+     *
+     * @param cell      the cell that was shot
+     * @param result    SparseBoard.MISSED, HIT or SUNK
+     * @param sunkCells the cells of the sunk ship, or null
+     * @throws IOException if the bot cannot be written to
+     */
+    public void result(int cell, int result, int[] sunkCells) throws IOException {
+        message.setLength(0);
+        message.append(BotProtocol.RESULT).append(' ').append(cell).append(' ')
+                .append(BotProtocol.resultName(result));
+        if (sunkCells != null) {
+            message.append(' ');
+            BotProtocol.appendList(message, sunkCells);
+        }
+        send(message);
+    }
+
+    /**
+     * Asks the bot for its next shot and waits for the answer.
+     *
+     * @param timeoutNanos the time the bot has to answer
+     * @return the cell the bot fires at
+     * @throws IOException if the bot times out, exits or sends a bad answer;
+     *                     the bot is then broken
+     */
+    public int move(long timeoutNanos) throws IOException {
+        long start = System.nanoTime();
+        message.setLength(0);
+        message.append(BotProtocol.MOVE).append(' ').append(Math.max(1, timeoutNanos / 1_000_000L));
+        send(message);
+        try {
+            out.flush();
+            String[] answer = expect(BotProtocol.SHOT, timeoutNanos);
+            if (answer.length < 2) {
+                throw new IOException("Bot " + name + " sent a shot without a cell");
+            }
+            return Integer.parseInt(answer[1]);
+        } catch (NumberFormatException e) {
+            broken = true;
+            throw new IOException("Bot " + name + " sent an invalid cell", e);
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        } finally {
+            moves++;
+            waitNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Tells the bot the game is over.
+     *
+     * @param shots the number of shots the bot fired
+     * @throws IOException if the bot cannot be written to
+     */
+    public void gameOver(int shots) throws IOException {
+        send(BotProtocol.GAME_OVER + " " + shots);
+        out.flush();
+    }
+
+    /**
+     * Returns the number of moves requested from this bot.
+     *
+     * @return the move count
+     */
+    public long getMoves() {
+        return moves;
+    }
+
+    /**
+     * Returns the total time spent waiting for moves, including the bot's
+     * thinking time and the round trip through the pipes.
+     *
+     * @return the waiting time in nanoseconds
+     */
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    private void send(CharSequence line) throws IOException {
+        try {
+            out.append(line).append('\n');
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for a line starting with the given keyword, skipping info lines.
+     */
+    private String[] expect(String keyword, long timeoutNanos) throws IOException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (true) {
+            String line;
+            try {
+                line = lines.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for bot " + name);
+            }
+            if (line == null) {
+                throw new IOException("Bot " + name + " did not answer " + keyword + " in time");
+            }
+            if (line == EOF) {
+                throw new IOException("Bot " + name + " exited");
+            }
+            if (line.startsWith(BotProtocol.INFO)) {
+                Log.debug("Bot {}: {}", name, line);
+                continue;
+            }
+            String[] tokens = line.trim().split(" ");
+            if (!tokens[0].equals(keyword)) {
+                throw new IOException("Bot " + name + " sent \"" + line + "\", expected " + keyword);
+            }
+            return tokens;
+        }
+    }
+
+    /**
+     * Asks the bot to quit and stops its process.
+     */
+    @Override
+    public void close() {
+        broken = true;
+        try {
+            out.write(BotProtocol.QUIT + "\n");
+            out.flush();
+            out.close();
+        } catch (IOException e) {
+            Log.debug("Bot {} already closed", name);
+        }
+        try {
+            if (!process.waitFor(200, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package bot;
+
+import model.SparseBoard;
+
+/**
+ * The BotProtocol class defines the line-oriented text protocol spoken with
+ * external bots over their standard input and output. Every message is one
+ * line of space-separated tokens. Cells are numbered row * width + column,
+ * starting at 0.
+ *
+ * <pre>
+ * engine: battleship 1                       protocol handshake
+ * bot:    ready &lt;name&gt;
+ * engine: newgame &lt;width&gt; &lt;height&gt; &lt;l1,l2,...&gt;   ship lengths of the fleet
+ * engine: move &lt;millis&gt;                      time allowed for the answer
+ * bot:    shot &lt;cell&gt;
+ * engine: result &lt;cell&gt; miss|hit|sunk [c1,c2,...]  cells of a sunk ship
+ * engine: gameover &lt;shots&gt;
+ * engine: quit
+ * </pre>
+ *
+ * The engine does not wait for the bot to acknowledge newgame, result or
+ * gameover: they are buffered and written together with the next move
+ * request, so each move costs a single round trip. Bots may print lines
+ * starting with "info" at any time; they are logged and otherwise ignored.
+ */
+public final class BotProtocol {
+
+    /** The protocol version sent in the handshake. */
+    public static final int VERSION = 1;
+
+    static final String HELLO = "battleship";
+    static final String READY = "ready";
+    static final String NEW_GAME = "newgame";
+    static final String MOVE = "move";
+    static final String SHOT = "shot";
+    static final String RESULT = "result";
+    static final String GAME_OVER = "gameover";
+    static final String QUIT = "quit";
+    static final String INFO = "info";
+
+    private static final String[] RESULTS = { "miss", "hit", "sunk" };
+
+    private BotProtocol() {
+    }
+
+    /**
+     * Returns the protocol word for a shot result.
+     *
+     * @param result SparseBoard.MISSED, HIT or SUNK
+     * @return "miss", "hit" or "sunk"
+     */
+    static String resultName(int result) {
+        return RESULTS[result];
+    }
+
+    /**
+     * Parses the protocol word for a shot result.
+     *
+     * @param name "miss", "hit" or "sunk"
+     * @return SparseBoard.MISSED, HIT or SUNK
+     * @throws IllegalArgumentException if the word is not a result
+     */
+    static int parseResult(String name) {
+        switch (name) {
+            case "miss":
+                return SparseBoard.MISSED;
+            case "hit":
+                return SparseBoard.HIT;
+            case "sunk":
+                return SparseBoard.SUNK;
+            default:
+                throw new IllegalArgumentException("Unknown result " + name);
+        }
+    }
+
+    /**
+     * Appends a comma-separated list of numbers.
+     *
+     * @param builder the builder to append to
+     * @param values  the numbers
+     */
+    static void appendList(StringBuilder builder, int[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(values[i]);
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of numbers.
+     *
+     * @param list the list
+     * @return the numbers
+     */
+    static int[] parseList(String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i]);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,141 @@
+package bot;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import diagnostics.Log;
+import model.SparseBoard;
+import strategy.OpponentStrategy;
+import strategy.RandomStrategy;
+import strategy.ShotHistory;
+
+/**
+ * The ExternalBotStrategy class lets an external bot from the shared BotPool
+ * play as the computer opponent. Each game takes a bot from the pool; the
+ * results of the previous shot are sent together with the next move request.
+ *
+ * The bot must answer within the move budget, or within
+ * {@code battleship.bot.timeoutMs} milliseconds (default 1000) without time
+ * controls. If it fails, it is returned to the pool to be replaced and the
+ * rest of the game is played by a RandomStrategy.
+ *
+ * The strategy is listed in META-INF/services and is available only when a
+ * bot is configured. A move waits for the bot, so the game asks for it off
+ * the Event Dispatch Thread; reset waits for a move in progress.
+ */
+public class ExternalBotStrategy implements OpponentStrategy {
+
+    private static final long DEFAULT_TIMEOUT_NANOS = BotPool.MOVE_MILLIS * 1_000_000L;
+
+    private final RandomStrategy fallback = new RandomStrategy();
+    private final BitSet reportedSunk = new BitSet();
+    private BotProcess bot;
+    private boolean failed;
+    private int reported;
+    private int fired;
+
+    @Override
+    public String getName() {
+        return "External Bot";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return BotPool.isConfigured();
+    }
+
+    @Override
+    public boolean isBlocking() {
+        return true;
+    }
+
+    @Override
+    public synchronized int chooseCell(ShotHistory history, long budgetNanos) {
+        if (!failed) {
+            try {
+                if (bot == null) {
+                    bot = BotPool.shared().acquire();
+                    bot.newGame(history.getWidth(), history.getHeight(), history.getRemainingLengths());
+                }
+                reportResults(history);
+                int cell = bot.move(Math.min(budgetNanos, DEFAULT_TIMEOUT_NANOS));
+                if (cell >= 0 && cell < history.getWidth() * history.getHeight()
+                        && history.getState(cell) == SparseBoard.UNKNOWN) {
+                    fired++;
+                    return cell;
+                }
+                Log.warn("Bot {} fired at invalid cell {}", bot.getName(), cell);
+            } catch (IOException e) {
+                Log.warn("External bot failed: {}", e.getMessage());
+            }
+            failed = true;
+            releaseBot(-1);
+        }
+        fired++;
+        return fallback.chooseCell(history, budgetNanos);
+    }
+
+    /**
+     * Sends the results of the shots the bot has not heard about yet.
+     */
+    private void reportResults(ShotHistory history) throws IOException {
+        for (; reported < history.getShotCount(); reported++) {
+            int cell = history.getShot(reported);
+            int result = history.getResult(reported);
+            int[] sunkCells = null;
+            if (result == SparseBoard.SUNK) {
+                sunkCells = newlySunkCells(history);
+            }
+            bot.result(cell, result, sunkCells);
+        }
+    }
+
+    /**
+     * Returns the cells that have become SUNK since the last sinking.
+     */
+    private int[] newlySunkCells(ShotHistory history) {
+        int cells = history.getWidth() * history.getHeight();
+        int count = 0;
+        int[] sunk = new int[16];
+        for (int cell = 0; cell < cells; cell++) {
+            if (history.getState(cell) == SparseBoard.SUNK && !reportedSunk.get(cell)) {
+                reportedSunk.set(cell);
+                if (count == sunk.length) {
+                    sunk = Arrays.copyOf(sunk, count * 2);
+                }
+                sunk[count++] = cell;
+            }
+        }
+        return Arrays.copyOf(sunk, count);
+    }
+
+    private void releaseBot(int shots) {
+        if (bot == null) {
+            return;
+        }
+        if (shots >= 0 && !bot.isBroken()) {
+            try {
+                bot.gameOver(shots);
+            } catch (IOException e) {
+                Log.debug("Bot {} closed before game over", bot.getName());
+            }
+        }
+        try {
+            BotPool.shared().release(bot);
+        } catch (IOException e) {
+            bot.close();
+        }
+        bot = null;
+    }
+
+    @Override
+    public synchronized void reset() {
+        releaseBot(fired);
+        reported = 0;
+        fired = 0;
+        failed = false;
+        reportedSunk.clear();
+        fallback.reset();
+    }
+}
@@ -0,0 +1,108 @@
+package bot;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * The SampleBot class is a minimal external bot that speaks the BotProtocol.
+ * It fires next to unsunk hits and at random cells otherwise. It serves as an
+ * example for bot authors and as a fast opponent for measuring the protocol
+ * overhead.
+ *
+ * Run with: java bot.SampleBot
+ */
+public class SampleBot {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte MISSED = 1;
+    private static final byte HIT = 2;
+    private static final byte SUNK = 3;
+
+    private final Random random = new Random();
+    private byte[] states = new byte[0];
+    private int width;
+    private int height;
+
+    /**
+     * Plays games read from standard input until told to quit.
+     *
+     * @param args unused
+     * @throws IOException if standard input or output fails
+     */
+    public static void main(String[] args) throws IOException {
+        new SampleBot().run();
+    }
+
+    private void run() throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII));
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII));
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] tokens = line.split(" ");
+            switch (tokens[0]) {
+                case BotProtocol.HELLO:
+                    out.write(BotProtocol.READY + " SampleBot\n");
+                    out.flush();
+                    break;
+                case BotProtocol.NEW_GAME:
+                    width = Integer.parseInt(tokens[1]);
+                    height = Integer.parseInt(tokens[2]);
+                    states = new byte[width * height];
+                    break;
+                case BotProtocol.RESULT:
+                    int cell = Integer.parseInt(tokens[1]);
+                    int result = BotProtocol.parseResult(tokens[2]);
+                    states[cell] = result == 0 ? MISSED : HIT;
+                    if (tokens.length > 3) {
+                        for (int sunk : BotProtocol.parseList(tokens[3])) {
+                            states[sunk] = SUNK;
+                        }
+                    }
+                    break;
+                case BotProtocol.MOVE:
+                    out.write(BotProtocol.SHOT + " " + chooseCell() + "\n");
+                    out.flush();
+                    break;
+                case BotProtocol.QUIT:
+                    return;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private int chooseCell() {
+        int[] steps = { -width, width, -1, 1 };
+        for (int cell = 0; cell < states.length; cell++) {
+            if (states[cell] != HIT) {
+                continue;
+            }
+            for (int step : steps) {
+                int next = cell + step;
+                boolean sameRow = step == 1 || step == -1 ? next / width == cell / width : true;
+                if (next >= 0 && next < states.length && sameRow && states[next] == UNKNOWN) {
+                    return next;
+                }
+            }
+        }
+        for (int probe = 0; probe < 64; probe++) {
+            int cell = random.nextInt(states.length);
+            if (states[cell] == UNKNOWN) {
+                return cell;
+            }
+        }
+        int start = random.nextInt(states.length);
+        for (int i = 0; i < states.length; i++) {
+            int cell = (start + i) % states.length;
+            if (states[cell] == UNKNOWN) {
+                return cell;
+            }
+        }
+        return 0;
+    }
+}
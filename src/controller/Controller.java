@@ -3,21 +3,45 @@ package controller;
 import java.awt.Color;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
 
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Clip;
 import javax.swing.JColorChooser;
 import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
 
+import diagnostics.EngineStats;
+import diagnostics.GameEvents;
 import miscellaneous.Misc;
+import diagnostics.Log;
+import model.Board;
 import model.ComputerBoard;
+import model.FleetConfig;
+import model.FleetLayout;
 import model.Coordinate;
+import model.LayoutValidator;
+import model.MatchClock;
 import model.Model;
 import model.PlayerBoard;
+import model.Ship;
+import model.SparseBoard;
+import strategy.HardPlacement;
+import strategy.OpponentStrategy;
+import strategy.PlacementHabits;
+import strategy.ShotLog;
+import strategy.StrategyRegistry;
 import view.*;
 
 /**
@@ -26,14 +50,24 @@ import view.*;
  */
 public class Controller implements ActionListener {
 
-    private ArrayList<Coordinate> playerShotCoordinates;
+    private ShotLog playerShots;
+    private OpponentStrategy opponent = StrategyRegistry.getStrategies().get(0);
     private MiddleMenu middleMenu;
     private MenuBar menuBar;
     private StartMenu startMenu;
     private boolean canPlay;
+    private boolean designedFleet;
+    private boolean salvo;
+    private int[] aimed = new int[0];
+    private int aimedCount;
     private View view;
     private Model model;
     private Clip clip;
+    private MatchClock clock;
+    private SwingWorker<HardPlacement.Result, Void> placementWorker;
+    private SwingWorker<Void, Void> dimensionWorker;
+    private SwingWorker<FleetLayout, Void> loadWorker;
+    private SwingWorker<int[], Void> turnWorker;
 
     /**
      * Constructs a new Controller instance.
@@ -42,7 +76,6 @@ public class Controller implements ActionListener {
      * @param model the Model object representing the game model
      */
     public Controller(View view, Model model) {
-        this.playerShotCoordinates = new ArrayList<>();
         this.view = view;
         this.model = model;
     }
@@ -59,28 +92,503 @@ public class Controller implements ActionListener {
     }
 
     /**
-     * Generates a random value and shoots at the player.
+     * Asks the selected opponent strategy for a target.
+     * 
+     * @param shots the shots fired at the player so far
+     * @return the strategy cell chosen, or -1 if none is left
      */
-    public void shootAtPlayer() {
-        Coordinate coordinate;
-        PlayerBoard playerBoard = model.getPlayerBoard();
-        do {
-            Random rand = new Random();
-            int randRow = 1 + rand.nextInt(2 * model.getDimension());
-            int randCol = 1 + rand.nextInt(2 * model.getDimension());
-            String coordinateName = Misc.ALPHABET[randCol] + Integer.toString(randRow);
-            coordinate = playerBoard.getCoordinate(coordinateName);
-        } while (playerShotCoordinates.contains(coordinate));
+    private int chooseShot(ShotLog shots) {
+        GameEvents.AiDecision decision = new GameEvents.AiDecision();
+        decision.begin();
+
+        long budget = canPlay ? clock.getMoveBudgetNanos(MatchClock.COMPUTER) : Long.MAX_VALUE;
+        int cell = StrategyRegistry.choose(opponent, shots, budget);
+        if (cell < 0) {
+            return cell;
+        }
+
+        decision.end();
+        if (decision.shouldCommit()) {
+            PlayerBoard playerBoard = model.getPlayerBoard();
+            decision.strategy = opponent.getName();
+            decision.candidates = opponent.getCandidatesEvaluated();
+            decision.shots = 1;
+            decision.cell = playerBoard.getCellName(toCellId(playerBoard, cell));
+            decision.commit();
+        }
+        return cell;
+    }
 
-        playerShotCoordinates.add(coordinate);
+    /**
+     * Shoots at the player.
+     * 
+     * @param cell the strategy cell chosen by the opponent
+     */
+    private void shootAtPlayer(int cell) {
+        PlayerBoard playerBoard = model.getPlayerBoard();
+        if (cell < 0) {
+            Log.warn("{} found no cell left to shoot at", opponent.getName());
+            return;
+        }
+        int cellId = toCellId(playerBoard, cell);
 
-        boolean isHit = model.receiveShot(playerBoard, coordinate);
-        view.updateHistory(coordinate.getName(), "Computer", isHit);
+        boolean isHit = model.receiveShot(playerBoard, cellId);
+        if (!isHit) {
+            playerShots.record(cell, SparseBoard.MISSED);
+        } else {
+            Ship ship = model.getShipAt(playerBoard, cellId);
+            playerShots.record(cell, ship.isShipDestroyed() ? SparseBoard.SUNK : SparseBoard.HIT);
+            if (ship.isShipDestroyed()) {
+                Coordinate[] coordinates = ship.getCoordinates();
+                int[] cells = new int[coordinates.length];
+                for (int i = 0; i < cells.length; i++) {
+                    cells[i] = toStrategyCell(playerBoard, coordinates[i].getCellId());
+                }
+                playerShots.recordSunk(cells);
+            }
+        }
+        view.playShotEffect(playerBoard.getCoordinate(cellId));
+        view.updateHistory(playerBoard.getCellName(cellId), "Computer", isHit);
 
         if (model.getPlayerShipCount() == 0)
             gameStop("Over");
     }
 
+    /**
+     * Plays the computer's turn, a single shot or a salvo, and hands the turn
+     * back to the player. A strategy that may block is asked off the EDT, and
+     * the player's clicks are ignored until it answers.
+     */
+    private void computerTurn() {
+        if (canPlay) {
+            clock.startTurn(MatchClock.COMPUTER);
+        }
+        if (playerShots == null) {
+            resetOpponent();
+        }
+        ShotLog shots = playerShots;
+        boolean volley = canPlay && salvo;
+        if (!opponent.isBlocking()) {
+            if (volley) {
+                shootVolleyAtPlayer(chooseVolley(shots));
+            } else {
+                shootAtPlayer(chooseShot(shots));
+            }
+            endComputerTurn();
+            return;
+        }
+        turnWorker = new SwingWorker<int[], Void>() {
+            @Override
+            protected int[] doInBackground() {
+                return volley ? chooseVolley(shots) : new int[] { chooseShot(shots) };
+            }
+
+            @Override
+            protected void done() {
+                if (turnWorker != this) {
+                    return;
+                }
+                turnWorker = null;
+                int[] cells;
+                try {
+                    cells = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Log.error("{} failed to choose a move", opponent.getName(), e);
+                    return;
+                }
+                if (volley) {
+                    shootVolleyAtPlayer(cells);
+                } else {
+                    shootAtPlayer(cells[0]);
+                }
+                endComputerTurn();
+            }
+        };
+        turnWorker.execute();
+    }
+
+    /**
+     * Ends the computer's turn on the clock, unless the game is already over.
+     */
+    private void endComputerTurn() {
+        if (canPlay) {
+            if (clock.isOverTime(MatchClock.COMPUTER)) {
+                gameStop("Win");
+                return;
+            }
+            clock.startTurn(MatchClock.PLAYER);
+        }
+    }
+
+    /**
+     * Adds a computer board coordinate to the salvo being aimed, or removes it
+     * if it is already aimed at. The salvo is fired as soon as it has one
+     * shot per surviving player ship, or one per unshot cell if fewer remain.
+     * 
+     * @param coordinate the coordinate clicked
+     */
+    private void aim(Coordinate coordinate) {
+        int cellId = coordinate.getCellId();
+        for (int i = 0; i < aimedCount; i++) {
+            if (aimed[i] == cellId) {
+                aimed[i] = aimed[--aimedCount];
+                coordinate.setAimed(false);
+                return;
+            }
+        }
+        aimed[aimedCount++] = cellId;
+        coordinate.setAimed(true);
+
+        int unshot = model.getComputerBoard().getUnshotCount();
+        if (aimedCount >= Math.min(model.getPlayerShipCount(), unshot)) {
+            fireVolley();
+        }
+    }
+
+    /**
+     * Fires the aimed salvo at the computer and, unless it sinks the last
+     * ship, lets the computer answer.
+     */
+    private void fireVolley() {
+        ComputerBoard computerBoard = model.getComputerBoard();
+        int[] cellIds = Arrays.copyOf(aimed, aimedCount);
+        aimedCount = 0;
+        for (int cellId : cellIds) {
+            computerBoard.getCoordinate(cellId).setAimed(false);
+        }
+
+        int[] results = model.receiveVolley(computerBoard, cellIds);
+        reportVolley(computerBoard, cellIds, results, "Player");
+
+        if (model.getComputerShipCount() == 0) {
+            gameStop("Win");
+            return;
+        }
+        computerTurn();
+    }
+
+    /**
+     * Asks the selected opponent strategy for one shot per surviving computer
+     * ship.
+     * 
+     * @param shots the shots fired at the player so far
+     * @return the strategy cells of the salvo
+     */
+    private int[] chooseVolley(ShotLog shots) {
+        GameEvents.AiDecision decision = new GameEvents.AiDecision();
+        decision.begin();
+
+        StrategyRegistry.Volley volley = StrategyRegistry.chooseVolley(opponent, shots,
+                model.getComputerShipCount(), clock.getMoveBudgetNanos(MatchClock.COMPUTER));
+        int[] cells = volley.getCells();
+
+        decision.end();
+        if (decision.shouldCommit()) {
+            PlayerBoard playerBoard = model.getPlayerBoard();
+            StringBuilder names = new StringBuilder();
+            for (int i = 0; i < cells.length; i++) {
+                names.append(i == 0 ? "" : ", ").append(playerBoard.getCellName(toCellId(playerBoard, cells[i])));
+            }
+            decision.strategy = opponent.getName();
+            decision.candidates = volley.getCandidatesEvaluated();
+            decision.shots = cells.length;
+            decision.cell = names.toString();
+            decision.commit();
+        }
+        return cells;
+    }
+
+    /**
+     * Fires a salvo at the player.
+     * 
+     * @param cells the strategy cells chosen by the opponent
+     */
+    private void shootVolleyAtPlayer(int[] cells) {
+        PlayerBoard playerBoard = model.getPlayerBoard();
+        int[] cellIds = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            cellIds[i] = toCellId(playerBoard, cells[i]);
+        }
+
+        int[] results = model.receiveVolley(playerBoard, cellIds);
+        for (int i = 0; i < cells.length; i++) {
+            playerShots.record(cells[i], results[i]);
+            if (results[i] == SparseBoard.SUNK) {
+                Coordinate[] coordinates = model.getShipAt(playerBoard, cellIds[i]).getCoordinates();
+                int[] shipCells = new int[coordinates.length];
+                for (int j = 0; j < shipCells.length; j++) {
+                    shipCells[j] = toStrategyCell(playerBoard, coordinates[j].getCellId());
+                }
+                playerShots.recordSunk(shipCells);
+            }
+        }
+        reportVolley(playerBoard, cellIds, results, "Computer");
+
+        if (model.getPlayerShipCount() == 0) {
+            gameStop("Over");
+        }
+    }
+
+    /**
+     * Plays the shot effects of a salvo and adds it to the history as one
+     * entry.
+     * 
+     * @param board   the board that received the salvo
+     * @param cellIds the cells shot
+     * @param results the result of each shot
+     * @param side    the side that fired
+     */
+    private void reportVolley(Board board, int[] cellIds, int[] results, String side) {
+        StringBuilder names = new StringBuilder();
+        int hits = 0;
+        for (int i = 0; i < cellIds.length; i++) {
+            view.playShotEffect(board.getCoordinate(cellIds[i]));
+            names.append(i == 0 ? "" : ", ").append(board.getCellName(cellIds[i]));
+            if (results[i] != SparseBoard.MISSED) {
+                hits++;
+            }
+        }
+        view.updateVolleyHistory(names.toString(), side, hits);
+    }
+
+    /**
+     * Starts a new shot log for the player board and resets the opponent
+     * strategy, ready for a new game.
+     */
+    private void resetOpponent() {
+        turnWorker = null;
+        Ship[] ships = model.getPlayerBoard().getShips();
+        int[] fleet = new int[ships.length];
+        for (int i = 0; i < fleet.length; i++) {
+            fleet[i] = ships[i].getLength();
+        }
+        int size = model.getPlayerBoard().getGridWidth() - 1;
+        playerShots = new ShotLog(size, size, fleet);
+        playerShots.setPrior(PlacementHabits.load().getPrior(size, size, fleet));
+        playerShots.setNoTouch(model.getPlayerBoard().isNoTouch());
+        opponent.reset();
+    }
+
+    /**
+     * Copies the ships of the player board to a board without header row and
+     * column, in strategy cells.
+     * 
+     * @return the player's layout
+     */
+    private SparseBoard playerLayout() {
+        PlayerBoard board = model.getPlayerBoard();
+        Ship[] ships = board.getShips();
+        int[] fleet = new int[ships.length];
+        for (int i = 0; i < fleet.length; i++) {
+            fleet[i] = ships[i].getLength();
+        }
+        int size = board.getGridWidth() - 1;
+        SparseBoard layout = new SparseBoard(size, size, fleet);
+        for (int i = 0; i < ships.length; i++) {
+            int start = toStrategyCell(board, ships[i].getCoordinates()[0].getCellId());
+            layout.place(i, start / size, start % size, ships[i].isHorizontal());
+        }
+        return layout;
+    }
+
+    /**
+     * Asks for a layout file and places the player's fleet as in one of its
+     * records, picked at random among those valid for the current dimension
+     * and rules. The file is validated off the EDT; one valid record is kept
+     * by reservoir sampling, so files of any length fit in memory. Tells the
+     * player why when no record is valid.
+     */
+    private void loadFleet() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(view) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        int dimension = model.getDimension();
+        int size = 2 * dimension;
+        FleetConfig fleet = FleetConfig.forDimension(dimension);
+        LayoutValidator validator = new LayoutValidator(null, model.isNoTouch() && fleet.fitsWithoutTouching(size));
+        // A hard placement finishing during the load would replace the boards
+        // behind the buttons that done() enables again.
+        cancelPlacement();
+        middleMenu.setBuildingState(true);
+        loadWorker = new SwingWorker<FleetLayout, Void>() {
+            private long matching;
+            private String problem = "the file has no " + size + "x" + size + " record";
+
+            @Override
+            protected FleetLayout doInBackground() throws IOException {
+                Random random = new Random();
+                FleetLayout[] picked = new FleetLayout[1];
+                try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                    validator.validate(in, Runtime.getRuntime().availableProcessors(),
+                            invalid -> problem = invalid.toString(), layout -> {
+                                if (layout.getWidth() == size && layout.getHeight() == size
+                                        && random.nextDouble() * ++matching < 1) {
+                                    picked[0] = layout;
+                                }
+                            });
+                }
+                return picked[0];
+            }
+
+            @Override
+            protected void done() {
+                if (loadWorker != this) {
+                    return;
+                }
+                loadWorker = null;
+                middleMenu.setBuildingState(false);
+                FleetLayout layout = null;
+                try {
+                    layout = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    problem = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                }
+                if (canPlay || model.getDimension() != dimension) {
+                    return;
+                }
+                if (layout == null) {
+                    Log.warn("No fleet loaded from {}: {}", file, problem);
+                    JOptionPane.showMessageDialog(view, "No valid fleet loaded: " + problem);
+                    return;
+                }
+                try {
+                    model.placePlayerShips(layout);
+                } catch (IllegalStateException e) {
+                    Log.warn("Could not place the computer fleet: {}", e.getMessage());
+                    JOptionPane.showMessageDialog(view, e.getMessage() + ", try again");
+                    model.setNewBoards();
+                    view.setUpBoard(model);
+                    resetOpponent();
+                    return;
+                }
+                // A loaded fleet was not placed by the player, so it says
+                // nothing about the player's habits.
+                designedFleet = false;
+                view.setUpBoard(model);
+                resetOpponent();
+                Log.info("Loaded one of {} valid fleets from {}", matching, file);
+            }
+        };
+        loadWorker.execute();
+    }
+
+    /**
+     * Searches for a hard computer fleet layout off the EDT and places it when
+     * the search ends. The randomly placed fleet stays until then, and the
+     * Play button is disabled meanwhile.
+     */
+    private void placeHardFleet() {
+        Ship[] ships = model.getComputerBoard().getShips();
+        int[] fleet = new int[ships.length];
+        for (int i = 0; i < fleet.length; i++) {
+            fleet[i] = ships[i].getLength();
+        }
+        int size = model.getComputerBoard().getGridWidth() - 1;
+        middleMenu.setPlacingState(true);
+        placementWorker = new SwingWorker<HardPlacement.Result, Void>() {
+            @Override
+            protected HardPlacement.Result doInBackground() throws InterruptedException {
+                return HardPlacement.search(size, size, fleet, HardPlacement.getBudgetNanos());
+            }
+
+            @Override
+            protected void done() {
+                if (placementWorker != this) {
+                    return;
+                }
+                placementWorker = null;
+                middleMenu.setPlacingState(false);
+                try {
+                    model.placeComputerShips(get().getLayout());
+                    view.setUpBoard(model);
+                } catch (InterruptedException | ExecutionException e) {
+                    Log.warn("Hard placement failed, keeping the random fleet: {}", e.getMessage());
+                }
+            }
+        };
+        placementWorker.execute();
+    }
+
+    /**
+     * Switches to another dimension. The state shared by the boards of the
+     * dimension is prepared off the EDT, then the boards are created and fill
+     * in a few rows per event. If the dimension changes again before the
+     * state is ready, only the last dimension chosen is built. Play, Random
+     * and Design are disabled meanwhile.
+     *
+     * @param dimension the dimension chosen
+     */
+    private void changeDimension(int dimension) {
+        if (dimensionWorker != null) {
+            dimensionWorker.cancel(false);
+        }
+        middleMenu.setBuildingState(true);
+        dimensionWorker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                Model.prepareDimension(dimension);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                if (dimensionWorker != this) {
+                    return;
+                }
+                dimensionWorker = null;
+                middleMenu.setBuildingState(false);
+                try {
+                    get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Log.warn("Could not prepare dimension {} in the background: {}", dimension, e.getMessage());
+                }
+                model.setDimension(dimension);
+                view.setUpBoard(model);
+                resetOpponent();
+            }
+        };
+        dimensionWorker.execute();
+    }
+
+    /**
+     * Stops a running hard placement search, whose layout would belong to
+     * boards that are about to be replaced.
+     */
+    private void cancelPlacement() {
+        if (placementWorker != null) {
+            placementWorker.cancel(true);
+            placementWorker = null;
+            middleMenu.setPlacingState(false);
+        }
+    }
+
+    /**
+     * Converts a strategy cell, which has no header row or column, to a board
+     * cell id.
+     * 
+     * @param board the board
+     * @param cell  the strategy cell
+     * @return the board cell id
+     */
+    private static int toCellId(PlayerBoard board, int cell) {
+        int size = board.getGridWidth() - 1;
+        return board.getCellId(cell / size + 1, cell % size + 1);
+    }
+
+    /**
+     * Converts a board cell id to a strategy cell.
+     * 
+     * @param board  the board
+     * @param cellId the board cell id
+     * @return the strategy cell
+     */
+    private static int toStrategyCell(PlayerBoard board, int cellId) {
+        int width = board.getGridWidth();
+        return (cellId / width - 1) * (width - 1) + cellId % width - 1;
+    }
+
     @Override
     public void actionPerformed(ActionEvent e) {
         Object source = e.getSource();
@@ -88,53 +596,130 @@ public class Controller implements ActionListener {
             view.setGame(model);
             middleMenu = view.getMenu();
             menuBar = view.getJMenuBar();
+            middleMenu.getClockTimer().addActionListener(this);
+        } else if (source == middleMenu.getClockTimer()) {
+            if (canPlay && clock.isOverTime(MatchClock.PLAYER)) {
+                gameStop("Over");
+            }
         } else if (source instanceof Coordinate) {
             Coordinate coordinate = (Coordinate) source;
 
             ComputerBoard computerBoard = model.getComputerBoard();
 
-            if (model.canPlay() && !coordinate.isShot()) {
+            if (model.canPlay() && !coordinate.isShot() && turnWorker == null) {
+                if (canPlay && clock.isOverTime(MatchClock.PLAYER)) {
+                    gameStop("Over");
+                    return;
+                }
+                if (canPlay && salvo) {
+                    aim(coordinate);
+                    return;
+                }
 
-                boolean isHit = model.receiveShot(computerBoard, coordinate);
+                int cellId = coordinate.getCellId();
+                boolean isHit = model.receiveShot(computerBoard, cellId);
+                view.playShotEffect(coordinate);
 
-                view.updateHistory(coordinate.getName(), "Player", isHit);
+                view.updateHistory(computerBoard.getCellName(cellId), "Player", isHit);
 
                 if (model.getComputerShipCount() == 0) {
                     gameStop("Win");
                     return;
                 }
-
-                shootAtPlayer();
+                computerTurn();
                 return;
             }
         } else if (source == middleMenu.getMenuPlayButton()) {
-            if (model.canPlay()) {
-                canPlay = true;
-                middleMenu.setStartState();
+            if (model.canPlay() && placementWorker == null) {
+                setPlaying(true);
+                clock = MatchClock.fromProperty();
+                clock.start(MatchClock.PLAYER);
+                salvo = menuBar.getSalvoItem().isSelected();
+                aimed = new int[model.getPlayerShipCount()];
+                aimedCount = 0;
+                resetOpponent();
+                middleMenu.setStartState(clock);
             }
         } else if (source == middleMenu.getMenuRandButton()) {
-            model.randomizeShips();
+            cancelPlacement();
+            designedFleet = false;
+            try {
+                model.randomizeShips();
+            } catch (IllegalStateException failure) {
+                Log.warn("Could not place the fleets: {}", failure.getMessage());
+                JOptionPane.showMessageDialog(view, failure.getMessage() + ", try again");
+                model.setNewBoards();
+                view.setUpBoard(model);
+                resetOpponent();
+                return;
+            }
             view.setUpBoard(model);
-            playerShotCoordinates = new ArrayList<>();
+            resetOpponent();
+            if (menuBar.getHardPlacementItem().isSelected() && !model.getComputerBoard().isNoTouch()
+                    && FleetConfig.forDimension(model.getDimension()).isLinesOnly()) {
+                placeHardFleet();
+            }
         } else if (source == middleMenu.getMenuDimensionBox()) {
+            cancelPlacement();
+            designedFleet = false;
             JComboBox<?> comboBox = (JComboBox<?>) middleMenu.getMenuDimensionBox();
-            int dimension = Integer.parseInt((String) comboBox.getSelectedItem());
-            model.setDimension(dimension);
-            view.setUpBoard(model);
+            changeDimension(Integer.parseInt((String) comboBox.getSelectedItem()));
         } else if (source == middleMenu.getMenuResetButton()) {
+            cancelPlacement();
+            designedFleet = false;
             model.setNewBoards();
+            resetOpponent();
+            setPlaying(false);
             middleMenu.setResetState();
             view.setUpBoard(model);
+        } else if (source == middleMenu.getMenuOpponentBox()) {
+            opponent = StrategyRegistry.byName((String) middleMenu.getMenuOpponentBox().getSelectedItem());
+            resetOpponent();
         } else if (source == middleMenu.getMenuLanguageBox()) {
             middleMenu.setLanguage();
         } else if (source == middleMenu.getDesignButton()) {
             model.enterDesignMode();
+            designedFleet = true;
             view.setUpBoard(model);
+            resetOpponent();
 
 
+        } else if (source == menuBar.getLoadFleetItem()) {
+            if (!canPlay && dimensionWorker == null && loadWorker == null) {
+                loadFleet();
+            }
+        } else if (source == menuBar.getNoTouchItem()) {
+            if (canPlay) {
+                // The rule cannot change during a game.
+                menuBar.getNoTouchItem().setSelected(model.isNoTouch());
+                return;
+            }
+            cancelPlacement();
+            designedFleet = false;
+            model.setNoTouch(menuBar.getNoTouchItem().isSelected());
+            model.setNewBoards();
+            view.setUpBoard(model);
+            resetOpponent();
+        } else if (source == menuBar.getMegaBoardItem()) {
+            model.newMegaBoard(Misc.MEGA_BOARD_SIZE);
+            view.showMegaBoard(model.getMegaBoard());
+        } else if (source instanceof BoardViewport) {
+            BoardViewport viewport = (BoardViewport) source;
+            SparseBoard board = viewport.getBoard();
+            int cellId = viewport.getSelectedCell();
+            if (board.getShipsLeft() > 0 && !board.isShot(cellId)) {
+                if (board.shoot(cellId) == SparseBoard.SUNK) {
+                    for (int shipCell : board.getShipCells(board.getShipAt(cellId))) {
+                        viewport.cellChanged(shipCell);
+                    }
+                } else {
+                    viewport.cellChanged(cellId);
+                }
+                EngineStats.get().shotResolved();
+            }
         } else if (source == menuBar.getSolutionItem()) {
             model.showSolution();
-            canPlay = false;
+            setPlaying(false);
         } else if (source == menuBar.getHitColorItem()) {
             Color color = JColorChooser.showDialog(null, "Pick a color", Color.BLACK);
             model.setNewHitColor(color);
@@ -156,8 +741,56 @@ public class Controller implements ActionListener {
      */
     public void gameStop(String sound) {
         playTheme(sound);
+        if (clock != null) {
+            clock.stop();
+            logTurnTimes("Player", clock.getTurnDurations(MatchClock.PLAYER));
+            logTurnTimes("Computer", clock.getTurnDurations(MatchClock.COMPUTER));
+        }
         middleMenu.stopTimer();
-        canPlay = false;
+        turnWorker = null;
+        if (canPlay && designedFleet && FleetConfig.forDimension(model.getDimension()).isLinesOnly()) {
+            PlacementHabits.load().record(playerLayout());
+        }
+        setPlaying(false);
+    }
+
+    /**
+     * Logs the number of turns and the mean and longest turn time of a side.
+     * 
+     * @param side      the name of the side
+     * @param durations the turn durations in nanoseconds
+     */
+    private void logTurnTimes(String side, long[] durations) {
+        if (!Log.isEnabled(Log.Level.INFO)) {
+            return;
+        }
+        long total = 0;
+        long longest = 0;
+        for (long duration : durations) {
+            total += duration;
+            longest = Math.max(longest, duration);
+        }
+        long mean = durations.length == 0 ? 0 : total / durations.length;
+        Log.info("{} turns: {}", side, durations.length);
+        Log.info("{} mean turn time: {} ms", side, mean / 1_000_000L);
+        Log.info("{} longest turn: {} ms", side, longest / 1_000_000L);
+    }
+
+    /**
+     * Marks a game as started or finished and keeps the count of games in
+     * progress up to date.
+     * 
+     * @param playing true when a game starts, false when it ends
+     */
+    private void setPlaying(boolean playing) {
+        if (playing != canPlay) {
+            if (playing) {
+                EngineStats.get().gameStarted();
+            } else {
+                EngineStats.get().gameEnded();
+            }
+        }
+        canPlay = playing;
     }
 
     /**
@@ -166,16 +799,22 @@ public class Controller implements ActionListener {
      * @param sound the sound file to play
      */
     public void playTheme(String sound) {
+        GameEvents.AudioLoad event = new GameEvents.AudioLoad();
+        event.begin();
+        event.file = "../resource/game" + sound + ".wav";
         try {
-            System.out.println("../resource/game" + sound + ".wav");
-            File audioFile = new File("../resource/game" + sound + ".wav");
+            Log.debug("Playing {}", event.file);
+            File audioFile = new File(event.file);
             AudioInputStream audioStream = AudioSystem.getAudioInputStream(audioFile);
             clip = AudioSystem.getClip();
             clip.open(audioStream);
+            event.success = true;
             clip.start();
             // clip.loop(Clip.LOOP_CONTINUOUSLY);
         } catch (Exception e) {
-            System.out.println("Error playing audio!");
+            Log.error("Error playing audio {}", event.file);
+        } finally {
+            event.commit();
         }
     }
 
@@ -0,0 +1,202 @@
+package diagnostics;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The EdtWatchdog class detects Event Dispatch Thread tasks that run longer
+ * than a threshold. It replaces the system event queue so every dispatched
+ * event is timed, and a daemon monitor thread captures the EDT stack while a
+ * dispatch is still running past the threshold.
+ *
+ * Stalls are aggregated by stack signature, so repeated stalls in the same
+ * handler (e.g. a branch of Controller.actionPerformed) collapse into one
+ * report entry with a count and the worst observed duration.
+ *
+ * Dispatches nest while a modal dialog is shown: the dialog pumps events
+ * from inside the dispatch that opened it. Each dispatch keeps the start and
+ * sequence of the one it interrupts and restores them when it ends, with the
+ * start moved to that moment, so the time spent in the dialog is not counted
+ * against the outer task.
+ *
+ * The watchdog is opt-in: it is only installed when the
+ * {@code battleship.watchdog.ms} system property is set.
+ */
+public class EdtWatchdog extends EventQueue {
+
+    /** System property holding the stall threshold in milliseconds. */
+    public static final String THRESHOLD_PROPERTY = "battleship.watchdog.ms";
+
+    private static final int SIGNATURE_DEPTH = 12;
+
+    private final long thresholdNanos;
+    private final Map<String, Stall> stalls = new ConcurrentHashMap<>();
+    private volatile Thread dispatchThread;
+    private volatile long dispatchStart;
+    private volatile long dispatchSequence;
+    private long lastSequence;
+    private volatile long capturedSequence = -1;
+    private volatile Stall capturedStall;
+
+    /**
+     * Constructs a watchdog with the specified threshold.
+     *
+     * @param thresholdMillis the dispatch time, in milliseconds, above which a
+     *                        task counts as a stall
+     */
+    public EdtWatchdog(long thresholdMillis) {
+        thresholdNanos = thresholdMillis * 1_000_000L;
+    }
+
+    /**
+     * Installs a watchdog when the threshold property is set.
+     *
+     * @return the installed watchdog, or null when the watchdog is disabled
+     */
+    public static EdtWatchdog installIfEnabled() {
+        String threshold = System.getProperty(THRESHOLD_PROPERTY);
+        if (threshold == null) {
+            return null;
+        }
+        EdtWatchdog watchdog = new EdtWatchdog(Long.parseLong(threshold.trim()));
+        watchdog.install();
+        return watchdog;
+    }
+
+    /**
+     * Pushes this queue onto the system event queue, starts the monitor thread
+     * and prints the stall report when the JVM exits.
+     */
+    public void install() {
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(this);
+
+        Thread monitor = new Thread(this::monitor, "edt-watchdog");
+        monitor.setDaemon(true);
+        monitor.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(report()), "edt-watchdog-report"));
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        dispatchThread = Thread.currentThread();
+        long outerStart = dispatchStart;
+        long outerSequence = dispatchSequence;
+        long sequence = ++lastSequence;
+        dispatchSequence = sequence;
+        dispatchStart = System.nanoTime();
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long end = System.nanoTime();
+            // Nested dispatches moved the start to when this one resumed.
+            long running = end - dispatchStart;
+            dispatchSequence = outerSequence;
+            dispatchStart = outerStart == 0 ? 0 : end;
+            if (capturedSequence == sequence) {
+                capturedStall.recordDuration(running);
+            }
+        }
+    }
+
+    /**
+     * Polls the running dispatch and captures the EDT stack once per stalled
+     * task.
+     */
+    private void monitor() {
+        long interval = Math.max(1, thresholdNanos / 4_000_000L);
+        while (true) {
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long start = dispatchStart;
+            long sequence = dispatchSequence;
+            Thread thread = dispatchThread;
+            if (start == 0 || thread == null || sequence == capturedSequence
+                    || System.nanoTime() - start < thresholdNanos) {
+                continue;
+            }
+
+            StackTraceElement[] stack = thread.getStackTrace();
+            // The dispatch may have finished while the stack was being taken.
+            if (dispatchStart != start) {
+                continue;
+            }
+            String signature = signature(stack);
+            Stall stall = stalls.computeIfAbsent(signature, Stall::new);
+            stall.count.incrementAndGet();
+            capturedStall = stall;
+            capturedSequence = sequence;
+        }
+    }
+
+    /**
+     * Builds the signature of a stack: its top frames, stopping at the event
+     * queue so different event types that end up in the same handler match.
+     */
+    private static String signature(StackTraceElement[] stack) {
+        StringBuilder builder = new StringBuilder();
+        int depth = 0;
+        for (StackTraceElement frame : stack) {
+            if (depth == SIGNATURE_DEPTH || frame.getClassName().startsWith("java.awt.EventQueue")) {
+                break;
+            }
+            builder.append("    at ").append(frame).append('\n');
+            depth++;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the stalls recorded so far, most frequent first.
+     *
+     * @return a printable stall report
+     */
+    public String report() {
+        List<Stall> sorted = new ArrayList<>(stalls.values());
+        sorted.sort((a, b) -> Long.compare(b.count.get(), a.count.get()));
+
+        StringBuilder builder = new StringBuilder();
+        builder.append("EDT stalls over ").append(thresholdNanos / 1_000_000L).append(" ms: ")
+                .append(sorted.size()).append(" signature(s)\n");
+        for (Stall stall : sorted) {
+            builder.append(stall.count.get()).append(" stall(s), worst ")
+                    .append(stall.worstNanos.get() / 1_000_000L).append(" ms\n")
+                    .append(stall.signature);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Clears every recorded stall.
+     */
+    public void reset() {
+        stalls.clear();
+    }
+
+    /**
+     * Aggregated stalls sharing one stack signature.
+     */
+    private static class Stall {
+        private final String signature;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong worstNanos = new AtomicLong();
+
+        Stall(String signature) {
+            this.signature = signature;
+        }
+
+        void recordDuration(long nanos) {
+            worstNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+}
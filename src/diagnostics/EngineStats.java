@@ -0,0 +1,302 @@
+package diagnostics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The EngineStats class collects live engine counters and exposes them over
+ * JMX. Counters are LongAdders and latencies go into a LatencyHistogram, so
+ * recording from the game, the AI or headless runs never contends on a lock.
+ *
+ * There is a single instance, shared by the whole JVM. Once registered, a
+ * daemon thread samples the shot rate every RATE_WINDOW_SECONDS, so reading
+ * it changes nothing.
+ */
+public class EngineStats implements EngineStatsMBean {
+
+    private static final EngineStats INSTANCE = new EngineStats();
+    private static final int RATE_WINDOW_SECONDS = 5;
+
+    private final LongAdder gamesInProgress = new LongAdder();
+    private final LongAdder shots = new LongAdder();
+    private final LongAdder placementRetries = new LongAdder();
+    private final LongAdder boardsAllocated = new LongAdder();
+    private final LongAdder transpositionHits = new LongAdder();
+    private final LongAdder transpositionMisses = new LongAdder();
+    private final LongAdder transpositionEvictions = new LongAdder();
+    private final LongAdder layoutPoolHits = new LongAdder();
+    private final LongAdder layoutPoolMisses = new LongAdder();
+    private volatile long layoutPoolBytes;
+    private final LatencyHistogram aiDecisions = new LatencyHistogram();
+    private final Map<String, StrategyStats> strategies = new ConcurrentHashMap<>();
+    private volatile int currentDimension;
+
+    private long lastRateShots;
+    private long lastRateNanos = System.nanoTime();
+    private volatile double shotsPerSecond;
+
+    private EngineStats() {
+    }
+
+    /**
+     * Returns the shared statistics instance.
+     *
+     * @return the engine statistics
+     */
+    public static EngineStats get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the shared instance with the platform MBean server.
+     */
+    public static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+                    new ObjectName("battleship:type=EngineStats"));
+        } catch (JMException e) {
+            Log.warn("Could not register engine statistics: {}", e.getMessage());
+            return;
+        }
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "engine-stats-rate");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(INSTANCE::sampleShotRate, RATE_WINDOW_SECONDS, RATE_WINDOW_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Computes the shot rate over the window since the previous sample.
+     */
+    private synchronized void sampleShotRate() {
+        long now = System.nanoTime();
+        long total = shots.sum();
+        shotsPerSecond = (total - lastRateShots) * 1e9 / Math.max(1, now - lastRateNanos);
+        lastRateShots = total;
+        lastRateNanos = now;
+    }
+
+    /**
+     * Records the start of a game.
+     */
+    public void gameStarted() {
+        gamesInProgress.increment();
+    }
+
+    /**
+     * Records the end of a game, won, lost or abandoned.
+     */
+    public void gameEnded() {
+        gamesInProgress.decrement();
+    }
+
+    /**
+     * Records one resolved shot.
+     */
+    public void shotResolved() {
+        shots.increment();
+    }
+
+    /**
+     * Records the time the computer took to choose a target.
+     *
+     * @param nanos the decision time in nanoseconds
+     */
+    public void aiDecision(long nanos) {
+        aiDecisions.record(nanos);
+    }
+
+    /**
+     * Records one decision of a named opponent strategy.
+     *
+     * @param strategy the strategy name
+     * @param nanos    the decision time in nanoseconds
+     * @param bytes    the bytes allocated during the decision, or -1 if unknown
+     */
+    public void strategyDecision(String strategy, long nanos, long bytes) {
+        StrategyStats stats = strategies.computeIfAbsent(strategy, name -> new StrategyStats());
+        stats.latency.record(nanos);
+        if (bytes >= 0) {
+            stats.allocatedBytes.add(bytes);
+        }
+    }
+
+    /**
+     * Records a lookup in a transposition cache.
+     *
+     * @param hit true if the position was cached
+     */
+    public void transpositionLookup(boolean hit) {
+        (hit ? transpositionHits : transpositionMisses).increment();
+    }
+
+    /**
+     * Records an entry evicted from a transposition cache.
+     */
+    public void transpositionEviction() {
+        transpositionEvictions.increment();
+    }
+
+    /**
+     * Records rejected candidate positions of a random placement.
+     *
+     * @param retries the number of rejected positions
+     */
+    public void placementRetries(int retries) {
+        placementRetries.add(retries);
+    }
+
+    /**
+     * Records a layout taken from the layout pool.
+     *
+     * @param hit true if a layout was ready, false if the ships had to be
+     *            placed some other way
+     */
+    public void layoutPoolTake(boolean hit) {
+        (hit ? layoutPoolHits : layoutPoolMisses).increment();
+    }
+
+    /**
+     * Records the memory held by the layout pool.
+     *
+     * @param bytes the approximate footprint of the pooled layouts
+     */
+    public void layoutPoolBytes(long bytes) {
+        layoutPoolBytes = bytes;
+    }
+
+    /**
+     * Records the construction of a board.
+     *
+     * @param dimension the dimension of the board
+     */
+    public void boardAllocated(int dimension) {
+        boardsAllocated.increment();
+        currentDimension = dimension;
+    }
+
+    @Override
+    public long getGamesInProgress() {
+        return gamesInProgress.sum();
+    }
+
+    @Override
+    public double getShotsPerSecond() {
+        return shotsPerSecond;
+    }
+
+    @Override
+    public long getShotCount() {
+        return shots.sum();
+    }
+
+    @Override
+    public double getMeanAiDecisionMicros() {
+        return aiDecisions.getMeanNanos() / 1000.0;
+    }
+
+    @Override
+    public double getP99AiDecisionMicros() {
+        return aiDecisions.getPercentileNanos(99) / 1000.0;
+    }
+
+    @Override
+    public long getPlacementRetries() {
+        return placementRetries.sum();
+    }
+
+    @Override
+    public long getBoardsAllocated() {
+        return boardsAllocated.sum();
+    }
+
+    @Override
+    public double getTranspositionHitRate() {
+        long hits = transpositionHits.sum();
+        long lookups = hits + transpositionMisses.sum();
+        return lookups == 0 ? 0 : hits / (double) lookups;
+    }
+
+    @Override
+    public long getTranspositionLookups() {
+        return transpositionHits.sum() + transpositionMisses.sum();
+    }
+
+    @Override
+    public long getTranspositionEvictions() {
+        return transpositionEvictions.sum();
+    }
+
+    @Override
+    public double getLayoutPoolHitRate() {
+        long hits = layoutPoolHits.sum();
+        long takes = hits + layoutPoolMisses.sum();
+        return takes == 0 ? 0 : hits / (double) takes;
+    }
+
+    @Override
+    public long getLayoutPoolBytes() {
+        return layoutPoolBytes;
+    }
+
+    @Override
+    public int getCurrentDimension() {
+        return currentDimension;
+    }
+
+    @Override
+    public synchronized void resetCounters() {
+        shots.reset();
+        placementRetries.reset();
+        boardsAllocated.reset();
+        transpositionHits.reset();
+        transpositionMisses.reset();
+        transpositionEvictions.reset();
+        layoutPoolHits.reset();
+        layoutPoolMisses.reset();
+        aiDecisions.reset();
+        strategies.clear();
+        lastRateShots = 0;
+        lastRateNanos = System.nanoTime();
+        shotsPerSecond = 0;
+    }
+
+    @Override
+    public String dumpHistograms() {
+        return "AI decision time (" + aiDecisions.getCount() + " samples)\n" + aiDecisions;
+    }
+
+    @Override
+    public String dumpStrategyStats() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, StrategyStats> entry : new TreeMap<>(strategies).entrySet()) {
+            LatencyHistogram latency = entry.getValue().latency;
+            long count = latency.getCount();
+            builder.append(entry.getKey()).append(": ").append(count).append(" decisions, mean ")
+                    .append(latency.getMeanNanos() / 1000).append(" us, p99 ")
+                    .append(latency.getPercentileNanos(99) / 1000).append(" us, ")
+                    .append(count == 0 ? 0 : entry.getValue().allocatedBytes.sum() / count)
+                    .append(" bytes allocated per decision\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Decision statistics of one opponent strategy.
+     */
+    private static final class StrategyStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder allocatedBytes = new LongAdder();
+    }
+}
@@ -0,0 +1,91 @@
+package diagnostics;
+
+/**
+ * Management interface of {@link EngineStats}, registered as
+ * {@code battleship:type=EngineStats}.
+ */
+public interface EngineStatsMBean {
+
+    /**
+     * @return the number of games currently being played
+     */
+    long getGamesInProgress();
+
+    /**
+     * @return the shots resolved per second over the last completed window
+     *         of a few seconds
+     */
+    double getShotsPerSecond();
+
+    /**
+     * @return the total number of shots resolved
+     */
+    long getShotCount();
+
+    /**
+     * @return the mean computer decision time in microseconds
+     */
+    double getMeanAiDecisionMicros();
+
+    /**
+     * @return the 99th percentile computer decision time in microseconds
+     */
+    double getP99AiDecisionMicros();
+
+    /**
+     * @return the number of rejected candidate positions during random placement
+     */
+    long getPlacementRetries();
+
+    /**
+     * @return the number of boards constructed
+     */
+    long getBoardsAllocated();
+
+    /**
+     * @return the fraction of transposition cache lookups that found the
+     *         position
+     */
+    double getTranspositionHitRate();
+
+    /**
+     * @return the number of transposition cache lookups
+     */
+    long getTranspositionLookups();
+
+    /**
+     * @return the number of entries evicted from transposition caches
+     */
+    long getTranspositionEvictions();
+
+    /**
+     * @return the fraction of random placements that found a layout ready in
+     *         the layout pool
+     */
+    double getLayoutPoolHitRate();
+
+    /**
+     * @return the approximate memory held by pooled layouts, in bytes
+     */
+    long getLayoutPoolBytes();
+
+    /**
+     * @return the dimension of the current boards
+     */
+    int getCurrentDimension();
+
+    /**
+     * Resets every counter and histogram.
+     */
+    void resetCounters();
+
+    /**
+     * @return the recorded histograms in printable form
+     */
+    String dumpHistograms();
+
+    /**
+     * @return the decision time and allocation of every opponent strategy used
+     */
+    String dumpStrategyStats();
+}
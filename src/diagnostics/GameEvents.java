@@ -0,0 +1,133 @@
+package diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The GameEvents class groups the Java Flight Recorder events emitted by the
+ * game. Events are only recorded while a recording is running, so creating and
+ * committing them costs close to nothing when JFR is off.
+ *
+ * Events that measure work (placement runs, AI decisions, board rebuilds and
+ * audio loads) use the JFR event duration: call {@code begin()} before the work
+ * and {@code commit()} after it.
+ */
+public final class GameEvents {
+
+    private GameEvents() {
+    }
+
+    /**
+     * A shot resolved against a board.
+     */
+    @Name("battleship.Shot")
+    @Label("Shot")
+    @Category({ "Battleship", "Engine" })
+    public static class Shot extends Event {
+        @Label("Board")
+        public String board;
+
+        @Label("Cell")
+        public String cell;
+
+        @Label("Result")
+        @Description("Hit, Missed or Sunk")
+        public String result;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        public long latency;
+    }
+
+    /**
+     * A ship whose last cell has been hit.
+     */
+    @Name("battleship.ShipSunk")
+    @Label("Ship Sunk")
+    @Category({ "Battleship", "Engine" })
+    public static class ShipSunk extends Event {
+        @Label("Board")
+        public String board;
+
+        @Label("Length")
+        public int length;
+
+        @Label("Ships Left")
+        public int shipsLeft;
+    }
+
+    /**
+     * A random placement of a whole fleet on a board.
+     */
+    @Name("battleship.Placement")
+    @Label("Placement")
+    @Category({ "Battleship", "Engine" })
+    public static class Placement extends Event {
+        @Label("Board")
+        public String board;
+
+        @Label("Ships")
+        public int ships;
+
+        @Label("Attempts")
+        @Description("Candidate positions tried, including rejected ones")
+        public int attempts;
+    }
+
+    /**
+     * A target, or the targets of a salvo, chosen by the computer opponent.
+     */
+    @Name("battleship.AiDecision")
+    @Label("AI Decision")
+    @Category({ "Battleship", "AI" })
+    public static class AiDecision extends Event {
+        @Label("Strategy")
+        public String strategy;
+
+        @Label("Candidates")
+        @Description("Cells evaluated before the target was chosen, summed over a salvo")
+        public int candidates;
+
+        @Label("Shots")
+        @Description("Targets chosen, 1 outside salvo mode")
+        public int shots;
+
+        @Label("Cell")
+        @Description("The target, or the targets of a salvo separated by commas")
+        public String cell;
+    }
+
+    /**
+     * A board constructed and all of its cells added, from the constructor to
+     * the last row built. Not committed for a board discarded before it was
+     * complete.
+     */
+    @Name("battleship.BoardRebuild")
+    @Label("Board Rebuild")
+    @Category({ "Battleship", "View" })
+    public static class BoardRebuild extends Event {
+        @Label("Board")
+        public String board;
+
+        @Label("Dimension")
+        public int dimension;
+    }
+
+    /**
+     * An audio file decoded and opened for playback.
+     */
+    @Name("battleship.AudioLoad")
+    @Label("Audio Load")
+    @Category({ "Battleship", "View" })
+    public static class AudioLoad extends Event {
+        @Label("File")
+        public String file;
+
+        @Label("Success")
+        public boolean success;
+    }
+}
@@ -0,0 +1,112 @@
+package diagnostics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The LatencyHistogram class records durations in power-of-two nanosecond
+ * buckets. Every bucket is a LongAdder, so many threads can record at once
+ * without contending on a single counter.
+ *
+ * Percentiles are reported as the upper bound of the bucket that contains
+ * them, which is accurate to within a factor of two.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(1, nanos);
+        buckets[63 - Long.numberOfLeadingZeros(value)].increment();
+        count.increment();
+        totalNanos.add(value);
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return the sample count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the mean recorded duration.
+     *
+     * @return the mean in nanoseconds, or 0 when nothing was recorded
+     */
+    public long getMeanNanos() {
+        long samples = count.sum();
+        return samples == 0 ? 0 : totalNanos.sum() / samples;
+    }
+
+    /**
+     * Returns the given percentile of the recorded durations.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the upper bound of the bucket holding the percentile, in
+     *         nanoseconds
+     */
+    public long getPercentileNanos(double percentile) {
+        long samples = count.sum();
+        if (samples == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(samples * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i].sum();
+            if (seen >= rank) {
+                return i == 63 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Clears every bucket.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        totalNanos.reset();
+    }
+
+    /**
+     * Returns the non-empty buckets, one per line.
+     *
+     * @return a printable view of the histogram
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < BUCKETS; i++) {
+            long bucketCount = buckets[i].sum();
+            if (bucketCount > 0) {
+                builder.append(String.format("  < %,d ns: %d%n", i == 63 ? Long.MAX_VALUE : 1L << (i + 1),
+                        bucketCount));
+            }
+        }
+        return builder.toString();
+    }
+}
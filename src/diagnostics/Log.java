@@ -0,0 +1,247 @@
+package diagnostics;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The Log class is a small asynchronous logger. Callers only copy a message
+ * template and its arguments into a preallocated ring buffer; a daemon thread
+ * formats the entries and writes them to standard output. Logging from the
+ * Event Dispatch Thread therefore never waits on the console.
+ *
+ * Messages use {@code {}} placeholders that are filled in on the writer
+ * thread, so a call below the configured level returns after a single
+ * comparison and builds no strings. When the buffer is full new entries are
+ * dropped and counted rather than blocking the caller.
+ *
+ * A Throwable passed as the last argument, after those the placeholders
+ * use, is written with its stack trace, e.g.
+ * {@code Log.error("Could not read {}", file, e)}.
+ *
+ * The level is read from the {@code battleship.log.level} system property and
+ * defaults to INFO, also when the property is not a level. Entries still
+ * queued when the JVM exits are written by a shutdown hook, which waits for
+ * the writer thread up to SHUTDOWN_MILLIS.
+ */
+public final class Log {
+
+    /**
+     * Severity of a log entry, lowest first.
+     */
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    private static final int CAPACITY = 1024;
+    private static final int MASK = CAPACITY - 1;
+    private static final long SHUTDOWN_MILLIS = 1000;
+
+    private static final Level[] levels = new Level[CAPACITY];
+    private static final String[] templates = new String[CAPACITY];
+    private static final Object[] firstArgs = new Object[CAPACITY];
+    private static final Object[] secondArgs = new Object[CAPACITY];
+    private static final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong claimed = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static volatile long consumed;
+    private static volatile int threshold;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            published.set(i, i - CAPACITY);
+        }
+        String property = System.getProperty("battleship.log.level", "INFO");
+        Level level;
+        try {
+            level = Level.valueOf(property.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            level = Level.INFO;
+        }
+        setLevel(level);
+
+        Thread writer = new Thread(Log::drain, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "log-flush"));
+
+        if (!level.name().equals(property.trim().toUpperCase())) {
+            warn("Unknown log level {}, using {}", property, level);
+        }
+    }
+
+    private Log() {
+    }
+
+    /**
+     * Sets the lowest level that is written.
+     *
+     * @param level the new level
+     */
+    public static void setLevel(Level level) {
+        threshold = level.ordinal();
+    }
+
+    /**
+     * Checks whether entries of the given level are written.
+     *
+     * @param level the level to check
+     * @return true if the level is enabled
+     */
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+
+    /**
+     * Returns the number of entries dropped because the buffer was full.
+     *
+     * @return the dropped entry count
+     */
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public static void debug(String template) {
+        log(Level.DEBUG, template, null, null);
+    }
+
+    public static void debug(String template, Object arg) {
+        log(Level.DEBUG, template, arg, null);
+    }
+
+    public static void debug(String template, Object first, Object second) {
+        log(Level.DEBUG, template, first, second);
+    }
+
+    public static void info(String template) {
+        log(Level.INFO, template, null, null);
+    }
+
+    public static void info(String template, Object arg) {
+        log(Level.INFO, template, arg, null);
+    }
+
+    public static void info(String template, Object first, Object second) {
+        log(Level.INFO, template, first, second);
+    }
+
+    public static void warn(String template) {
+        log(Level.WARN, template, null, null);
+    }
+
+    public static void warn(String template, Object arg) {
+        log(Level.WARN, template, arg, null);
+    }
+
+    public static void warn(String template, Object first, Object second) {
+        log(Level.WARN, template, first, second);
+    }
+
+    public static void error(String template) {
+        log(Level.ERROR, template, null, null);
+    }
+
+    public static void error(String template, Object arg) {
+        log(Level.ERROR, template, arg, null);
+    }
+
+    public static void error(String template, Object first, Object second) {
+        log(Level.ERROR, template, first, second);
+    }
+
+    /**
+     * Queues an entry for the writer thread.
+     *
+     * @param level    the level of the entry
+     * @param template the message, with {} placeholders for the arguments
+     * @param first    the first argument, or null
+     * @param second   the second argument, or null
+     */
+    public static void log(Level level, String template, Object first, Object second) {
+        if (level.ordinal() < threshold) {
+            return;
+        }
+
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= CAPACITY) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) (sequence & MASK);
+        levels[slot] = level;
+        templates[slot] = template;
+        firstArgs[slot] = first;
+        secondArgs[slot] = second;
+        published.set(slot, sequence);
+    }
+
+    /**
+     * Writes queued entries in order, sleeping briefly while the buffer is
+     * empty.
+     */
+    private static void drain() {
+        PrintStream out = System.out;
+        StringBuilder line = new StringBuilder();
+        long next = 0;
+        while (true) {
+            int slot = (int) (next & MASK);
+            if (published.get(slot) != next) {
+                out.flush();
+                LockSupport.parkNanos(1_000_000L);
+                continue;
+            }
+
+            line.setLength(0);
+            line.append('[').append(levels[slot]).append("] ");
+            Throwable thrown = format(line, templates[slot], firstArgs[slot], secondArgs[slot]);
+            templates[slot] = null;
+            firstArgs[slot] = null;
+            secondArgs[slot] = null;
+
+            out.println(line);
+            if (thrown != null) {
+                thrown.printStackTrace(out);
+            }
+            consumed = ++next;
+        }
+    }
+
+    /**
+     * Waits for the writer thread to write the entries queued so far, or for
+     * SHUTDOWN_MILLIS at most, then flushes the output.
+     */
+    private static void flush() {
+        long target = claimed.get();
+        long deadline = System.nanoTime() + SHUTDOWN_MILLIS * 1_000_000L;
+        while (consumed < target && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(1_000_000L);
+        }
+        System.out.flush();
+    }
+
+    /**
+     * Appends the template to the builder, replacing the first two {}
+     * placeholders with the arguments.
+     *
+     * @return the last argument if it is a Throwable that no placeholder
+     *         used, to be written after the line, or null
+     */
+    private static Throwable format(StringBuilder line, String template, Object first, Object second) {
+        int start = 0;
+        int argument = 0;
+        int placeholder;
+        while (argument < 2 && (placeholder = template.indexOf("{}", start)) >= 0) {
+            line.append(template, start, placeholder).append(argument == 0 ? first : second);
+            start = placeholder + 2;
+            argument++;
+        }
+        line.append(template, start, template.length());
+        Object last = argument == 0 && second == null ? first : argument == 1 ? second : null;
+        return last instanceof Throwable ? (Throwable) last : null;
+    }
+}
@@ -1,11 +1,14 @@
 package miscellaneous;
 
 import java.awt.Color;
+import java.io.File;
 
 public class Misc {
         public static final char[] ALPHABET = { '|', 'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M',
                         'N',
                         'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z' };
+        public static final int MEGA_MAX_SIZE = 1000;
+        public static final int MEGA_BOARD_SIZE = 500;
         public static final Color UNSELECTED_COLOR = new Color(37, 38, 67);
         public static final Color[] PLAYER_COLOR = { UNSELECTED_COLOR, new Color(27, 57, 64), new Color(51, 51, 51) };
         public static final Color[] COMPUTER_COLOR = { UNSELECTED_COLOR, new Color(69, 30, 62), new Color(51, 51, 51) };
@@ -21,4 +24,50 @@ public class Misc {
         public static final String[] LANGUAGE = { "English", "French", "Portuguese" };
         public static final String[] DIMENSION = { "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12" };
 
-}
\ No newline at end of file
+        /**
+         * Returns the label of a column: "A" to "Z", then "AA", "AB" and so on,
+         * as in a spreadsheet. Column 0 is the header column.
+         *
+         * @param col the column index, starting at 1
+         * @return the column label
+         */
+        public static String columnName(int col) {
+                if (col <= 0) {
+                        return Character.toString(ALPHABET[0]);
+                }
+                if (col < ALPHABET.length) {
+                        return Character.toString(ALPHABET[col]);
+                }
+                char[] letters = new char[8];
+                int start = letters.length;
+                for (int value = col; value > 0; value = (value - 1) / 26) {
+                        letters[--start] = (char) ('A' + (value - 1) % 26);
+                }
+                return new String(letters, start, letters.length - start);
+        }
+
+        /**
+         * Returns the directory for files the game keeps between runs: the
+         * battleship.configDir property if set, otherwise %APPDATA%\Battleship on
+         * Windows and $XDG_CONFIG_HOME/battleship or ~/.config/battleship
+         * elsewhere. The directory is not created.
+         *
+         * @return the configuration directory
+         */
+        public static File configDirectory() {
+                String configured = System.getProperty("battleship.configDir");
+                if (configured != null) {
+                        return new File(configured);
+                }
+                String appData = System.getenv("APPDATA");
+                if (appData != null && System.getProperty("os.name", "").startsWith("Windows")) {
+                        return new File(appData, "Battleship");
+                }
+                String xdg = System.getenv("XDG_CONFIG_HOME");
+                if (xdg != null && !xdg.isEmpty()) {
+                        return new File(xdg, "battleship");
+                }
+                return new File(System.getProperty("user.home"), ".config" + File.separator + "battleship");
+        }
+
+}
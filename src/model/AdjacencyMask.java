@@ -0,0 +1,82 @@
+package model;
+
+/**
+ * The AdjacencyMask class is a bitboard of the cells that touch a set of
+ * cells, diagonally included: the set dilated by one cell in every
+ * direction. It is built incrementally, one cell or ship at a time, and
+ * serves the no-touch rule: a ship may not cover a cell of the dilated mask
+ * of the ships already placed, and the dilated cells of a sunk ship are known
+ * to be water.
+ *
+ * Bit r * width + c stands for the cell in row r and column c, as in
+ * ShapeMasks, so placement masks can be tested against getBits directly.
+ */
+public final class AdjacencyMask {
+
+    private final int width;
+    private final int height;
+    private final long[] bits;
+
+    /**
+     * Constructs an empty mask for a grid.
+     *
+     * @param width  the number of columns
+     * @param height the number of rows
+     */
+    public AdjacencyMask(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.bits = new long[(width * height + 63) >>> 6];
+    }
+
+    /**
+     * Adds a cell and its eight neighbours that lie on the grid.
+     *
+     * @param cell the cell, row * width + column
+     */
+    public void add(int cell) {
+        int row = cell / width;
+        int col = cell % width;
+        for (int r = Math.max(0, row - 1); r <= Math.min(height - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(width - 1, col + 1); c++) {
+                int bit = r * width + c;
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+    }
+
+    /**
+     * Adds the cells of a ship placement and their neighbours.
+     *
+     * @param shape       the ship's shape
+     * @param orientation the orientation
+     * @param row         the top row of the bounding box
+     * @param col         the left column of the bounding box
+     */
+    public void addShip(ShipShape shape, int orientation, int row, int col) {
+        int[] rows = shape.getRowOffsets(orientation);
+        int[] cols = shape.getColumnOffsets(orientation);
+        for (int i = 0; i < rows.length; i++) {
+            add((row + rows[i]) * width + col + cols[i]);
+        }
+    }
+
+    /**
+     * Checks whether a cell is in the mask.
+     *
+     * @param cell the cell, row * width + column
+     * @return true if the cell is or touches an added cell
+     */
+    public boolean contains(int cell) {
+        return ShapeMasks.isSet(bits, cell);
+    }
+
+    /**
+     * Returns the bitboard of the mask, to test placement masks against.
+     *
+     * @return the live bitboard; not to be modified
+     */
+    public long[] getBits() {
+        return bits;
+    }
+}
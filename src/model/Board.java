@@ -6,7 +6,10 @@ import java.awt.event.KeyListener;
 import java.awt.event.MouseAdapter;
 import javax.swing.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import controller.*;
+import diagnostics.EngineStats;
+import diagnostics.GameEvents;
 import miscellaneous.Misc;
 
 /**
@@ -21,12 +24,22 @@ import miscellaneous.Misc;
  * @author [Author]
  */
 public abstract class Board extends JPanel {
+    private static final Map<Integer, String[]> NAME_TABLES = new ConcurrentHashMap<>();
+
+    /** The number of rows buildIncrementally adds per event. */
+    private static final int ROWS_PER_STEP = 4;
+
     protected boolean designMode = false;
 
     protected JPanel innerBoard;
-    protected Map<String, Coordinate> coordinatesMap;
     protected Coordinate[][] coordinatesArray;
+    protected Coordinate[] cells;
+    protected String[] cellNames;
+    protected int numCell;
     protected Ship[] ships;
+    protected long[] occupiedMask;
+    protected AdjacencyMask forbiddenMask;
+    protected boolean noTouch;
     protected JProgressBar progressBar;
     protected JLabel progressLabel;
     protected Coordinate button;
@@ -36,6 +49,9 @@ public abstract class Board extends JPanel {
     protected Color[] colorSet;
     protected int maxHealth;
     protected MouseAdapter mouseAdapter;
+    private int builtRows;
+    private int unshotCount;
+    private GameEvents.BoardRebuild rebuildEvent = new GameEvents.BoardRebuild();
 
     /**
      * Constructs a new Board instance with the specified dimension, colors, name,
@@ -47,14 +63,35 @@ public abstract class Board extends JPanel {
      * @param masterMind the controller for the board
      */
     public Board(int dimensionGiven, Color[] colors, String name, Controller masterMind) {
+        this(dimensionGiven, colors, name, masterMind, null);
+    }
+
+    /**
+     * Constructs a new Board instance with the specified dimension, colors, name,
+     * and controller.
+     * 
+     * @param dimension  the dimension of the board
+     * @param colors     an array of colors for the board
+     * @param name       the name of the board
+     * @param masterMind the controller for the board
+     * @param designMode the controller for the board
+     */
+    public Board(int dimensionGiven, Color[] colors, String name, Controller masterMind, MouseAdapter mouseAdapter ){
+        rebuildEvent.begin();
         this.colorSet = colors;
+        this.mouseAdapter = mouseAdapter;
         dimension = dimensionGiven;
-        int numCell = (dimension * 2) + 1;
+        numCell = (dimension * 2) + 1;
         controller = masterMind;
+        setName(name);
 
-        ships = new Ship[(dimension + 1) * dimension / 2];
-        coordinatesMap = new HashMap<>();
+        ships = new Ship[FleetConfig.forDimension(dimension).getShipCount()];
+        occupiedMask = new long[(numCell * numCell + 63) >>> 6];
+        forbiddenMask = new AdjacencyMask(numCell, numCell);
         coordinatesArray = new Coordinate[numCell][numCell];
+        cells = new Coordinate[numCell * numCell];
+        cellNames = getNameTable(numCell);
+        unshotCount = (numCell - 1) * (numCell - 1);
 
         setPreferredSize(new Dimension(Misc.WIDTH, Misc.HEIGHT));
         setBackground(Misc.COMPUTER_COLOR[2]);
@@ -63,19 +100,7 @@ public abstract class Board extends JPanel {
         innerBoard = new JPanel(new GridLayout(numCell + 1, numCell + 1));
         innerBoard.setBackground(Misc.COMPUTER_COLOR[2]);
 
-        // Add coordinate labels and buttons to the inner board panel
-        int buttonSize = Misc.WIDTH / numCell;
-        for (int row = 0; row < numCell; row++) {
-            for (int col = 0; col < numCell; col++) {
-                if (row == 0) {
-                    addAlphabetLabel(col, buttonSize, Misc.COMPUTER_COLOR[0]);
-                } else if (col == 0) {
-                    addNumericLabel(row, buttonSize, Misc.COMPUTER_COLOR[1]);
-                } else {
-                    addCoordinate(row, col, buttonSize);
-                }
-            }
-        }
+        // Coordinate labels and buttons are added later, see buildRows
 
         setLayout(new FlowLayout(FlowLayout.CENTER, 0, 0));
 
@@ -101,39 +126,30 @@ public abstract class Board extends JPanel {
         add(innerBoard);
         add(playerLabel);
         add(progressBar);
+
+        EngineStats.get().boardAllocated(dimension);
     }
 
     /**
-     * Constructs a new Board instance with the specified dimension, colors, name,
-     * and controller.
-     * 
-     * @param dimension  the dimension of the board
-     * @param colors     an array of colors for the board
-     * @param name       the name of the board
-     * @param masterMind the controller for the board
-     * @param designMode the controller for the board
+     * Builds the state shared by every board of a dimension, so that
+     * constructing the boards does not have to. Safe to call off the EDT.
+     *
+     * @param dimension the dimension of the board
      */
-    public Board(int dimensionGiven, Color[] colors, String name, Controller masterMind, MouseAdapter mouseAdapter ){
-        this.colorSet = colors;
-        this.mouseAdapter = mouseAdapter;
-        dimension = dimensionGiven;
-        int numCell = (dimension * 2) + 1;
-        controller = masterMind;
-
-        ships = new Ship[(dimension + 1) * dimension / 2];
-        coordinatesMap = new HashMap<>();
-        coordinatesArray = new Coordinate[numCell][numCell];
-
-        setPreferredSize(new Dimension(Misc.WIDTH, Misc.HEIGHT));
-        setBackground(Misc.COMPUTER_COLOR[2]);
-
-        // Create the inner board panel
-        innerBoard = new JPanel(new GridLayout(numCell + 1, numCell + 1));
-        innerBoard.setBackground(Misc.COMPUTER_COLOR[2]);
+    public static void prepare(int dimension) {
+        getNameTable((dimension * 2) + 1);
+    }
 
-        // Add coordinate labels and buttons to the inner board panel
+    /**
+     * Adds the next rows of coordinate labels and buttons to the inner board
+     * panel.
+     *
+     * @param count the number of rows to add
+     */
+    private void buildRows(int count) {
         int buttonSize = Misc.WIDTH / numCell;
-        for (int row = 0; row < numCell; row++) {
+        int end = Math.min(numCell, builtRows + count);
+        for (int row = builtRows; row < end; row++) {
             for (int col = 0; col < numCell; col++) {
                 if (row == 0) {
                     addAlphabetLabel(col, buttonSize, Misc.COMPUTER_COLOR[0]);
@@ -144,31 +160,49 @@ public abstract class Board extends JPanel {
                 }
             }
         }
+        builtRows = end;
+        if (builtRows == numCell && rebuildEvent != null) {
+            rebuildEvent.end();
+            if (rebuildEvent.shouldCommit()) {
+                rebuildEvent.board = getName();
+                rebuildEvent.dimension = dimension;
+                rebuildEvent.commit();
+            }
+            rebuildEvent = null;
+        }
+    }
 
-        setLayout(new FlowLayout(FlowLayout.CENTER, 0, 0));
-
-        // Create and configure the progress bar
-        progressBar = new JProgressBar(0, 100);
-        progressBar.setStringPainted(true); // Enable percentage text
-        progressBar.setValue(0); // Set initial value
-        progressBar.setPreferredSize(new Dimension(Misc.WIDTH, 20));
-
-        // Create and configure the progress label
-        progressLabel = new JLabel("0%"); // Initial label text
-        progressLabel.setForeground(Color.white);
-        progressLabel.setPreferredSize(new Dimension(Misc.WIDTH, 20));
-        progressLabel.setHorizontalAlignment(SwingConstants.CENTER);
-
-        // Create and configure the player label
-        JLabel playerLabel = new JLabel(name, JLabel.CENTER);
-        playerLabel.setVerticalAlignment(JLabel.BOTTOM);
-        playerLabel.setFont(new Font("Verdana", Font.PLAIN, 30));
-        playerLabel.setForeground(Color.white);
+    /**
+     * Adds every row of the inner board panel not added yet. A board is
+     * constructed without its cells; they are added by buildIncrementally,
+     * or all at once the first time they are asked for.
+     */
+    protected void materialize() {
+        if (builtRows < numCell) {
+            buildRows(numCell);
+            innerBoard.revalidate();
+        }
+    }
 
-        // Add the components to the board panel
-        add(innerBoard);
-        add(playerLabel);
-        add(progressBar);
+    /**
+     * Adds the rows of the inner board panel ROWS_PER_STEP at a time, one
+     * step per event on the EDT, so that a new board shows at once and fills
+     * in without blocking the EDT. Stops if the board is taken out of the
+     * window before it is complete.
+     */
+    public void buildIncrementally() {
+        if (builtRows >= numCell || getParent() == null) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            if (getParent() == null || builtRows >= numCell) {
+                return;
+            }
+            buildRows(ROWS_PER_STEP);
+            innerBoard.revalidate();
+            innerBoard.repaint();
+            buildIncrementally();
+        });
     }
 
     /**
@@ -179,7 +213,7 @@ public abstract class Board extends JPanel {
      * @param color      the color of the label
      */
     public void addAlphabetLabel(int col, int buttonSize, Color color) {
-        JLabel label = new JLabel(Character.toString(Misc.ALPHABET[col]), SwingConstants.CENTER);
+        JLabel label = new JLabel(Misc.columnName(col), SwingConstants.CENTER);
         label.setBackground(color);
         label.setForeground(Color.WHITE);
         label.setOpaque(true);
@@ -212,6 +246,38 @@ public abstract class Board extends JPanel {
      */
     public abstract void addCoordinate(int row, int col, int buttonSize);
 
+    /**
+     * Registers a newly created coordinate button under its cell id.
+     *
+     * @param coordinate the coordinate to register
+     */
+    protected void registerCoordinate(Coordinate coordinate) {
+        int cellId = getCellId(coordinate.getRow(), coordinate.getColumn());
+        coordinate.setCell(cellId, cellNames[cellId]);
+        coordinatesArray[coordinate.getRow()][coordinate.getColumn()] = coordinate;
+        cells[cellId] = coordinate;
+    }
+
+    /**
+     * Returns the display names of every cell of a board with the given width,
+     * indexed by cell id. Tables are built once per width and shared by all
+     * boards; the names are interned.
+     *
+     * @param width the number of cells per row, headers included
+     * @return the name table
+     */
+    private static String[] getNameTable(int width) {
+        return NAME_TABLES.computeIfAbsent(width, w -> {
+            String[] names = new String[w * w];
+            for (int row = 1; row < w; row++) {
+                for (int col = 1; col < w; col++) {
+                    names[row * w + col] = (Misc.columnName(col) + row).intern();
+                }
+            }
+            return names;
+        });
+    }
+
     /**
      * Retrieves the ships on the board.
      *
@@ -222,23 +288,72 @@ public abstract class Board extends JPanel {
     }
 
     /**
-     * Retrieves the Coordinate object associated with the specified coordinate
-     * name.
+     * Retrieves the Coordinate object with the specified cell id.
+     *
+     * @param cellId the cell id, row * width + column
+     * @return the Coordinate object, or null for header cells
+     */
+    public Coordinate getCoordinate(int cellId) {
+        materialize();
+        return cells[cellId];
+    }
+
+    /**
+     * Retrieves the Coordinate object at the specified row and column.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the Coordinate object, or null if the position is off the board
+     *         or a header
+     */
+    public Coordinate getCoordinate(int row, int col) {
+        if (row < 1 || col < 1 || row >= numCell || col >= numCell) {
+            return null;
+        }
+        materialize();
+        return coordinatesArray[row][col];
+    }
+
+    /**
+     * Returns the cell id of the specified row and column. Cell ids are
+     * row * width + column, where the width includes the header column.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the cell id
+     */
+    public int getCellId(int row, int col) {
+        return row * numCell + col;
+    }
+
+    /**
+     * Returns the display name of a cell, e.g. "B7".
+     *
+     * @param cellId the cell id
+     * @return the interned cell name
+     */
+    public String getCellName(int cellId) {
+        return cellNames[cellId];
+    }
+
+    /**
+     * Retrieves every cell of the board, indexed by cell id. Header positions
+     * are null.
      *
-     * @param coordinateName the name of the coordinate
-     * @return the Coordinate object associated with the name
+     * @return the array of Coordinate objects
      */
-    public Coordinate getCoordinate(String coordinateName) {
-        return coordinatesMap.get(coordinateName);
+    public Coordinate[] getCells() {
+        materialize();
+        return cells;
     }
 
     /**
-     * Retrieves the map of coordinate names to Coordinate objects.
+     * Returns the number of cells per row, header column included.
      *
-     * @return the map of coordinate names to Coordinate objects
+     * @return the board width in cells
      */
-    public Map<String, Coordinate> getCoordinateMap() {
-        return coordinatesMap;
+    public int getGridWidth() {
+        return numCell;
     }
 
     /**
@@ -252,6 +367,56 @@ public abstract class Board extends JPanel {
         ships[index] = new Ship(length, horizontal);
     }
 
+    /**
+     * Sets a ship of the given shape at the specified index.
+     *
+     * @param index       the index of the ship
+     * @param shape       the shape of the ship
+     * @param orientation the initial orientation
+     */
+    public void setShip(int index, ShipShape shape, int orientation) {
+        ships[index] = new Ship(shape, orientation);
+    }
+
+    /**
+     * Returns the bitboard of the cells occupied by ships, one bit per cell
+     * id. Model updates it as ships are placed.
+     *
+     * @return the occupied bitboard
+     */
+    public long[] getOccupiedMask() {
+        return occupiedMask;
+    }
+
+    /**
+     * Returns the cells occupied by ships or touching them, diagonally
+     * included. Model updates it as ships are placed.
+     *
+     * @return the dilated occupied mask
+     */
+    public AdjacencyMask getForbiddenMask() {
+        return forbiddenMask;
+    }
+
+    /**
+     * Checks whether ships on this board may not touch each other.
+     *
+     * @return true if the no-touch rule applies
+     */
+    public boolean isNoTouch() {
+        return noTouch;
+    }
+
+    /**
+     * Sets whether ships on this board may not touch each other. Must be set
+     * before ships are placed.
+     *
+     * @param noTouch true to apply the no-touch rule
+     */
+    public void setNoTouch(boolean noTouch) {
+        this.noTouch = noTouch;
+    }
+
     /**
      * Retrieves the array of Coordinate objects representing the coordinates on the
      * board.
@@ -259,9 +424,27 @@ public abstract class Board extends JPanel {
      * @return the array of Coordinate objects
      */
     public Coordinate[][] getCoordinateArray() {
+        materialize();
         return coordinatesArray;
     }
 
+    /**
+     * Returns the number of cells not shot yet, header cells excluded.
+     *
+     * @return the unshot cell count
+     */
+    public int getUnshotCount() {
+        return unshotCount;
+    }
+
+    /**
+     * Counts one more cell as shot. Model calls it for every shot it
+     * resolves.
+     */
+    void countShot() {
+        unshotCount--;
+    }
+
     /**
      * Retrieves the ship count on the board.
      *
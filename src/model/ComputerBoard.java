@@ -35,8 +35,7 @@ public class ComputerBoard extends Board {
      */
     public void addCoordinate(int row, int col, int buttonSize) {
         Coordinate coordinate = new Coordinate(row, col, colorSet);
-        coordinatesArray[row][col] = coordinate;
-        coordinatesMap.put(coordinate.getName(), coordinate);
+        registerCoordinate(coordinate);
         coordinate.setPreferredSize(new Dimension(buttonSize, buttonSize));
         coordinate.addActionListener(controller);
         innerBoard.add(coordinate);
@@ -5,6 +5,7 @@ import java.awt.Color;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseListener;
 import javax.swing.BorderFactory;
+import javax.swing.UIManager;
 import miscellaneous.Misc;
 
 /**
@@ -15,17 +16,25 @@ import miscellaneous.Misc;
  * The class provides methods to update the state and appearance of the
  * coordinate.
  * It also implements the Comparable interface for comparing coordinates based
- * on their names.
+ * on their cell ids.
  * The coordinate's appearance is determined by different colors for hit,
  * missed, and unselected states.
  * By default, the unselected color is used.
  * The coordinate's state and appearance can be updated by calling the
  * appropriate methods.
+ * How a coordinate is painted is up to the UI delegate registered for
+ * UI_CLASS_ID, if the view registered one; otherwise it is painted as a
+ * plain button.
  */
 public class Coordinate extends JButton implements Comparable<Coordinate> {
 
+    /** The UIManager key of the UI delegate that paints coordinates. */
+    public static final String UI_CLASS_ID = "CoordinateUI";
+
     private int column;
     private int row;
+    private int cellId;
+    private String name;
     private int length;
     private boolean isMissed;
     private boolean isHit;
@@ -80,6 +89,17 @@ public class Coordinate extends JButton implements Comparable<Coordinate> {
         setBackground(unselectedColor);
     }
 
+    /**
+     * Returns the key of the UI delegate of the coordinate: UI_CLASS_ID if
+     * the view registered a delegate for it, that of a button otherwise.
+     *
+     * @return the UI class id
+     */
+    @Override
+    public String getUIClassID() {
+        return UIManager.get(UI_CLASS_ID) != null ? UI_CLASS_ID : super.getUIClassID();
+    }
+
     /**
      * Returns the row value of the coordinate.
      *
@@ -98,14 +118,34 @@ public class Coordinate extends JButton implements Comparable<Coordinate> {
         return column;
     }
 
+    /**
+     * Returns the cell id of the coordinate, row * width + column on its board.
+     *
+     * @return the cell id
+     */
+    public int getCellId() {
+        return cellId;
+    }
+
     /**
      * Returns the name of the coordinate, which combines the column letter and the
-     * row number.
+     * row number. Names come from the board's precomputed name table.
      *
      * @return the name of the coordinate
      */
     public String getName() {
-        return Misc.ALPHABET[column] + Integer.toString(row);
+        return name;
+    }
+
+    /**
+     * Assigns the cell id and display name given by the owning board.
+     *
+     * @param newCellId the cell id
+     * @param newName   the display name
+     */
+    void setCell(int newCellId, String newName) {
+        cellId = newCellId;
+        name = newName;
     }
 
     /**
@@ -191,6 +231,16 @@ public class Coordinate extends JButton implements Comparable<Coordinate> {
         repaint();
     }
 
+    /**
+     * Marks the coordinate as a target of the salvo being aimed, or clears
+     * the mark.
+     *
+     * @param aimed true to show the coordinate as aimed at
+     */
+    public void setAimed(boolean aimed) {
+        setText(aimed ? "+" : "");
+    }
+
     /**
      * Updates the state and appearance of the coordinate to indicate that the ship
      * occupying the coordinate has been destroyed.
@@ -231,6 +281,15 @@ public class Coordinate extends JButton implements Comparable<Coordinate> {
         return isHit;
     }
 
+    /**
+     * Checks if the ship occupying the coordinate has been destroyed.
+     *
+     * @return true if the coordinate belongs to a destroyed ship, false otherwise
+     */
+    public boolean isDestroyed() {
+        return isDestroyed;
+    }
+
     /**
      * Checks if the coordinate has been missed.
      *
@@ -241,18 +300,16 @@ public class Coordinate extends JButton implements Comparable<Coordinate> {
     }
 
     /**
-     * Compares this coordinate with another coordinate based on their names.
-     * The comparison is case-sensitive.
+     * Compares this coordinate with another coordinate based on their cell ids,
+     * i.e. in row-major order.
      *
      * @param o the coordinate to compare with
      * @return the value 0 if the coordinates are equal, a value less than 0 if this
-     *         coordinate is lexicographically less than the other coordinate,
-     *         a value greater than 0 if this coordinate is lexicographically
-     *         greater than the other coordinate
+     *         coordinate comes first, a value greater than 0 otherwise
      */
     @Override
     public int compareTo(Coordinate o) {
-        return this.getName().compareTo(o.getName());
+        return Integer.compare(cellId, o.cellId);
     }
 
     /**
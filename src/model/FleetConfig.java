@@ -0,0 +1,230 @@
+package model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import diagnostics.Log;
+
+/**
+ * The FleetConfig class lists the ships of a fleet. The classic fleet of
+ * dimension d has d - L + 1 straight ships of every length L from 1 to d; a
+ * custom fleet is read from the file named by the {@code battleship.fleet}
+ * system property, one line per kind of ship:
+ *
+ * <pre>
+ * # count shape
+ * 1 5
+ * 2 3
+ * 1 L
+ * 1 T
+ * 1 plus
+ * 2 ##./.##
+ * </pre>
+ *
+ * Shapes are written as accepted by ShipShape.parse. The custom fleet is used
+ * on every dimension it fits, i.e. where each shape fits on the board and the
+ * ships cover at most half of it; smaller dimensions keep the classic fleet.
+ *
+ * Ships are ordered from the largest to the smallest, the order in which they
+ * are placed.
+ */
+public final class FleetConfig {
+
+    private static final double NO_TOUCH_FILL = 0.92;
+    private static final FleetConfig CONFIGURED = load(System.getProperty("battleship.fleet"));
+
+    private final ShipShape[] shapes;
+
+    private FleetConfig(List<ShipShape> ships) {
+        shapes = ships.toArray(new ShipShape[0]);
+        // Stable insertion sort, largest first, keeping the written order of equal sizes.
+        for (int i = 1; i < shapes.length; i++) {
+            ShipShape shape = shapes[i];
+            int j = i - 1;
+            while (j >= 0 && shapes[j].getSize() < shape.getSize()) {
+                shapes[j + 1] = shapes[j];
+                j--;
+            }
+            shapes[j + 1] = shape;
+        }
+    }
+
+    /**
+     * Returns the classic fleet of a dimension.
+     *
+     * @param dimension the game dimension
+     * @return the fleet of straight ships
+     */
+    public static FleetConfig classic(int dimension) {
+        List<ShipShape> ships = new ArrayList<>();
+        for (int length = dimension; length >= 1; length--) {
+            for (int i = 0; i < dimension - length + 1; i++) {
+                ships.add(ShipShape.line(length));
+            }
+        }
+        return new FleetConfig(ships);
+    }
+
+    /**
+     * Parses a fleet description.
+     *
+     * @param lines the lines of the description
+     * @return the fleet
+     * @throws IllegalArgumentException naming the line that is not a count and
+     *                                  a shape
+     */
+    public static FleetConfig parse(List<String> lines) {
+        List<ShipShape> ships = new ArrayList<>();
+        for (int number = 1; number <= lines.size(); number++) {
+            String line = lines.get(number - 1).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+", 2);
+            try {
+                int count = Integer.parseInt(parts[0]);
+                if (count < 0 || parts.length < 2) {
+                    throw new IllegalArgumentException("expected a count and a shape");
+                }
+                ShipShape shape = ShipShape.parse(parts[1]);
+                for (int i = 0; i < count; i++) {
+                    ships.add(shape);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + number + ": " + e.getMessage(), e);
+            }
+        }
+        if (ships.isEmpty()) {
+            throw new IllegalArgumentException("The fleet has no ships");
+        }
+        return new FleetConfig(ships);
+    }
+
+    private static FleetConfig load(String file) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            FleetConfig fleet = parse(Files.readAllLines(Paths.get(file)));
+            Log.info("Loaded fleet of {} ships from {}", fleet.getShipCount(), file);
+            return fleet;
+        } catch (IOException | IllegalArgumentException e) {
+            Log.warn("Could not load fleet {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the fleet played on a dimension: the configured fleet if there
+     * is one and it fits, the classic fleet otherwise.
+     *
+     * @param dimension the game dimension
+     * @return the fleet
+     */
+    public static FleetConfig forDimension(int dimension) {
+        if (CONFIGURED != null && CONFIGURED.fits(2 * dimension)) {
+            return CONFIGURED;
+        }
+        return classic(dimension);
+    }
+
+    /**
+     * Checks whether the fleet can be played on a square board: every shape
+     * fits in some orientation, and the ships cover at most half the cells.
+     *
+     * @param size the number of rows and columns
+     * @return true if the fleet fits
+     */
+    public boolean fits(int size) {
+        int cells = 0;
+        for (ShipShape shape : shapes) {
+            boolean fits = false;
+            for (int o = 0; o < shape.getOrientationCount(); o++) {
+                fits |= shape.getHeight(o) <= size && shape.getWidth(o) <= size;
+            }
+            if (!fits) {
+                return false;
+            }
+            cells += shape.getSize();
+        }
+        return 2 * cells <= size * size;
+    }
+
+    /**
+     * Checks whether the fleet can reasonably be placed on a square board
+     * without ships touching. The bounding box of each ship grown by one row
+     * and one column must fit disjointly into the board grown the same way;
+     * the boxes may fill at most NO_TOUCH_FILL of it, beyond which random
+     * placement rarely finds a layout.
+     *
+     * @param size the number of rows and columns
+     * @return true if the no-touch rule can apply
+     */
+    public boolean fitsWithoutTouching(int size) {
+        if (!fits(size)) {
+            return false;
+        }
+        long area = 0;
+        for (ShipShape shape : shapes) {
+            int smallest = Integer.MAX_VALUE;
+            for (int o = 0; o < shape.getOrientationCount(); o++) {
+                if (shape.getHeight(o) <= size && shape.getWidth(o) <= size) {
+                    smallest = Math.min(smallest, (shape.getHeight(o) + 1) * (shape.getWidth(o) + 1));
+                }
+            }
+            area += smallest;
+        }
+        return area <= NO_TOUCH_FILL * (size + 1) * (size + 1);
+    }
+
+    /**
+     * Returns the number of ships.
+     *
+     * @return the ship count
+     */
+    public int getShipCount() {
+        return shapes.length;
+    }
+
+    /**
+     * Returns the shape of a ship.
+     *
+     * @param ship the ship index, largest ships first
+     * @return the shape
+     */
+    public ShipShape getShape(int ship) {
+        return shapes[ship];
+    }
+
+    /**
+     * Returns the number of cells of every ship, largest first, as strategies
+     * and SparseBoard take fleets.
+     *
+     * @return a new array of ship sizes
+     */
+    public int[] getSizes() {
+        int[] sizes = new int[shapes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = shapes[i].getSize();
+        }
+        return sizes;
+    }
+
+    /**
+     * Checks whether every ship is straight, as SparseBoard, the strategies'
+     * placement counting and HardPlacement assume.
+     *
+     * @return true if the fleet has only straight ships
+     */
+    public boolean isLinesOnly() {
+        for (ShipShape shape : shapes) {
+            if (!shape.isLine()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
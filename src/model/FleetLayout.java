@@ -0,0 +1,252 @@
+package model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import miscellaneous.Misc;
+
+/**
+ * The FleetLayout class is one record of a layout file: a board size and the
+ * position of every ship, independent of any Swing board. A record is one
+ * line of the form
+ *
+ * <pre>
+ * 10x10 5@0,0 4@2,3,1 L@6,6,2
+ * </pre>
+ *
+ * i.e. the board's columns and rows, then one ship per token written as
+ * shape@row,column[,orientation]. The shape is written as accepted by
+ * ShipShape.parse, the row and column, counted from 0 without the header,
+ * are those of the top-left corner of the ship's bounding box, and the
+ * orientation, 0 if omitted, counts quarter turns clockwise among the
+ * shape's distinct orientations, wrapping around: 0 is horizontal and 1
+ * vertical for a straight ship, and every orientation of a single cell is 0.
+ * Blank lines and lines starting with '#' are not records. Boards larger than
+ * MAX_SIZE, the board of the largest dimension, are rejected.
+ *
+ * A layout is only parsed; LayoutValidator checks that it is legal.
+ */
+public final class FleetLayout {
+
+    /** The largest number of rows or columns of a record's board. */
+    public static final int MAX_SIZE = 2 * Integer.parseInt(Misc.DIMENSION[Misc.DIMENSION.length - 1]);
+
+    private static final int MAX_CACHED_SHAPES = 1024;
+    private static final Map<String, ShipShape> SHAPES = new ConcurrentHashMap<>();
+
+    private final int width;
+    private final int height;
+    private final ShipShape[] shapes;
+    private final int[] orientations;
+    private final int[] rows;
+    private final int[] cols;
+
+    /**
+     * Constructs a layout.
+     *
+     * @param width        the number of columns
+     * @param height       the number of rows
+     * @param shapes       the shape of every ship
+     * @param orientations the orientation of every ship
+     * @param rows         the top row of every ship
+     * @param cols         the left column of every ship
+     */
+    public FleetLayout(int width, int height, ShipShape[] shapes, int[] orientations, int[] rows, int[] cols) {
+        this.width = width;
+        this.height = height;
+        this.shapes = shapes;
+        this.orientations = orientations;
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * Checks whether a line of a layout file holds a record.
+     *
+     * @param line the line
+     * @return false for blank lines and comments
+     */
+    public static boolean isRecord(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (!Character.isWhitespace(ch)) {
+                return ch != '#';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses a record.
+     *
+     * @param line the record
+     * @return the layout
+     * @throws IllegalArgumentException naming the ship that cannot be read
+     */
+    public static FleetLayout parse(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        int x = tokens[0].indexOf('x');
+        int width;
+        int height;
+        try {
+            width = Integer.parseInt(tokens[0].substring(0, Math.max(0, x)));
+            height = Integer.parseInt(tokens[0].substring(x + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected the board size, e.g. 10x10, not " + tokens[0]);
+        }
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Board size must be positive: " + tokens[0]);
+        }
+        if (width > MAX_SIZE || height > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be at most " + MAX_SIZE + "x" + MAX_SIZE + ": " + tokens[0]);
+        }
+
+        int count = tokens.length - 1;
+        ShipShape[] shapes = new ShipShape[count];
+        int[] orientations = new int[count];
+        int[] rows = new int[count];
+        int[] cols = new int[count];
+        for (int i = 0; i < count; i++) {
+            String token = tokens[i + 1];
+            try {
+                int at = token.lastIndexOf('@');
+                if (at < 0) {
+                    throw new IllegalArgumentException("expected shape@row,column");
+                }
+                String[] position = token.substring(at + 1).split(",");
+                if (position.length < 2 || position.length > 3) {
+                    throw new IllegalArgumentException("expected row,column or row,column,orientation");
+                }
+                shapes[i] = shape(token.substring(0, at));
+                rows[i] = Integer.parseInt(position[0]);
+                cols[i] = Integer.parseInt(position[1]);
+                int turns = position.length == 3 ? Integer.parseInt(position[2]) : 0;
+                if (turns < 0) {
+                    throw new IllegalArgumentException("orientation must not be negative");
+                }
+                orientations[i] = turns % shapes[i].getOrientationCount();
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Ship " + (i + 1) + " (" + token + "): " + e.getMessage(), e);
+            }
+        }
+        return new FleetLayout(width, height, shapes, orientations, rows, cols);
+    }
+
+    /**
+     * Parses a shape, reusing the shapes already seen: a file of a million
+     * records names the same few shapes over and over.
+     */
+    private static ShipShape shape(String text) {
+        ShipShape shape = SHAPES.get(text);
+        if (shape == null) {
+            shape = ShipShape.parse(text);
+            if (SHAPES.size() < MAX_CACHED_SHAPES) {
+                SHAPES.put(text, shape);
+            }
+        }
+        return shape;
+    }
+
+    /**
+     * Returns the number of columns of the board.
+     *
+     * @return the board width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the number of rows of the board.
+     *
+     * @return the board height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of ships.
+     *
+     * @return the ship count
+     */
+    public int getShipCount() {
+        return shapes.length;
+    }
+
+    /**
+     * Returns the shape of a ship.
+     *
+     * @param ship the ship index, in the order of the record
+     * @return the shape
+     */
+    public ShipShape getShape(int ship) {
+        return shapes[ship];
+    }
+
+    /**
+     * Returns the orientation of a ship.
+     *
+     * @param ship the ship index
+     * @return the orientation, less than the shape's orientation count once
+     *         parsed
+     */
+    public int getOrientation(int ship) {
+        return orientations[ship];
+    }
+
+    /**
+     * Returns the top row of a ship's bounding box.
+     *
+     * @param ship the ship index
+     * @return the row, counted from 0
+     */
+    public int getRow(int ship) {
+        return rows[ship];
+    }
+
+    /**
+     * Returns the left column of a ship's bounding box.
+     *
+     * @param ship the ship index
+     * @return the column, counted from 0
+     */
+    public int getColumn(int ship) {
+        return cols[ship];
+    }
+
+    /**
+     * Returns the approximate memory used by the layout: the object and its
+     * four arrays, with compressed references. Shapes are shared and not
+     * counted.
+     *
+     * @return the footprint in bytes
+     */
+    public long footprintBytes() {
+        return 32 + 4 * (16 + 4L * shapes.length);
+    }
+
+    /**
+     * Returns a ship as it is written in a record.
+     *
+     * @param ship the ship index
+     * @return the token, e.g. L@6,6,2
+     */
+    public String getToken(int ship) {
+        return shapes[ship] + "@" + rows[ship] + "," + cols[ship] + "," + orientations[ship];
+    }
+
+    /**
+     * Returns the layout as a record.
+     *
+     * @return the record, without line separator
+     */
+    @Override
+    public String toString() {
+        StringBuilder record = new StringBuilder().append(width).append('x').append(height);
+        for (int i = 0; i < shapes.length; i++) {
+            record.append(' ').append(getToken(i));
+        }
+        return record.toString();
+    }
+}
@@ -0,0 +1,123 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The IntIntMap class is a small open-addressing hash map from non-negative int
+ * keys to int values. It stores keys and values in two flat arrays, so a
+ * lookup touches no boxed objects and the memory used grows with the number of
+ * entries rather than with the size of the board.
+ */
+class IntIntMap {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * Constructs a map sized for the expected number of entries.
+     *
+     * @param expected the expected number of entries
+     */
+    IntIntMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private int slot(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Returns the value stored for a key.
+     *
+     * @param key          the key
+     * @param defaultValue the value returned when the key is absent
+     * @return the stored value, or defaultValue
+     */
+    int get(int key, int defaultValue) {
+        for (int i = slot(key);; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            if (keys[i] == EMPTY) {
+                return defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Checks whether a key is present.
+     *
+     * @param key the key
+     * @return true if the key has a value
+     */
+    boolean containsKey(int key) {
+        for (int i = slot(key);; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return true;
+            }
+            if (keys[i] == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Stores a value for a key, replacing any previous value.
+     *
+     * @param key   the key, must not be negative
+     * @param value the value
+     */
+    void put(int key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            allocate(keys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+        int i = slot(key);
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            size++;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the entry count
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the approximate memory used by the two arrays.
+     *
+     * @return the footprint in bytes
+     */
+    long footprintBytes() {
+        return 8L * keys.length;
+    }
+}
@@ -0,0 +1,301 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The LayoutChain class draws fleet layouts nearly uniformly on boards too
+ * large for LayoutCounter, with a Markov chain over layouts. Each step picks
+ * a ship at random and proposes moving it to a random position and
+ * orientation on the board. The move is taken if the ship fits there among
+ * the others. The proposal does not depend on the current layout, so the
+ * chain's stationary distribution is uniform over all layouts.
+ *
+ * A sweep is one step per ship. A chain starts from a layout placed ship by
+ * ship, which is not uniform, and runs BURN_IN_SWEEPS sweeps. It then
+ * measures its autocorrelation time over MIXING_SWEEPS more. Samples are
+ * twice that many sweeps apart, and never fewer than the given minimum. The
+ * denser the board, the fewer moves are taken and the slower the chain
+ * mixes: about 18 sweeps per sample on the 10x10 board of dimension 5 and 150
+ * on the 20x20 board of dimension 10.
+ *
+ * Under the no-touch rule a ship also only moves where none of the cells
+ * around it, diagonals included, is taken by another ship, and the chain is
+ * uniform over the layouts without touching ships.
+ *
+ * The chain keeps no random source of its own: the constructor and every
+ * step draw from the one they are given, so a seeded caller gets the same
+ * layouts on every run. A chain is not thread-safe.
+ */
+public final class LayoutChain {
+
+    /** The number of sweeps run before the first sample. */
+    public static final int BURN_IN_SWEEPS = 200;
+    /** The number of sweeps the autocorrelation time is measured over. */
+    public static final int MIXING_SWEEPS = 2000;
+
+    private static final int MAX_PLACEMENT_TRIES = 1000;
+
+    private final int width;
+    private final int height;
+    private final ShipShape[] shapes;
+    private final ShapeMasks[] masks;
+    private final int[] orientations;
+    private final int[] rows;
+    private final int[] cols;
+    private final long[] occupied;
+    private final boolean noTouch;
+    private final int sweepsPerSample;
+    private final double mixingTime;
+    private long proposed;
+    private long accepted;
+
+    /**
+     * Constructs a chain, runs its burn-in and measures its mixing.
+     *
+     * @param fleet     the fleet
+     * @param width     the number of columns
+     * @param height    the number of rows
+     * @param minSweeps the least number of sweeps between samples
+     * @param random    the random source of the burn-in
+     * @throws IllegalArgumentException if no starting layout is found
+     */
+    public LayoutChain(FleetConfig fleet, int width, int height, int minSweeps, Random random) {
+        this(fleet, width, height, minSweeps, false, random);
+    }
+
+    /**
+     * Constructs a chain, runs its burn-in and measures its mixing.
+     *
+     * @param fleet     the fleet
+     * @param width     the number of columns
+     * @param height    the number of rows
+     * @param minSweeps the least number of sweeps between samples
+     * @param noTouch   true if ships may not touch, diagonally included
+     * @param random    the random source of the burn-in
+     * @throws IllegalArgumentException if no starting layout is found
+     */
+    public LayoutChain(FleetConfig fleet, int width, int height, int minSweeps, boolean noTouch, Random random) {
+        this.width = width;
+        this.height = height;
+        this.noTouch = noTouch;
+        int count = fleet.getShipCount();
+        shapes = new ShipShape[count];
+        masks = new ShapeMasks[count];
+        orientations = new int[count];
+        rows = new int[count];
+        cols = new int[count];
+        for (int i = 0; i < count; i++) {
+            shapes[i] = fleet.getShape(i);
+            masks[i] = shapes[i].getMasks(width, height);
+        }
+        occupied = masks[0].newBitboard();
+        start(random);
+        sweep(BURN_IN_SWEEPS, random);
+        mixingTime = autocorrelationTime(MIXING_SWEEPS, random);
+        sweepsPerSample = Math.max(minSweeps, (int) Math.ceil(2 * mixingTime));
+    }
+
+    /**
+     * Places the ships one by one at random positions, starting over when a
+     * ship finds no room.
+     */
+    private void start(Random random) {
+        for (int restart = 0; restart < MAX_PLACEMENT_TRIES; restart++) {
+            Arrays.fill(occupied, 0);
+            int placed = 0;
+            for (int tries = 0; placed < shapes.length && tries < MAX_PLACEMENT_TRIES; tries++) {
+                if (propose(placed, random)) {
+                    masks[placed].place(occupied, orientations[placed], rows[placed], cols[placed]);
+                    placed++;
+                    tries = 0;
+                }
+            }
+            if (placed == shapes.length) {
+                return;
+            }
+        }
+        throw new IllegalArgumentException("No layout found for the fleet on a " + width + "x" + height + " board");
+    }
+
+    /**
+     * Runs one step: moves a random ship if the proposed placement fits.
+     *
+     * @param random the random source
+     * @return true if the ship moved
+     */
+    public boolean step(Random random) {
+        int ship = random.nextInt(shapes.length);
+        masks[ship].remove(occupied, orientations[ship], rows[ship], cols[ship]);
+        boolean moved = propose(ship, random);
+        masks[ship].place(occupied, orientations[ship], rows[ship], cols[ship]);
+        proposed++;
+        if (moved) {
+            accepted++;
+        }
+        return moved;
+    }
+
+    /**
+     * Proposes a placement uniformly among every placement of the ship's
+     * shape on the board, so that the proposal is symmetric: orientations are
+     * weighted by how many positions they have.
+     */
+    private boolean propose(int ship, Random random) {
+        ShipShape shape = shapes[ship];
+        int placements = 0;
+        for (int o = 0; o < shape.getOrientationCount(); o++) {
+            placements += positions(shape, o);
+        }
+        int pick = random.nextInt(placements);
+        int orientation = 0;
+        while (pick >= positions(shape, orientation)) {
+            pick -= positions(shape, orientation);
+            orientation++;
+        }
+        int columns = width - shape.getWidth(orientation) + 1;
+        int row = pick / columns;
+        int col = pick % columns;
+        if (!masks[ship].fits(occupied, orientation, row, col)
+                || noTouch && touches(shape, orientation, row, col)) {
+            return false;
+        }
+        orientations[ship] = orientation;
+        rows[ship] = row;
+        cols[ship] = col;
+        return true;
+    }
+
+    /**
+     * Checks whether a placement that lies on the board has an occupied cell
+     * next to it, diagonally included.
+     */
+    private boolean touches(ShipShape shape, int orientation, int row, int col) {
+        int[] rowOffsets = shape.getRowOffsets(orientation);
+        int[] colOffsets = shape.getColumnOffsets(orientation);
+        for (int i = 0; i < rowOffsets.length; i++) {
+            int r = row + rowOffsets[i];
+            int c = col + colOffsets[i];
+            for (int nr = Math.max(0, r - 1); nr <= Math.min(height - 1, r + 1); nr++) {
+                for (int nc = Math.max(0, c - 1); nc <= Math.min(width - 1, c + 1); nc++) {
+                    int bit = nr * width + nc;
+                    if ((occupied[bit >>> 6] & 1L << bit) != 0) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private int positions(ShipShape shape, int orientation) {
+        return Math.max(0, height - shape.getHeight(orientation) + 1)
+                * Math.max(0, width - shape.getWidth(orientation) + 1);
+    }
+
+    /**
+     * Runs sweeps of the chain.
+     *
+     * @param sweeps the number of sweeps
+     * @param random the random source
+     */
+    public void sweep(int sweeps, Random random) {
+        for (long i = (long) sweeps * shapes.length; i > 0; i--) {
+            step(random);
+        }
+    }
+
+    /**
+     * Runs the sweeps between samples and returns the layout reached.
+     *
+     * @param random the random source
+     * @return the layout, ships in fleet order
+     */
+    public FleetLayout sample(Random random) {
+        sweep(sweepsPerSample, random);
+        return getLayout();
+    }
+
+    /**
+     * Returns the current layout.
+     *
+     * @return a copy of the layout, ships in fleet order
+     */
+    public FleetLayout getLayout() {
+        return new FleetLayout(width, height, shapes.clone(), orientations.clone(), rows.clone(), cols.clone());
+    }
+
+    /**
+     * Returns the number of sweeps run between samples.
+     *
+     * @return the sweeps per sample
+     */
+    public int getSweepsPerSample() {
+        return sweepsPerSample;
+    }
+
+    /**
+     * Returns the autocorrelation time measured after the burn-in.
+     *
+     * @return the time in sweeps
+     */
+    public double getMixingTime() {
+        return mixingTime;
+    }
+
+    /**
+     * Returns the share of proposed moves that were taken. A chain whose rate
+     * is near zero hardly moves and needs more sweeps per sample.
+     *
+     * @return the acceptance rate, 0 before the first step
+     */
+    public double getAcceptanceRate() {
+        return proposed == 0 ? 0 : accepted / (double) proposed;
+    }
+
+    /**
+     * Estimates the integrated autocorrelation time of the chain, in sweeps,
+     * from the number of horizontal straight ships after each sweep. This
+     * statistic changes slowly because a ship only turns when it moves. About
+     * twice this many sweeps between samples makes them nearly independent.
+     * The estimate sums the autocorrelations up to the first negative lag.
+     *
+     * @param sweeps the number of sweeps to observe
+     * @param random the random source
+     * @return the estimated autocorrelation time, at least 1
+     */
+    public double autocorrelationTime(int sweeps, Random random) {
+        double[] series = new double[sweeps];
+        double mean = 0;
+        for (int i = 0; i < sweeps; i++) {
+            sweep(1, random);
+            int horizontal = 0;
+            for (int ship = 0; ship < shapes.length; ship++) {
+                horizontal += shapes[ship].isLine() && shapes[ship].getSize() > 1 && orientations[ship] == 0 ? 1 : 0;
+            }
+            series[i] = horizontal;
+            mean += horizontal;
+        }
+        mean /= sweeps;
+        double variance = 0;
+        for (double value : series) {
+            variance += (value - mean) * (value - mean);
+        }
+        if (variance == 0) {
+            return 1;
+        }
+        double time = 1;
+        for (int lag = 1; lag < sweeps / 2; lag++) {
+            double covariance = 0;
+            for (int i = 0; i + lag < sweeps; i++) {
+                covariance += (series[i] - mean) * (series[i + lag] - mean);
+            }
+            double correlation = covariance / variance * sweeps / (sweeps - lag);
+            if (correlation <= 0) {
+                break;
+            }
+            time += 2 * correlation;
+        }
+        return time;
+    }
+}
@@ -0,0 +1,266 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The LayoutCounter class counts every way a fleet of straight ships can be
+ * placed on a board, and draws layouts uniformly at random among them. Ships
+ * of the same length are interchangeable, so each layout is counted once.
+ *
+ * The count is a memoised search over the cells in row-major order. Its state
+ * is the cell reached, the fleet still to place, and a profile giving for
+ * every column how many cells at and below the current row are covered by
+ * vertical ships already placed. At a free cell the search either leaves it
+ * empty or starts a ship there, horizontally or vertically. A state is keyed
+ * by one long in a LongLongMap, and the map is kept for sampling: a uniform
+ * layout is drawn by walking down from the first cell and taking each branch
+ * with probability proportional to its count.
+ *
+ * The number of states grows steeply with the board: about 20 thousand for
+ * the 6x6 board of dimension 3 and 8 million for the 8x8 board of dimension
+ * 4. Counts must fit in a long. Sampling only reads the memoised states, so
+ * a counter may be shared by threads once constructed.
+ */
+public final class LayoutCounter {
+
+    private final int width;
+    private final int height;
+    private final int maxLength;
+    private final int bits;
+    private final int[] available;
+    private final long[] radix;
+    private final long profileStates;
+    private final long fleetStates;
+    private final LongLongMap memo = new LongLongMap(1 << 10);
+    private final long total;
+
+    /**
+     * Counts the layouts of a fleet on a board.
+     *
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @param fleet  the length of every ship
+     * @throws IllegalArgumentException if the states of the board cannot be
+     *                                  keyed by a long
+     * @throws ArithmeticException      if the count does not fit in a long
+     */
+    public LayoutCounter(int width, int height, int[] fleet) {
+        this.width = width;
+        this.height = height;
+        int longest = 1;
+        for (int length : fleet) {
+            longest = Math.max(longest, length);
+        }
+        maxLength = longest;
+        bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, maxLength - 1));
+        available = new int[maxLength + 1];
+        for (int length : fleet) {
+            available[length]++;
+        }
+        radix = new long[maxLength + 2];
+        radix[1] = 1;
+        for (int length = 1; length <= maxLength; length++) {
+            radix[length + 1] = radix[length] * (available[length] + 1);
+        }
+        fleetStates = radix[maxLength + 1];
+        if (width * bits > 62) {
+            throw new IllegalArgumentException("Board too wide to count exactly: " + width);
+        }
+        profileStates = 1L << (width * bits);
+        if ((double) (width * height + 1) * profileStates * fleetStates > Long.MAX_VALUE) {
+            throw new IllegalArgumentException("Board too large to count exactly: " + width + "x" + height);
+        }
+        total = count(0, 0, fleetStates - 1);
+    }
+
+    /**
+     * Returns the number of layouts.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return total;
+    }
+
+    /**
+     * Returns the number of memoised search states.
+     *
+     * @return the state count
+     */
+    public int getStateCount() {
+        return memo.size();
+    }
+
+    /**
+     * Returns the approximate memory used by the memoised states.
+     *
+     * @return the footprint in bytes
+     */
+    public long footprintBytes() {
+        return memo.footprintBytes();
+    }
+
+    private int remaining(long fleet, int length) {
+        return (int) (fleet / radix[length] % (available[length] + 1));
+    }
+
+    private int remainingCells(long fleet) {
+        int cells = 0;
+        for (int length = 1; length <= maxLength; length++) {
+            cells += length * remaining(fleet, length);
+        }
+        return cells;
+    }
+
+    private int covered(long profile, int col) {
+        return (int) (profile >>> (col * bits)) & ((1 << bits) - 1);
+    }
+
+    private long cover(long profile, int col, int cells) {
+        long mask = ((1L << bits) - 1) << (col * bits);
+        return (profile & ~mask) | ((long) cells << (col * bits));
+    }
+
+    /**
+     * Checks whether the cells right of a column in the current row are free
+     * for a horizontal ship.
+     */
+    private boolean rowFree(long profile, int col, int length) {
+        for (int c = col + 1; c < col + length; c++) {
+            if (covered(profile, c) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts the ways to place a fleet from a cell on.
+     */
+    private long count(int cell, long profile, long fleet) {
+        if (fleet == 0) {
+            return 1;
+        }
+        if (cell == width * height || remainingCells(fleet) > width * height - cell) {
+            return 0;
+        }
+        long key = (cell * profileStates + profile) * fleetStates + fleet;
+        long known = memo.get(key, -1);
+        if (known >= 0) {
+            return known;
+        }
+
+        int row = cell / width;
+        int col = cell % width;
+        int below = covered(profile, col);
+        long ways;
+        if (below > 0) {
+            ways = count(cell + 1, cover(profile, col, below - 1), fleet);
+        } else {
+            ways = count(cell + 1, profile, fleet);
+            for (int length = 1; length <= maxLength; length++) {
+                if (remaining(fleet, length) == 0) {
+                    continue;
+                }
+                long rest = fleet - radix[length];
+                if (row + length <= height) {
+                    ways = Math.addExact(ways, count(cell + 1, cover(profile, col, length - 1), rest));
+                }
+                if (length > 1 && col + length <= width && rowFree(profile, col, length)) {
+                    ways = Math.addExact(ways, count(cell + length, profile, rest));
+                }
+            }
+        }
+        memo.put(key, ways);
+        return ways;
+    }
+
+    /**
+     * Draws a layout uniformly among all layouts.
+     *
+     * @param random the random source
+     * @return the layout, ships longest first; orientation 0 is horizontal
+     */
+    public FleetLayout sample(Random random) {
+        List<int[]> ships = new ArrayList<>();
+        int cell = 0;
+        long profile = 0;
+        long fleet = fleetStates - 1;
+        while (fleet != 0) {
+            int row = cell / width;
+            int col = cell % width;
+            int below = covered(profile, col);
+            if (below > 0) {
+                profile = cover(profile, col, below - 1);
+                cell++;
+                continue;
+            }
+
+            long pick = nextLong(random, count(cell, profile, fleet));
+            long ways = count(cell + 1, profile, fleet);
+            if (pick < ways) {
+                cell++;
+                continue;
+            }
+            pick -= ways;
+            for (int length = 1; length <= maxLength; length++) {
+                if (remaining(fleet, length) == 0) {
+                    continue;
+                }
+                long rest = fleet - radix[length];
+                if (row + length <= height) {
+                    ways = count(cell + 1, cover(profile, col, length - 1), rest);
+                    if (pick < ways) {
+                        ships.add(new int[] { length, row, col, length > 1 ? 1 : 0 });
+                        profile = cover(profile, col, length - 1);
+                        fleet = rest;
+                        cell++;
+                        break;
+                    }
+                    pick -= ways;
+                }
+                if (length > 1 && col + length <= width && rowFree(profile, col, length)) {
+                    ways = count(cell + length, profile, rest);
+                    if (pick < ways) {
+                        ships.add(new int[] { length, row, col, 0 });
+                        fleet = rest;
+                        cell += length;
+                        break;
+                    }
+                    pick -= ways;
+                }
+            }
+        }
+
+        ships.sort((a, b) -> b[0] - a[0]);
+        int count = ships.size();
+        ShipShape[] shapes = new ShipShape[count];
+        int[] orientations = new int[count];
+        int[] rows = new int[count];
+        int[] cols = new int[count];
+        for (int i = 0; i < count; i++) {
+            int[] ship = ships.get(i);
+            shapes[i] = ShipShape.line(ship[0]);
+            rows[i] = ship[1];
+            cols[i] = ship[2];
+            orientations[i] = ship[3];
+        }
+        return new FleetLayout(width, height, shapes, orientations, rows, cols);
+    }
+
+    /**
+     * Returns a uniform long in [0, bound), rejecting the values that would
+     * favour small results, as Random.nextInt does.
+     */
+    private static long nextLong(Random random, long bound) {
+        long bits;
+        long value;
+        do {
+            bits = random.nextLong() >>> 1;
+            value = bits % bound;
+        } while (bits - value + (bound - 1) < 0);
+        return value;
+    }
+}
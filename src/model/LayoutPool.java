@@ -0,0 +1,222 @@
+package model;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import diagnostics.EngineStats;
+import diagnostics.Log;
+
+/**
+ * The LayoutPool class keeps uniformly drawn fleet layouts ready for every
+ * dimension in use, so the Random button does not wait for UniformPlacement.
+ * Layouts are drawn on one low-priority daemon thread into a bounded queue
+ * per dimension. The samplers, which can take a while to build for a new
+ * dimension, are built there and never by take. Taking a layout schedules a
+ * refill of its queue. If the queue is empty nothing is returned, the take is
+ * counted as a miss, and the caller places the ships some cheaper way.
+ *
+ * Layouts with and without the no-touch rule are kept apart. When no layout
+ * without touching ships can be found for a dimension, its queue stays
+ * empty and is not refilled again.
+ *
+ * Each queue holds at most PER_DIMENSION layouts. All queues together hold
+ * at most {@code battleship.layoutPool.kb} kilobytes (default 256), going by
+ * FleetLayout.footprintBytes. When a refill would exceed that, the queues of
+ * the other dimensions are emptied first. The footprint and the hit rate are
+ * published in EngineStats.
+ */
+public final class LayoutPool {
+
+    /** The largest number of layouts kept per dimension. */
+    public static final int PER_DIMENSION = 8;
+
+    private static final LayoutPool SHARED = new LayoutPool(Long.getLong("battleship.layoutPool.kb", 256) * 1024);
+
+    private final long budgetBytes;
+    private final Map<Integer, BlockingQueue<FleetLayout>> queues = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicBoolean> refilling = new ConcurrentHashMap<>();
+    private final Set<Integer> impossible = ConcurrentHashMap.newKeySet();
+    private final AtomicLong bytes = new AtomicLong();
+    private final Random random = new Random();
+    private final ExecutorService producer = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "layout-pool");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /**
+     * Constructs an empty pool.
+     *
+     * @param budgetBytes the most memory the pooled layouts may take
+     */
+    public LayoutPool(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Returns the pool the game uses.
+     *
+     * @return the shared pool
+     */
+    public static LayoutPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the key of the queue of a dimension and rule.
+     */
+    private static int key(int dimension, boolean noTouch) {
+        return 2 * dimension + (noTouch ? 1 : 0);
+    }
+
+    private BlockingQueue<FleetLayout> queue(int key) {
+        return queues.computeIfAbsent(key, k -> new ArrayBlockingQueue<>(PER_DIMENSION));
+    }
+
+    /**
+     * Takes a layout of the fleet of a dimension, if one is ready, and
+     * schedules a refill. Never waits for a layout to be drawn.
+     *
+     * @param dimension the game dimension
+     * @return a uniformly drawn layout on the 2d x 2d board, or null if none
+     *         is ready
+     */
+    public FleetLayout take(int dimension) {
+        return take(dimension, false);
+    }
+
+    /**
+     * Takes a layout of the fleet of a dimension under a rule, if one is
+     * ready, and schedules a refill. Never waits for a layout to be drawn.
+     *
+     * @param dimension the game dimension
+     * @param noTouch   true for a layout without touching ships
+     * @return a uniformly drawn layout on the 2d x 2d board, or null if none
+     *         is ready
+     */
+    public FleetLayout take(int dimension, boolean noTouch) {
+        FleetLayout layout = queue(key(dimension, noTouch)).poll();
+        EngineStats.get().layoutPoolTake(layout != null);
+        if (layout != null) {
+            EngineStats.get().layoutPoolBytes(bytes.addAndGet(-layout.footprintBytes()));
+        }
+        prefetch(dimension, noTouch);
+        return layout;
+    }
+
+    /**
+     * Schedules a refill of the layouts of a dimension, unless one is
+     * already scheduled.
+     *
+     * @param dimension the game dimension
+     */
+    public void prefetch(int dimension) {
+        prefetch(dimension, false);
+    }
+
+    /**
+     * Schedules a refill of the layouts of a dimension under a rule, unless
+     * one is already scheduled or no such layout can be found.
+     *
+     * @param dimension the game dimension
+     * @param noTouch   true for layouts without touching ships
+     */
+    public void prefetch(int dimension, boolean noTouch) {
+        int key = key(dimension, noTouch);
+        if (impossible.contains(key)) {
+            return;
+        }
+        AtomicBoolean scheduled = refilling.computeIfAbsent(key, k -> new AtomicBoolean());
+        if (scheduled.compareAndSet(false, true)) {
+            producer.execute(() -> {
+                try {
+                    refill(dimension, noTouch);
+                } catch (IllegalArgumentException e) {
+                    impossible.add(key);
+                    Log.warn("No layouts of dimension {} to pool: {}", dimension, e.getMessage());
+                } catch (RuntimeException e) {
+                    Log.warn("Could not pool layouts of dimension {}: {}", dimension, e.getMessage());
+                } finally {
+                    scheduled.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Checks whether the pool has given up drawing layouts of a dimension
+     * under a rule, because none could be found.
+     *
+     * @param dimension the game dimension
+     * @param noTouch   true for layouts without touching ships
+     * @return true if the pool will never hold such a layout
+     */
+    public boolean isImpossible(int dimension, boolean noTouch) {
+        return impossible.contains(key(dimension, noTouch));
+    }
+
+    /**
+     * Fills the queue of a dimension and rule, within the memory budget.
+     */
+    private void refill(int dimension, boolean noTouch) {
+        int key = key(dimension, noTouch);
+        BlockingQueue<FleetLayout> queue = queue(key);
+        while (queue.remainingCapacity() > 0) {
+            FleetLayout layout = UniformPlacement.sample(dimension, noTouch, random);
+            long size = layout.footprintBytes();
+            if (bytes.get() + size > budgetBytes) {
+                evictOthers(key);
+                if (bytes.get() + size > budgetBytes) {
+                    break;
+                }
+            }
+            if (!queue.offer(layout)) {
+                break;
+            }
+            EngineStats.get().layoutPoolBytes(bytes.addAndGet(size));
+        }
+    }
+
+    /**
+     * Empties every queue but one.
+     */
+    private void evictOthers(int key) {
+        for (Map.Entry<Integer, BlockingQueue<FleetLayout>> entry : queues.entrySet()) {
+            if (entry.getKey() != key) {
+                FleetLayout layout;
+                while ((layout = entry.getValue().poll()) != null) {
+                    bytes.addAndGet(-layout.footprintBytes());
+                }
+            }
+        }
+        EngineStats.get().layoutPoolBytes(bytes.get());
+    }
+
+    /**
+     * Returns the number of layouts ready for a dimension.
+     *
+     * @param dimension the game dimension
+     * @return the queue length
+     */
+    public int available(int dimension) {
+        return queue(key(dimension, false)).size();
+    }
+
+    /**
+     * Returns the approximate memory held by the pooled layouts.
+     *
+     * @return the footprint in bytes
+     */
+    public long footprintBytes() {
+        return bytes.get();
+    }
+}
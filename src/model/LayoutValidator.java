@@ -0,0 +1,506 @@
+package model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The LayoutValidator class checks FleetLayout records: every ship must lie
+ * on the board, no two ships may overlap or, under the no-touch rule, touch,
+ * and the ships must make up the expected fleet. Ships are checked one at a
+ * time against a bitboard of the ships before them, so a record costs a few
+ * bit operations per ship cell; the ship a conflict is with is only looked
+ * for once a conflict is found. Boards may be at most FleetLayout.MAX_SIZE
+ * on a side. Records come from files of any origin, so nothing is cached per
+ * board size.
+ *
+ * Files are read on the calling thread and checked in chunks of records by a
+ * pool of workers, with a bounded number of chunks in flight, so millions of
+ * records are checked in constant memory. Problems and valid layouts are
+ * reported in file order, at most one problem per record, and a record that
+ * cannot be checked is reported as a problem.
+ *
+ * Run with: java model.LayoutValidator [--no-touch] [--fleet file]
+ * [--threads n] file...
+ */
+public final class LayoutValidator {
+
+    private static final int CHUNK_RECORDS = 4096;
+    private static final int CHUNKS_PER_THREAD = 2;
+
+    private final FleetConfig fleet;
+    private final boolean noTouch;
+    private final Map<Integer, String[]> expectedKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a validator.
+     *
+     * @param fleet   the fleet every record must have, or null for the fleet
+     *                of the dimension of each record's board
+     * @param noTouch true if ships may not touch, diagonally included
+     */
+    public LayoutValidator(FleetConfig fleet, boolean noTouch) {
+        this.fleet = fleet;
+        this.noTouch = noTouch;
+    }
+
+    /**
+     * The Problem class describes why a record is invalid.
+     */
+    public static final class Problem {
+
+        private final long record;
+        private final long line;
+        private final int ship;
+        private final String message;
+
+        Problem(long record, long line, int ship, String message) {
+            this.record = record;
+            this.line = line;
+            this.ship = ship;
+            this.message = message;
+        }
+
+        /**
+         * Returns the number of the invalid record, counted from 1.
+         *
+         * @return the record number
+         */
+        public long getRecord() {
+            return record;
+        }
+
+        /**
+         * Returns the line of the file the record is on, counted from 1.
+         *
+         * @return the line number
+         */
+        public long getLine() {
+            return line;
+        }
+
+        /**
+         * Returns the ship at fault.
+         *
+         * @return the ship index in the record, or -1 if the record as a
+         *         whole is at fault
+         */
+        public int getShip() {
+            return ship;
+        }
+
+        /**
+         * Returns what is wrong.
+         *
+         * @return the message, naming the ship at fault if there is one
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "Record " + record + " (line " + line + "): " + message;
+        }
+    }
+
+    /**
+     * The Summary class counts the records of a validation run.
+     */
+    public static final class Summary {
+
+        private final long records;
+        private final long invalid;
+        private final long nanos;
+
+        Summary(long records, long invalid, long nanos) {
+            this.records = records;
+            this.invalid = invalid;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Returns the number of records read.
+         *
+         * @return the record count
+         */
+        public long getRecords() {
+            return records;
+        }
+
+        /**
+         * Returns the number of invalid records.
+         *
+         * @return the invalid record count
+         */
+        public long getInvalid() {
+            return invalid;
+        }
+
+        /**
+         * Returns the time the run took.
+         *
+         * @return the elapsed time in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    /**
+     * Checks a layout.
+     *
+     * @param layout the layout
+     * @return what is wrong, or null if the layout is valid
+     */
+    public String check(FleetLayout layout) {
+        Problem problem = check(layout, 0, 0);
+        return problem == null ? null : problem.getMessage();
+    }
+
+    private Problem check(FleetLayout layout, long record, long line) {
+        int width = layout.getWidth();
+        int height = layout.getHeight();
+        if (width < 1 || height < 1 || width > FleetLayout.MAX_SIZE || height > FleetLayout.MAX_SIZE) {
+            return new Problem(record, line, -1, "Board size must be between 1x1 and " + FleetLayout.MAX_SIZE + "x"
+                    + FleetLayout.MAX_SIZE + ": " + width + "x" + height);
+        }
+        long[] occupied = new long[(width * height + 63) >>> 6];
+        AdjacencyMask forbidden = noTouch ? new AdjacencyMask(width, height) : null;
+        for (int i = 0; i < layout.getShipCount(); i++) {
+            ShipShape shape = layout.getShape(i);
+            int o = layout.getOrientation(i);
+            int row = layout.getRow(i);
+            int col = layout.getColumn(i);
+            if (o < 0 || o >= shape.getOrientationCount()) {
+                return shipProblem(layout, i, record, line,
+                        "shape " + shape + " has " + shape.getOrientationCount() + " orientations");
+            }
+            if (row < 0 || col < 0 || row + shape.getHeight(o) > height || col + shape.getWidth(o) > width) {
+                return shipProblem(layout, i, record, line, "lies outside the " + width + "x" + height + " board");
+            }
+            if (covers(occupied, shape, o, row, col, width)) {
+                return shipProblem(layout, i, record, line, "overlaps ship " + (conflict(layout, i, 0) + 1));
+            }
+            if (noTouch && covers(forbidden.getBits(), shape, o, row, col, width)) {
+                return shipProblem(layout, i, record, line, "touches ship " + (conflict(layout, i, 1) + 1));
+            }
+            int[] rows = shape.getRowOffsets(o);
+            int[] cols = shape.getColumnOffsets(o);
+            for (int j = 0; j < rows.length; j++) {
+                int bit = (row + rows[j]) * width + col + cols[j];
+                occupied[bit >>> 6] |= 1L << bit;
+            }
+            if (noTouch) {
+                forbidden.addShip(shape, o, row, col);
+            }
+        }
+
+        String[] expected = expectedKeys(width, height);
+        if (expected == null) {
+            return new Problem(record, line, -1, "No fleet is played on a " + width + "x" + height + " board");
+        }
+        String[] keys = new String[layout.getShipCount()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = layout.getShape(i).getKey();
+        }
+        Arrays.sort(keys);
+        if (!Arrays.equals(keys, expected)) {
+            return new Problem(record, line, -1, "Fleet differs from the expected fleet: " + difference(keys, expected));
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a placement that lies on the board covers a cell set in
+     * a bitboard.
+     */
+    private static boolean covers(long[] bits, ShipShape shape, int o, int row, int col, int width) {
+        int[] rows = shape.getRowOffsets(o);
+        int[] cols = shape.getColumnOffsets(o);
+        for (int j = 0; j < rows.length; j++) {
+            int bit = (row + rows[j]) * width + col + cols[j];
+            if ((bits[bit >>> 6] & 1L << bit) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Problem shipProblem(FleetLayout layout, int ship, long record, long line, String message) {
+        return new Problem(record, line, ship, "Ship " + (ship + 1) + " (" + layout.getToken(ship) + "): " + message);
+    }
+
+    /**
+     * Finds the first ship before a given one that is within a distance of
+     * it: 0 for overlapping ships, 1 for touching ones.
+     */
+    private static int conflict(FleetLayout layout, int ship, int distance) {
+        for (int j = 0; j < ship; j++) {
+            if (distance(layout, ship, j) <= distance) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the smallest Chebyshev distance between the cells of two ships.
+     */
+    private static int distance(FleetLayout layout, int a, int b) {
+        int[] aRows = layout.getShape(a).getRowOffsets(layout.getOrientation(a));
+        int[] aCols = layout.getShape(a).getColumnOffsets(layout.getOrientation(a));
+        int[] bRows = layout.getShape(b).getRowOffsets(layout.getOrientation(b));
+        int[] bCols = layout.getShape(b).getColumnOffsets(layout.getOrientation(b));
+        int smallest = Integer.MAX_VALUE;
+        for (int i = 0; i < aRows.length; i++) {
+            for (int j = 0; j < bRows.length; j++) {
+                int rows = Math.abs(layout.getRow(a) + aRows[i] - layout.getRow(b) - bRows[j]);
+                int cols = Math.abs(layout.getColumn(a) + aCols[i] - layout.getColumn(b) - bCols[j]);
+                smallest = Math.min(smallest, Math.max(rows, cols));
+            }
+        }
+        return smallest;
+    }
+
+    /**
+     * Returns the sorted shape keys of the fleet of a board, or null if the
+     * board is not square with an even size and no fleet was given.
+     */
+    private String[] expectedKeys(int width, int height) {
+        if (fleet == null && (width != height || width % 2 != 0)) {
+            return null;
+        }
+        return expectedKeys.computeIfAbsent(fleet == null ? width / 2 : 0, dimension -> {
+            FleetConfig expected = fleet == null ? FleetConfig.forDimension(dimension) : fleet;
+            String[] keys = new String[expected.getShipCount()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = expected.getShape(i).getKey();
+            }
+            Arrays.sort(keys);
+            return keys;
+        });
+    }
+
+    /**
+     * Describes the ships missing from and extra in a fleet.
+     */
+    private static String difference(String[] keys, String[] expected) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (String key : keys) {
+            counts.merge(key, 1, Integer::sum);
+        }
+        for (String key : expected) {
+            counts.merge(key, -1, Integer::sum);
+        }
+        StringBuilder missing = new StringBuilder();
+        StringBuilder extra = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            int count = entry.getValue();
+            if (count != 0) {
+                StringBuilder list = count < 0 ? missing : extra;
+                list.append(list.length() > 0 ? ", " : "").append(Math.abs(count)).append(" x ").append(entry.getKey());
+            }
+        }
+        return (missing.length() > 0 ? "missing " + missing : "")
+                + (missing.length() > 0 && extra.length() > 0 ? "; " : "")
+                + (extra.length() > 0 ? "extra " + extra : "");
+    }
+
+    /**
+     * The problems and, if asked for, the valid layouts of a chunk of
+     * records.
+     */
+    private static final class Chunk {
+        final List<Problem> problems = new ArrayList<>();
+        final List<FleetLayout> layouts = new ArrayList<>();
+    }
+
+    /**
+     * Checks a chunk of records. A record that cannot be parsed or checked
+     * is a problem of its own and does not stop the chunk.
+     */
+    private Chunk checkChunk(String[] lines, long[] lineNumbers, int count, long firstRecord, boolean keepLayouts) {
+        Chunk chunk = new Chunk();
+        for (int i = 0; i < count; i++) {
+            Problem problem;
+            FleetLayout layout = null;
+            try {
+                layout = FleetLayout.parse(lines[i]);
+                problem = check(layout, firstRecord + i, lineNumbers[i]);
+            } catch (RuntimeException e) {
+                problem = new Problem(firstRecord + i, lineNumbers[i], -1, String.valueOf(e.getMessage()));
+            }
+            if (problem != null) {
+                chunk.problems.add(problem);
+            } else if (keepLayouts) {
+                chunk.layouts.add(layout);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Checks every record read from a reader in parallel.
+     *
+     * @param in       the layout file
+     * @param threads  the number of worker threads
+     * @param problems receives the problems in file order, on the calling
+     *                 thread
+     * @return the record counts
+     * @throws IOException if the file cannot be read
+     */
+    public Summary validate(BufferedReader in, int threads, Consumer<Problem> problems) throws IOException {
+        return validate(in, threads, problems, null);
+    }
+
+    /**
+     * Checks every record read from a reader in parallel.
+     *
+     * @param in       the layout file
+     * @param threads  the number of worker threads
+     * @param problems receives the problems in file order, on the calling
+     *                 thread
+     * @param layouts  receives the valid layouts in file order, on the
+     *                 calling thread, or null
+     * @return the record counts
+     * @throws IOException if the file cannot be read
+     */
+    public Summary validate(BufferedReader in, int threads, Consumer<Problem> problems,
+            Consumer<FleetLayout> layouts) throws IOException {
+        AtomicInteger workers = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "layout-validator-" + workers.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        boolean keepLayouts = layouts != null;
+        long start = System.nanoTime();
+        long records = 0;
+        long invalid = 0;
+        try {
+            ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+            String[] lines = new String[CHUNK_RECORDS];
+            long[] lineNumbers = new long[CHUNK_RECORDS];
+            int count = 0;
+            long lineNumber = 0;
+            String line;
+            while (true) {
+                line = in.readLine();
+                if (line != null) {
+                    lineNumber++;
+                    if (!FleetLayout.isRecord(line)) {
+                        continue;
+                    }
+                    lines[count] = line;
+                    lineNumbers[count] = lineNumber;
+                    count++;
+                }
+                if (count == CHUNK_RECORDS || (line == null && count > 0)) {
+                    String[] chunk = lines;
+                    long[] chunkLines = lineNumbers;
+                    int chunkCount = count;
+                    long firstRecord = records + 1;
+                    inFlight.add(executor.submit(
+                            () -> checkChunk(chunk, chunkLines, chunkCount, firstRecord, keepLayouts)));
+                    records += count;
+                    lines = new String[CHUNK_RECORDS];
+                    lineNumbers = new long[CHUNK_RECORDS];
+                    count = 0;
+                    if (inFlight.size() >= threads * CHUNKS_PER_THREAD) {
+                        invalid += report(inFlight.poll(), problems, layouts);
+                    }
+                }
+                if (line == null) {
+                    break;
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                invalid += report(inFlight.poll(), problems, layouts);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Summary(records, invalid, System.nanoTime() - start);
+    }
+
+    private static int report(Future<Chunk> future, Consumer<Problem> problems, Consumer<FleetLayout> layouts)
+            throws IOException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Validation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Validation failed", e.getCause());
+        }
+        chunk.problems.forEach(problems);
+        if (layouts != null) {
+            chunk.layouts.forEach(layouts);
+        }
+        return chunk.problems.size();
+    }
+
+    /**
+     * Validates layout files and prints every invalid record and a summary.
+     * Exits with status 1 if a record is invalid.
+     *
+     * @param args the options and files; "-" reads standard input
+     * @throws IOException if a file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        boolean noTouch = false;
+        FleetConfig fleet = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--no-touch")) {
+                noTouch = true;
+            } else if (args[i].equals("--fleet") && i + 1 < args.length) {
+                fleet = FleetConfig.parse(Files.readAllLines(Paths.get(args[++i])));
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            } else {
+                files.add(args[i]);
+            }
+        }
+        if (files.isEmpty()) {
+            System.out.println("Usage: java model.LayoutValidator [--no-touch] [--fleet file] [--threads n] file...");
+            return;
+        }
+
+        LayoutValidator validator = new LayoutValidator(fleet, noTouch);
+        long invalid = 0;
+        for (String file : files) {
+            try (BufferedReader in = file.equals("-")
+                    ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                    : Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+                Summary summary = validator.validate(in, threads,
+                        problem -> System.out.println(file + ": " + problem));
+                System.out.printf("%s: %d records, %d invalid, %.0f records/s%n", file, summary.getRecords(),
+                        summary.getInvalid(), summary.getRecords() * 1e9 / Math.max(1, summary.getNanos()));
+                invalid += summary.getInvalid();
+            }
+        }
+        if (invalid > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The LongLongMap class is an open-addressing hash map from non-negative long
+ * keys to long values, laid out like IntIntMap. LayoutCounter memoises
+ * millions of search states in it, where a map of boxed Longs would take
+ * several times the memory.
+ */
+class LongLongMap {
+
+    private static final long EMPTY = -1;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * Constructs a map sized for the expected number of entries.
+     *
+     * @param expected the expected number of entries
+     */
+    LongLongMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Returns the value stored for a key.
+     *
+     * @param key          the key
+     * @param defaultValue the value returned when the key is absent
+     * @return the stored value, or defaultValue
+     */
+    long get(long key, long defaultValue) {
+        for (int i = slot(key);; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            if (keys[i] == EMPTY) {
+                return defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Stores a value for a key, replacing any previous value.
+     *
+     * @param key   the key, must not be negative
+     * @param value the value
+     */
+    void put(long key, long value) {
+        if ((size + 1) * 2 > keys.length) {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            allocate(keys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+        int i = slot(key);
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            size++;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the entry count
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the approximate memory used by the two arrays.
+     *
+     * @return the footprint in bytes
+     */
+    long footprintBytes() {
+        return 16L * keys.length;
+    }
+}
@@ -0,0 +1,239 @@
+package model;
+
+import java.util.Arrays;
+
+import diagnostics.Log;
+
+/**
+ * The MatchClock class times a match with the monotonic System.nanoTime clock.
+ * It records how long every turn took for each side and can enforce
+ * chess-style time controls: a limit per move and a total bank per side. A
+ * value of 0 disables either control.
+ *
+ * Time controls are read once at startup from the
+ * {@code battleship.timeControl} system property as
+ * "perMoveSeconds/bankSeconds", e.g. "10/300". An invalid value is reported
+ * and ignored.
+ *
+ * Only one turn runs at a time; starting a turn ends the previous one.
+ */
+public class MatchClock {
+
+    /** The human player. */
+    public static final int PLAYER = 0;
+    /** The computer opponent. */
+    public static final int COMPUTER = 1;
+
+    private static volatile long propertyPerMoveMillis;
+    private static volatile long propertyBankMillis;
+
+    private final long perMoveNanos;
+    private final long bankNanos;
+    private final long[] usedNanos = new long[2];
+    private final long[][] turnNanos = { new long[16], new long[16] };
+    private final int[] turnCount = new int[2];
+    private long startNanos;
+    private long stopNanos;
+    private long turnStartNanos;
+    private int turnSide = -1;
+
+    /**
+     * Constructs a clock with the given time controls.
+     *
+     * @param perMoveMillis the limit per move in milliseconds, 0 for none
+     * @param bankMillis    the total time per side in milliseconds, 0 for none
+     */
+    public MatchClock(long perMoveMillis, long bankMillis) {
+        perMoveNanos = perMoveMillis * 1_000_000L;
+        bankNanos = bankMillis * 1_000_000L;
+    }
+
+    /**
+     * Reads the time controls of the battleship.timeControl system property.
+     * Without a valid value, clocks have no time controls.
+     */
+    public static void readProperty() {
+        String property = System.getProperty("battleship.timeControl");
+        propertyPerMoveMillis = 0;
+        propertyBankMillis = 0;
+        if (property == null) {
+            return;
+        }
+        String[] parts = property.trim().split("/");
+        try {
+            if (parts.length > 2) {
+                throw new NumberFormatException("more than two values");
+            }
+            long perMove = parseSeconds(parts[0]);
+            long bank = parts.length > 1 ? parseSeconds(parts[1]) : 0;
+            propertyPerMoveMillis = perMove;
+            propertyBankMillis = bank;
+        } catch (NumberFormatException e) {
+            Log.warn("Ignoring battleship.timeControl={}: {}", property, e.getMessage());
+        }
+    }
+
+    private static long parseSeconds(String text) {
+        double seconds = Double.parseDouble(text.trim());
+        if (!(seconds >= 0 && seconds <= Integer.MAX_VALUE)) {
+            throw new NumberFormatException("not a number of seconds: " + text);
+        }
+        return (long) (seconds * 1000);
+    }
+
+    /**
+     * Constructs a clock with the time controls read by readProperty, or none
+     * if they were not read or not valid.
+     *
+     * @return a new clock
+     */
+    public static MatchClock fromProperty() {
+        return new MatchClock(propertyPerMoveMillis, propertyBankMillis);
+    }
+
+    /**
+     * Starts the match and the first turn.
+     *
+     * @param side the side to move first
+     */
+    public void start(int side) {
+        startNanos = System.nanoTime();
+        stopNanos = 0;
+        startTurn(side);
+    }
+
+    /**
+     * Ends the running turn, if any, and starts a turn for the given side.
+     *
+     * @param side PLAYER or COMPUTER
+     */
+    public void startTurn(int side) {
+        endTurn();
+        turnSide = side;
+        turnStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Ends the running turn and records its duration.
+     *
+     * @return the duration of the turn in nanoseconds, or 0 if no turn was
+     *         running
+     */
+    public long endTurn() {
+        if (turnSide < 0) {
+            return 0;
+        }
+        long duration = System.nanoTime() - turnStartNanos;
+        usedNanos[turnSide] += duration;
+        if (turnCount[turnSide] == turnNanos[turnSide].length) {
+            turnNanos[turnSide] = Arrays.copyOf(turnNanos[turnSide], turnCount[turnSide] * 2);
+        }
+        turnNanos[turnSide][turnCount[turnSide]++] = duration;
+        turnSide = -1;
+        return duration;
+    }
+
+    /**
+     * Stops the match clock.
+     */
+    public void stop() {
+        endTurn();
+        if (startNanos != 0 && stopNanos == 0) {
+            stopNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Returns the time since the match started, frozen once it stops.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        if (startNanos == 0) {
+            return 0;
+        }
+        return (stopNanos != 0 ? stopNanos : System.nanoTime()) - startNanos;
+    }
+
+    /**
+     * Returns the time a side has used, including its running turn.
+     *
+     * @param side PLAYER or COMPUTER
+     * @return the used time in nanoseconds
+     */
+    public long getUsedNanos(int side) {
+        long used = usedNanos[side];
+        if (turnSide == side) {
+            used += System.nanoTime() - turnStartNanos;
+        }
+        return used;
+    }
+
+    /**
+     * Returns the time left in a side's bank.
+     *
+     * @param side PLAYER or COMPUTER
+     * @return the remaining bank in nanoseconds, or Long.MAX_VALUE without a
+     *         bank
+     */
+    public long getRemainingBankNanos(int side) {
+        return bankNanos == 0 ? Long.MAX_VALUE : Math.max(0, bankNanos - getUsedNanos(side));
+    }
+
+    /**
+     * Returns the time a side may spend on its next move: the smaller of the
+     * per-move limit and its remaining bank. Opponents use this as their
+     * search budget.
+     *
+     * @param side PLAYER or COMPUTER
+     * @return the budget in nanoseconds, or Long.MAX_VALUE without controls
+     */
+    public long getMoveBudgetNanos(int side) {
+        long budget = getRemainingBankNanos(side);
+        return perMoveNanos == 0 ? budget : Math.min(perMoveNanos, budget);
+    }
+
+    /**
+     * Checks whether the side to move has run out of time on its current turn
+     * or in its bank.
+     *
+     * @param side PLAYER or COMPUTER
+     * @return true if the side has exceeded a time control
+     */
+    public boolean isOverTime(int side) {
+        if (turnSide == side && perMoveNanos != 0 && System.nanoTime() - turnStartNanos > perMoveNanos) {
+            return true;
+        }
+        return bankNanos != 0 && getUsedNanos(side) > bankNanos;
+    }
+
+    /**
+     * Checks whether a bank is configured.
+     *
+     * @return true if each side has a limited bank
+     */
+    public boolean hasBank() {
+        return bankNanos != 0;
+    }
+
+    /**
+     * Returns the recorded durations of a side's completed turns.
+     *
+     * @param side PLAYER or COMPUTER
+     * @return the turn durations in nanoseconds, oldest first
+     */
+    public long[] getTurnDurations(int side) {
+        return Arrays.copyOf(turnNanos[side], turnCount[side]);
+    }
+
+    /**
+     * Formats a duration as hh:mm:ss.
+     *
+     * @param nanos the duration in nanoseconds
+     * @return the formatted duration
+     */
+    public static String format(long nanos) {
+        long seconds = nanos / 1_000_000_000L;
+        return String.format("%02d:%02d:%02d", seconds / 3600, (seconds % 3600) / 60, seconds % 60);
+    }
+}
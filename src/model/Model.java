@@ -6,6 +6,9 @@ import java.awt.event.MouseEvent;
 import java.util.Arrays;
 import java.util.Random;
 import controller.Controller;
+import diagnostics.EngineStats;
+import diagnostics.GameEvents;
+import diagnostics.Log;
 import miscellaneous.Misc;
 
 /**
@@ -30,76 +33,30 @@ import miscellaneous.Misc;
  */
 public class Model {
 
+    private static final int MAX_PLACEMENT_TRIES = 500;
+    private static final int MAX_PLACEMENT_RESTARTS = 50;
+
     private PlayerBoard playerBoard;
     private ComputerBoard computerBoard;
+    private SparseBoard megaBoard;
     private int dimension, playerShipCount, computerShipCount, maxShipCount;
     private Color[] colorSet = { Misc.UNSELECTED_COLOR, Misc.HIT_COLOR, Misc.MISSED_COLOR };
     private Controller controller;
     private Ship currentShip;
     private boolean isAppropriateForShip;
+    private boolean noTouch;
 
     private MouseAdapter mouseAdapter = new MouseAdapter() {
 
         public void mouseEntered(MouseEvent e) {
             Coordinate coordinate = (Coordinate) e.getSource();
-            int row = coordinate.getRow();
-            int column = coordinate.getColumn();
-
-            int shipStart, shipEnd;
-            if (currentShip.isHorizontal()) {
-                shipStart = column;
-                shipEnd = column + currentShip.getLength();
-            } else {
-                shipStart = row;
-                shipEnd = row + currentShip.getLength();
-            }
-
-            for (int i = shipStart; i < shipEnd; i++) {
-
-                String coordinateName = Misc.ALPHABET[currentShip.isHorizontal() ? i : column] + ""
-                        + (currentShip.isHorizontal() ? row : i);
-                Coordinate tempCoordinate = playerBoard.getCoordinate(coordinateName);
-
-                if (tempCoordinate == null || tempCoordinate.isOccupied()) {
-                    for (int j = shipStart; j < i; j++) {
-                        String coordinateName_1 = Misc.ALPHABET[currentShip.isHorizontal() ? j : column] + ""
-                                + (currentShip.isHorizontal() ? row : j);
-                        playerBoard.getCoordinate(coordinateName_1).setBackground(Color.RED);
-                    }
-                    isAppropriateForShip = false;
-                    return;
-                }
-                tempCoordinate.setHover();
-            }
-            isAppropriateForShip = true;
+            showPreview(coordinate.getRow(), coordinate.getColumn());
         }
 
         @Override
         public void mouseExited(MouseEvent e) {
             Coordinate coordinate = (Coordinate) e.getSource();
-            int row = coordinate.getRow();
-            int column = coordinate.getColumn();
-
-            int shipStart, shipEnd;
-
-            if (currentShip.isHorizontal()) {
-                shipStart = column;
-                shipEnd = column + currentShip.getLength();
-            } else {
-                shipStart = row;
-                shipEnd = row + currentShip.getLength();
-            }
-
-            if (!coordinate.isOccupied()) {
-                for (int i = shipStart; i < shipEnd; i++) {
-                    String coordinateName = Misc.ALPHABET[currentShip.isHorizontal() ? i : column] + ""
-                            + (currentShip.isHorizontal() ? row : i);
-                    Coordinate tempCoordinate = playerBoard.getCoordinate(coordinateName);
-                    if (tempCoordinate != null && !tempCoordinate.isOccupied()) {
-                        tempCoordinate.setBackground(Misc.UNSELECTED_COLOR);
-                    }
-                }
-            }
+            clearPreview(coordinate.getRow(), coordinate.getColumn());
         }
 
         @Override
@@ -107,42 +64,10 @@ public class Model {
 
             Coordinate coordinate = (Coordinate) e.getSource();
             if (e.getButton() == MouseEvent.BUTTON3) {
-                int row = coordinate.getRow();
-                int column = coordinate.getColumn();
-                int shipStart = currentShip.isHorizontal() ? column : row;
-                int shipEnd = shipStart + currentShip.getLength();
-
-                for (int i = shipStart + 1; i < shipEnd; i++) {
-                    String coordinateName = Misc.ALPHABET[currentShip.isHorizontal() ? i : column] + "" +
-                            (currentShip.isHorizontal() ? row : i);
-                    Coordinate tempCoordinate = playerBoard.getCoordinate(coordinateName);
-
-                    if (tempCoordinate != null && !tempCoordinate.isOccupied()) {
-                        System.out.println(coordinateName);
-                        tempCoordinate.setBackground(Misc.UNSELECTED_COLOR);
-                    }
-                }
-
+                clearPreview(coordinate.getRow(), coordinate.getColumn());
                 currentShip.switchAlignment();
-                shipStart = currentShip.isHorizontal() ? column : row;
-                shipEnd = shipStart + currentShip.getLength();
-
-                for (int i = shipStart; i < shipEnd; i++) {
-                    String coordinateName = Misc.ALPHABET[currentShip.isHorizontal() ? i : column] + "" +
-                            (currentShip.isHorizontal() ? row : i);
-                    Coordinate tempCoordinate = playerBoard.getCoordinate(coordinateName);
-
-                    if (tempCoordinate == null || tempCoordinate.isOccupied()) {
-                        for (int j = shipStart; j < i; j++) {
-                            String coordinateName_1 = Misc.ALPHABET[currentShip.isHorizontal() ? j : column] + "" +
-                                    (currentShip.isHorizontal() ? row : j);
-                            playerBoard.getCoordinate(coordinateName_1).setBackground(Color.RED);
-                        }
-                        isAppropriateForShip = false;
-                        return;
-                    }
-                    tempCoordinate.setHover();
-                }
+                Log.debug("Turned ship to orientation {}", currentShip.getOrientation());
+                showPreview(coordinate.getRow(), coordinate.getColumn());
 
             } else if (e.getButton() == MouseEvent.BUTTON1) {
                 if (isAppropriateForShip) {
@@ -159,6 +84,49 @@ public class Model {
 
     };
 
+    /**
+     * Previews the current ship with its bounding box at the hovered cell:
+     * its free cells are highlighted if the ship can be placed there, and
+     * painted red otherwise.
+     *
+     * @param row    the row of the hovered coordinate
+     * @param column the column of the hovered coordinate
+     */
+    private void showPreview(int row, int column) {
+        isAppropriateForShip = isSuitableForShip(playerBoard, currentShip, row, column);
+        int orientation = currentShip.getOrientation();
+        int[] rows = currentShip.getShape().getRowOffsets(orientation);
+        int[] cols = currentShip.getShape().getColumnOffsets(orientation);
+        for (int i = 0; i < rows.length; i++) {
+            Coordinate cell = playerBoard.getCoordinate(row + rows[i], column + cols[i]);
+            if (cell != null && !cell.isOccupied()) {
+                if (isAppropriateForShip) {
+                    cell.setHover();
+                } else {
+                    cell.setBackground(Color.RED);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the preview of the current ship at the hovered cell.
+     *
+     * @param row    the row of the hovered coordinate
+     * @param column the column of the hovered coordinate
+     */
+    private void clearPreview(int row, int column) {
+        int orientation = currentShip.getOrientation();
+        int[] rows = currentShip.getShape().getRowOffsets(orientation);
+        int[] cols = currentShip.getShape().getColumnOffsets(orientation);
+        for (int i = 0; i < rows.length; i++) {
+            Coordinate cell = playerBoard.getCoordinate(row + rows[i], column + cols[i]);
+            if (cell != null && !cell.isOccupied()) {
+                cell.setBackground(Misc.UNSELECTED_COLOR);
+            }
+        }
+    }
+
     /**
      * Constructs a Model object with default dimension and boards.
      */
@@ -168,83 +136,150 @@ public class Model {
     }
 
     /**
-     * Generates ships for the specified board based on the dimension.
+     * Generates ships for the specified board: the FleetConfig of the
+     * dimension, each ship in a random orientation.
      * 
      * @param board the Board object to generate ships for
      */
     public void generateShip(Board board) {
-        int index = 0;
+        FleetConfig fleet = FleetConfig.forDimension(dimension);
         Random rand = new Random();
-        for (int i = dimension; i >= 1; i--) {
-            for (int j = 0; j < dimension - i + 1; j++) {
-                board.setShip(index, i, rand.nextBoolean());
-                index++;
-            }
+        for (int index = 0; index < fleet.getShipCount(); index++) {
+            ShipShape shape = fleet.getShape(index);
+            board.setShip(index, shape, rand.nextInt(shape.getOrientationCount()));
         }
         playerShipCount = computerShipCount = maxShipCount = board.getShipCount();
     }
 
     /**
-     * Checks if the specified range of coordinates is suitable for placing a ship
-     * of the given length.
+     * Checks if a ship in its current orientation can be placed with the
+     * top-left corner of its bounding box at the given coordinate: it must lie
+     * on the board and cover no occupied coordinate, nor, under the no-touch
+     * rule, any coordinate next to a ship. The check is one test of the
+     * shape's precomputed placement mask against the board's occupied or
+     * forbidden bitboard.
      *
-     * @param board        the board on which the ship is being placed
-     * @param row          the row index of the starting coordinate
-     * @param col          the column index of the starting coordinate
-     * @param length       the length of the ship
-     * @param isHorizontal true if the ship should be placed horizontally, false if
-     *                     vertically
-     * @return true if the range is suitable for placing a ship of the given length,
-     *         false otherwise
+     * @param board the board on which the ship is being placed
+     * @param ship  the ship to place
+     * @param row   the row index of the starting coordinate
+     * @param col   the column index of the starting coordinate
+     * @return true if the ship can be placed there, false otherwise
      */
     public boolean isSuitableForShip(Board board, Ship ship, int row, int col) {
-
-        Coordinate[][] coordinatesArray = board.getCoordinateArray();
-        if (ship.isHorizontal()) {
-            if (col + ship.getLength() > coordinatesArray[row].length) {
-                return false; // Range exceeds the board dimensions
-            }
-            for (int i = col; i < col + ship.getLength(); i++) {
-                if (coordinatesArray[row][i].isOccupied()) {
-                    return false; // Range contains a coordinate that is already occupied
-                }
-            }
-
-        } else {
-            if (row + ship.getLength() > coordinatesArray.length) {
-                return false; // Range exceeds the board dimensions
-            }
-            for (int i = row; i < row + ship.getLength(); i++) {
-                if (coordinatesArray[i][col].isOccupied()) {
-                    return false; // Range contains a coordinate that is already occupied
-                }
-            }
-        }
-        return true; // Range is suitable for placing a ship of the given length
+        ShapeMasks masks = ship.getShape().getMasks(board.getGridWidth(), board.getGridWidth());
+        long[] blocked = board.isNoTouch() ? board.getForbiddenMask().getBits() : board.getOccupiedMask();
+        return row >= 1 && col >= 1 && masks.fits(blocked, ship.getOrientation(), row, col);
     }
 
     /**
-     * Randomly places the ships on the board.
+     * Randomly places the ships on the board. Every layout is equally likely,
+     * as drawn by UniformPlacement ahead of time in the LayoutPool, under the
+     * board's no-touch rule. When the pool has no layout ready, the ships are
+     * placed one by one instead, which is quick but not quite uniform. That
+     * gives up after MAX_PLACEMENT_RESTARTS restarts, so that it never holds
+     * up the EDT for long.
      *
      * @param board the Board object representing the game board
+     * @throws IllegalStateException if no layout without touching ships was
+     *                               found
      */
     public void randomizeShip(Board board) {
+        GameEvents.Placement event = new GameEvents.Placement();
+        event.begin();
+
         generateShip(board);
+        FleetLayout layout = LayoutPool.shared().take(dimension, board.isNoTouch());
+        if (layout != null) {
+            placeLayout(board, layout);
+            updateHealth(board);
+            event.end();
+            if (event.shouldCommit()) {
+                // A pooled layout tries no positions here, so attempts stays unset.
+                event.board = board.getName();
+                event.ships = board.getShipCount();
+                event.commit();
+            }
+            return;
+        }
         Random rand = new Random();
 
-        for (Ship ship : board.getShips()) {
-            boolean shipPlaced = false;
-            while (!shipPlaced) {
-                int randRow = 1 + rand.nextInt(2 * dimension);
-                int randCol = 1 + rand.nextInt(2 * dimension);
-                if (isSuitableForShip(board, ship, randRow, randCol)) {
-                    setShip(board, ship, randRow, randCol);
-                    break;
-                }
+        Ship[] ships = board.getShips();
+        int[] rows = new int[ships.length];
+        int[] cols = new int[ships.length];
+        int[] orientations = new int[ships.length];
+        int attempts = 0;
+
+        // Plan the layout on bitboards first, starting over when a ship finds no room.
+        int tries;
+        for (int restart = 0; (tries = planLayout(board, ships, rows, cols, orientations, rand)) < 0; restart++) {
+            attempts += -tries;
+            if (restart == MAX_PLACEMENT_RESTARTS) {
+                EngineStats.get().placementRetries(attempts);
+                throw new IllegalStateException("No layout without touching ships found on " + board.getName());
+            }
+        }
+        attempts += tries;
+        for (int i = 0; i < ships.length; i++) {
+            while (ships[i].getOrientation() != orientations[i]) {
+                ships[i].switchAlignment();
             }
+            setShip(board, ships[i], rows[i], cols[i]);
         }
 
         updateHealth(board);
+        EngineStats.get().placementRetries(attempts - board.getShipCount());
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.board = board.getName();
+            event.ships = board.getShipCount();
+            event.attempts = attempts;
+            event.commit();
+        }
+    }
+
+    /**
+     * Chooses a random position and orientation for every ship on scratch
+     * bitboards, honouring the board's no-touch rule. Gives up when a ship
+     * finds no room within MAX_PLACEMENT_TRIES tries.
+     *
+     * @param board        the board to plan for
+     * @param ships        the ships, in placement order
+     * @param rows         receives the top row of each ship
+     * @param cols         receives the left column of each ship
+     * @param orientations receives the orientation of each ship
+     * @param rand         the random source
+     * @return the number of tries taken, negated if some ship found no room
+     */
+    private int planLayout(Board board, Ship[] ships, int[] rows, int[] cols, int[] orientations, Random rand) {
+        int width = board.getGridWidth();
+        long[] occupied = new long[board.getOccupiedMask().length];
+        AdjacencyMask forbidden = new AdjacencyMask(width, width);
+        long[] blocked = board.isNoTouch() ? forbidden.getBits() : occupied;
+        int total = 0;
+        for (int i = 0; i < ships.length; i++) {
+            ShipShape shape = ships[i].getShape();
+            ShapeMasks masks = shape.getMasks(width, width);
+            int tries = 0;
+            int orientation;
+            int row;
+            int col;
+            do {
+                if (++tries > MAX_PLACEMENT_TRIES) {
+                    return -(total + MAX_PLACEMENT_TRIES);
+                }
+                orientation = rand.nextInt(shape.getOrientationCount());
+                row = 1 + rand.nextInt(2 * dimension);
+                col = 1 + rand.nextInt(2 * dimension);
+            } while (!masks.fits(blocked, orientation, row, col));
+            masks.place(occupied, orientation, row, col);
+            forbidden.addShip(shape, orientation, row, col);
+            rows[i] = row;
+            cols[i] = col;
+            orientations[i] = orientation;
+            total += tries;
+        }
+        return total;
     }
 
     /**
@@ -256,9 +291,72 @@ public class Model {
         randomizeShip(playerBoard);
     }
 
+    /**
+     * Replaces the computer board with one whose ships are placed as in the
+     * given layout, e.g. one found by HardPlacement.
+     *
+     * @param layout a board of the current dimension with the computer fleet
+     *               placed, ships in the order of generateShip; the fleet
+     *               must be made of straight ships
+     */
+    public void placeComputerShips(SparseBoard layout) {
+        computerBoard = new ComputerBoard(dimension, colorSet, "CPU", controller);
+        applyRules(computerBoard);
+        int playerShips = playerShipCount;
+        generateShip(computerBoard);
+        // Only the computer's fleet is replaced; in design mode the player's
+        // count is the index of the ship being placed.
+        playerShipCount = playerShips;
+        Ship[] ships = computerBoard.getShips();
+        for (int i = 0; i < ships.length; i++) {
+            if (ships[i].isHorizontal() != layout.isHorizontal(i)) {
+                ships[i].switchAlignment();
+            }
+            int start = layout.getShipCells(i)[0];
+            setShip(computerBoard, ships[i], start / layout.getWidth() + 1, start % layout.getWidth() + 1);
+        }
+        updateHealth(computerBoard);
+    }
+
+    /**
+     * Sets new boards with the player's ships placed as in a layout, e.g. one
+     * loaded from a layout file, and the computer's placed at random.
+     *
+     * @param layout a layout of the current dimension that LayoutValidator
+     *               accepts for the fleet of the dimension
+     */
+    public void placePlayerShips(FleetLayout layout) {
+        setNewBoards();
+        randomizeShip(computerBoard);
+        placeLayout(playerBoard, layout);
+        updateHealth(playerBoard);
+    }
+
+    /**
+     * Places the ships of a board as in a layout, keeping them largest first
+     * as generateShip orders them.
+     *
+     * @param board  a board with no ships placed yet
+     * @param layout a valid layout of the fleet of the dimension
+     */
+    private void placeLayout(Board board, FleetLayout layout) {
+        Integer[] order = new Integer[layout.getShipCount()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> layout.getShape(b).getSize() - layout.getShape(a).getSize());
+        for (int index = 0; index < order.length; index++) {
+            board.setShip(index, layout.getShape(order[index]), layout.getOrientation(order[index]));
+        }
+        Ship[] ships = board.getShips();
+        for (int index = 0; index < order.length; index++) {
+            setShip(board, ships[index], layout.getRow(order[index]) + 1, layout.getColumn(order[index]) + 1);
+        }
+    }
+
     /**
      * Sets the ships on the board based on the specified starting coordinate and
-     * orientation.
+     * orientation: the top-left corner of the bounding box of the ship's shape.
      * 
      * @param board      the Board object on which to set the ships
      * @param ship       the Ship object to set
@@ -269,44 +367,131 @@ public class Model {
      */
     public void setShip(Board board, Ship ship, int randRow, int randCol) {
         Coordinate[][] coordinatesArray = board.getCoordinateArray();
+        ShapeMasks masks = ship.getShape().getMasks(board.getGridWidth(), board.getGridWidth());
+        int orientation = ship.getOrientation();
+        int[] rows = ship.getShape().getRowOffsets(orientation);
+        int[] cols = ship.getShape().getColumnOffsets(orientation);
         int length = ship.getLength();
-        if (ship.isHorizontal()) {
-            for (int i = randCol; i < randCol + length; i++) {
-                coordinatesArray[randRow][i].setOccupied(length);
-                ship.setCoordinate(coordinatesArray[randRow][i]);
-            }
-        } else {
-            for (int i = randRow; i < randRow + length; i++) {
-                coordinatesArray[i][randCol].setOccupied(length);
-                ship.setCoordinate(coordinatesArray[i][randCol]);
-
-            }
+        for (int i = 0; i < rows.length; i++) {
+            Coordinate coordinate = coordinatesArray[randRow + rows[i]][randCol + cols[i]];
+            coordinate.setOccupied(length);
+            ship.setCoordinate(coordinate);
         }
+
+        long[] mask = masks.newBitboard();
+        masks.place(mask, orientation, randRow, randCol);
+        ship.setMask(mask);
+        masks.place(board.getOccupiedMask(), orientation, randRow, randCol);
+        board.getForbiddenMask().addShip(ship.getShape(), orientation, randRow, randCol);
     }
 
     /**
-     * Receives a shot on the specified board at the given coordinate.
+     * Receives a shot on the specified board at the given cell.
      * 
-     * @param board      the Board object to receive the shot on
-     * @param coordinate the Coordinate object representing the shot coordinate
+     * @param board  the Board object to receive the shot on
+     * @param cellId the id of the cell being shot
      * @return true if the shot hits a ship, false otherwise
      */
-    public boolean receiveShot(Board board, Coordinate coordinate) {
+    public boolean receiveShot(Board board, int cellId) {
+        long start = System.nanoTime();
+        Coordinate coordinate = board.getCoordinate(cellId);
+        board.countShot();
         for (Ship ship : board.getShips()) {
-            int hit = Arrays.binarySearch(ship.getCoordinates(), coordinate);
-            if (hit >= 0) {
+            if (ship.covers(cellId)) {
                 coordinate.setHit();
                 ship.decreaseHealth();
                 if (ship.isShipDestroyed()) {
                     destroyShip(board, ship);
                 }
+                commitShotEvent(board, coordinate, ship.isShipDestroyed() ? "Sunk" : "Hit", start);
                 return true;
             }
         }
         coordinate.setMissed();
+        commitShotEvent(board, coordinate, "Missed", start);
         return false;
     }
 
+    /**
+     * Resolves a salvo on the specified board in one call. Every cell is
+     * marked, then the ships sunk by the volley are destroyed and the health
+     * is updated once for the whole volley. The cells request their own
+     * repaints, which Swing merges into one paint of the board.
+     * 
+     * @param board   the Board object to receive the volley on
+     * @param cellIds the distinct ids of the cells shot, none shot before
+     * @return the result of each shot: SparseBoard.MISSED, HIT, or SUNK for
+     *         the shot that completed the destruction of a ship
+     */
+    public int[] receiveVolley(Board board, int[] cellIds) {
+        long start = System.nanoTime();
+        int[] results = new int[cellIds.length];
+        Ship[] sunk = new Ship[cellIds.length];
+        int sunkCount = 0;
+        for (int i = 0; i < cellIds.length; i++) {
+            Coordinate coordinate = board.getCoordinate(cellIds[i]);
+            Ship ship = getShipAt(board, cellIds[i]);
+            board.countShot();
+            if (ship == null) {
+                coordinate.setMissed();
+                results[i] = SparseBoard.MISSED;
+                commitShotEvent(board, coordinate, "Missed", start);
+                continue;
+            }
+            coordinate.setHit();
+            ship.decreaseHealth();
+            if (ship.isShipDestroyed()) {
+                sunk[sunkCount++] = ship;
+                results[i] = SparseBoard.SUNK;
+            } else {
+                results[i] = SparseBoard.HIT;
+            }
+            commitShotEvent(board, coordinate, ship.isShipDestroyed() ? "Sunk" : "Hit", start);
+        }
+        for (int i = 0; i < sunkCount; i++) {
+            sinkShip(board, sunk[i]);
+        }
+        updateHealth(board);
+        return results;
+    }
+
+    /**
+     * Finds the ship covering the specified cell.
+     * 
+     * @param board  the board to search
+     * @param cellId the id of the cell
+     * @return the Ship covering the cell, or null for water
+     */
+    public Ship getShipAt(Board board, int cellId) {
+        for (Ship ship : board.getShips()) {
+            if (ship.covers(cellId)) {
+                return ship;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records a resolved shot in the engine statistics and as a flight recorder
+     * event.
+     *
+     * @param board      the board that received the shot
+     * @param coordinate the coordinate that was shot
+     * @param result     the outcome of the shot
+     * @param start      the System.nanoTime at which resolution started
+     */
+    private void commitShotEvent(Board board, Coordinate coordinate, String result, long start) {
+        EngineStats.get().shotResolved();
+        GameEvents.Shot event = new GameEvents.Shot();
+        if (event.shouldCommit()) {
+            event.board = board.getName();
+            event.cell = coordinate.getName();
+            event.result = result;
+            event.latency = System.nanoTime() - start;
+            event.commit();
+        }
+    }
+
     /**
      * Retrieves the player board.
      * 
@@ -341,17 +526,12 @@ public class Model {
      */
     public void setNewHitColor(Color color) {
         colorSet[1] = color;
-        for (int row = 0; row < (dimension * 2) + 1; row++) {
-            for (int col = 0; col < (dimension * 2) + 1; col++) {
-                if (row != 0 && col != 0) {
-                    String coordinateName = Misc.ALPHABET[row] + Integer.toString(col);
-                    try {
-                        playerBoard.getCoordinate(coordinateName).setHitColor(color);
-                        computerBoard.getCoordinate(coordinateName).setHitColor(color);
-                    } catch (Exception e) {
-                        System.out.println("An error occurred while setting the hit color.");
-                    }
-                }
+        Coordinate[] playerCells = playerBoard.getCells();
+        Coordinate[] computerCells = computerBoard.getCells();
+        for (int cellId = 0; cellId < playerCells.length; cellId++) {
+            if (playerCells[cellId] != null) {
+                playerCells[cellId].setHitColor(color);
+                computerCells[cellId].setHitColor(color);
             }
         }
     }
@@ -372,17 +552,12 @@ public class Model {
      */
     public void setNewMissedColor(Color color) {
         colorSet[2] = color;
-        for (int row = 0; row < (dimension * 2) + 1; row++) {
-            for (int col = 0; col < (dimension * 2) + 1; col++) {
-                if (row != 0 && col != 0) {
-                    String coordinateName = Misc.ALPHABET[row] + Integer.toString(col);
-                    try {
-                        playerBoard.getCoordinate(coordinateName).setMissedColor(color);
-                        computerBoard.getCoordinate(coordinateName).setMissedColor(color);
-                    } catch (Exception e) {
-                        System.out.println("An error occurred while setting the missed color.");
-                    }
-                }
+        Coordinate[] playerCells = playerBoard.getCells();
+        Coordinate[] computerCells = computerBoard.getCells();
+        for (int cellId = 0; cellId < playerCells.length; cellId++) {
+            if (playerCells[cellId] != null) {
+                playerCells[cellId].setMissedColor(color);
+                computerCells[cellId].setMissedColor(color);
             }
         }
     }
@@ -394,19 +569,12 @@ public class Model {
      */
     public void setNewUnselectedColor(Color color) {
         colorSet[0] = color;
-        for (int row = 0; row < (dimension * 2) + 1; row++) {
-            for (int col = 0; col < (dimension * 2) + 1; col++) {
-                if (row != 0 && col != 0) {
-                    String coordinateName = Misc.ALPHABET[row] + Integer.toString(col);
-                    try {
-
-                        playerBoard.getCoordinate(coordinateName).setUnselectedColor(color);
-                        computerBoard.getCoordinate(coordinateName).setUnselectedColor(color);
-
-                    } catch (Exception e) {
-                        System.out.println("An error occurred while setting the unselected color.");
-                    }
-                }
+        Coordinate[] playerCells = playerBoard.getCells();
+        Coordinate[] computerCells = computerBoard.getCells();
+        for (int cellId = 0; cellId < playerCells.length; cellId++) {
+            if (playerCells[cellId] != null) {
+                playerCells[cellId].setUnselectedColor(color);
+                computerCells[cellId].setUnselectedColor(color);
             }
         }
     }
@@ -436,6 +604,17 @@ public class Model {
      * @param ship  the Ship object to destroy
      */
     public void destroyShip(Board board, Ship ship) {
+        sinkShip(board, ship);
+        updateHealth(board);
+    }
+
+    /**
+     * Marks a ship as destroyed and counts it, without updating the health.
+     * 
+     * @param board the Board object on which the ship is destroyed
+     * @param ship  the Ship object to destroy
+     */
+    private void sinkShip(Board board, Ship ship) {
         if (board instanceof PlayerBoard) {
             playerShipCount--;
         } else {
@@ -446,7 +625,13 @@ public class Model {
             coordinate.setDestroyed();
         }
 
-        updateHealth(board);
+        GameEvents.ShipSunk event = new GameEvents.ShipSunk();
+        if (event.shouldCommit()) {
+            event.board = board.getName();
+            event.length = ship.getLength();
+            event.shipsLeft = board instanceof PlayerBoard ? playerShipCount : computerShipCount;
+            event.commit();
+        }
     }
 
     /**
@@ -469,18 +654,94 @@ public class Model {
      */
     public void setDimension(int dimension) {
         this.dimension = dimension;
+        LayoutPool.shared().prefetch(dimension, noTouch);
         setNewBoards();
     }
 
+    /**
+     * Builds the state shared by every board of a dimension: the fleet's
+     * placement masks, the cell names and, for small boards, the exact
+     * layout counter. Safe to call off the EDT, so that setDimension only has
+     * to create the boards.
+     *
+     * @param dimension the dimension about to be set
+     */
+    public static void prepareDimension(int dimension) {
+        FleetConfig fleet = FleetConfig.forDimension(dimension);
+        int width = (dimension * 2) + 1;
+        for (int i = 0; i < fleet.getShipCount(); i++) {
+            fleet.getShape(i).getMasks(width, width);
+        }
+        Board.prepare(dimension);
+        UniformPlacement.counter(dimension);
+        LayoutPool.shared().prefetch(dimension);
+    }
+
     /**
      * Sets new player and computer boards.
      */
     public void setNewBoards() {
         playerBoard = new PlayerBoard(dimension, colorSet, "Player", controller);
         computerBoard = new ComputerBoard(dimension, colorSet, "CPU", controller);
+        applyRules(playerBoard);
+        applyRules(computerBoard);
         playerShipCount = computerShipCount = 0;
     }
 
+    /**
+     * Applies the no-touch rule to a new board, if it is on and the fleet of
+     * the dimension can be placed without touching.
+     *
+     * @param board a board with no ships placed
+     */
+    private void applyRules(Board board) {
+        board.setNoTouch(noTouch && FleetConfig.forDimension(dimension).fitsWithoutTouching(2 * dimension));
+        if (board.isNoTouch()) {
+            LayoutPool.shared().prefetch(dimension, true);
+        }
+    }
+
+    /**
+     * Checks whether ships may not touch each other, diagonally included.
+     *
+     * @return true if the no-touch rule is on
+     */
+    public boolean isNoTouch() {
+        return noTouch;
+    }
+
+    /**
+     * Turns the no-touch rule on or off. Applies to boards created afterwards.
+     *
+     * @param noTouch true to forbid ships from touching
+     */
+    public void setNoTouch(boolean noTouch) {
+        this.noTouch = noTouch;
+        if (noTouch) {
+            LayoutPool.shared().prefetch(dimension, true);
+        }
+    }
+
+    /**
+     * Creates a large headless board with a proportional fleet placed at
+     * random, for the mega board variant.
+     * 
+     * @param size the number of rows and columns
+     */
+    public void newMegaBoard(int size) {
+        megaBoard = new SparseBoard(size, size, SparseBoard.megaFleet(size, size));
+        megaBoard.randomize(new Random());
+    }
+
+    /**
+     * Retrieves the mega board.
+     * 
+     * @return the SparseBoard of the mega board variant, or null
+     */
+    public SparseBoard getMegaBoard() {
+        return megaBoard;
+    }
+
     /**
      * Sets the controller for the model.
      * 
@@ -523,6 +784,7 @@ public class Model {
     public void enterDesignMode() {
         // Create a new player board
         playerBoard = new PlayerBoard(dimension, colorSet, "Player", controller, mouseAdapter);
+        applyRules(playerBoard);
         playerBoard.requestFocusInWindow();
 
         // Generate ships on the player board
@@ -3,7 +3,6 @@ package model;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.event.MouseAdapter;
-import java.util.Map;
 
 import controller.Controller;
 
@@ -64,8 +63,7 @@ public class PlayerBoard extends Board {
      */
     public void addCoordinate(int row, int col, int buttonSize) {
         Coordinate coordinate = new Coordinate(row, col, true, colorSet, mouseAdapter);
-        coordinatesArray[row][col] = coordinate;
-        coordinatesMap.put(coordinate.getName(), coordinate);
+        registerCoordinate(coordinate);
         coordinate.setPreferredSize(new Dimension(buttonSize, buttonSize));
         innerBoard.add(coordinate);
     }
@@ -75,8 +73,10 @@ public class PlayerBoard extends Board {
      * listening, because they are done with DESIGNING
      */
     public void endDesignMode() {
-        for (Map.Entry<String, Coordinate> entry : coordinatesMap.entrySet()) {
-            entry.getValue().endDesignMode();
+        for (Coordinate coordinate : getCells()) {
+            if (coordinate != null) {
+                coordinate.endDesignMode();
+            }
         }
     }
 
@@ -0,0 +1,131 @@
+package model;
+
+/**
+ * The ShapeMasks class holds the bitmask of every placement of a ship shape
+ * on a grid, computed once per shape and grid size. Bit r * width + c of a
+ * bitboard stands for the cell in row r and column c, so a placement is legal
+ * when its mask does not intersect the bitboard of occupied cells, and placing
+ * it is a bitwise or.
+ *
+ * Only the words of the bitboard a placement touches are stored, so the
+ * masks of a shape take a few longs per placement whatever the board size.
+ */
+public final class ShapeMasks {
+
+    private final int width;
+    private final int height;
+    private final int[][] firstWords;
+    private final long[][][] words;
+
+    ShapeMasks(ShipShape shape, int width, int height) {
+        this.width = width;
+        this.height = height;
+        int orientations = shape.getOrientationCount();
+        firstWords = new int[orientations][width * height];
+        words = new long[orientations][width * height][];
+        for (int o = 0; o < orientations; o++) {
+            int[] rows = shape.getRowOffsets(o);
+            int[] cols = shape.getColumnOffsets(o);
+            for (int anchor = 0; anchor < width * height; anchor++) {
+                int row = anchor / width;
+                int col = anchor % width;
+                if (row + shape.getHeight(o) > height || col + shape.getWidth(o) > width) {
+                    firstWords[o][anchor] = -1;
+                    continue;
+                }
+                int first = ((row + rows[0]) * width + col + cols[0]) >>> 6;
+                int last = ((row + rows[rows.length - 1]) * width + col + cols[cols.length - 1]) >>> 6;
+                long[] mask = new long[last - first + 1];
+                for (int i = 0; i < rows.length; i++) {
+                    int bit = (row + rows[i]) * width + col + cols[i];
+                    mask[(bit >>> 6) - first] |= 1L << bit;
+                }
+                firstWords[o][anchor] = first;
+                words[o][anchor] = mask;
+            }
+        }
+    }
+
+    /**
+     * Returns an empty bitboard for the grid.
+     *
+     * @return a new bitboard with no cell set
+     */
+    public long[] newBitboard() {
+        return new long[(width * height + 63) >>> 6];
+    }
+
+    /**
+     * Checks whether the shape, in an orientation with its bounding box at a
+     * cell, lies on the grid without covering any cell of a bitboard.
+     *
+     * @param occupied    the bitboard of occupied cells
+     * @param orientation the orientation
+     * @param row         the top row of the bounding box
+     * @param col         the left column of the bounding box
+     * @return true if the placement is legal
+     */
+    public boolean fits(long[] occupied, int orientation, int row, int col) {
+        if (row < 0 || col < 0 || row >= height || col >= width) {
+            return false;
+        }
+        int anchor = row * width + col;
+        int first = firstWords[orientation][anchor];
+        if (first < 0) {
+            return false;
+        }
+        long[] mask = words[orientation][anchor];
+        for (int i = 0; i < mask.length; i++) {
+            if ((occupied[first + i] & mask[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the cells of a placement in a bitboard. The placement must lie on
+     * the grid.
+     *
+     * @param bitboard    the bitboard to update
+     * @param orientation the orientation
+     * @param row         the top row of the bounding box
+     * @param col         the left column of the bounding box
+     */
+    public void place(long[] bitboard, int orientation, int row, int col) {
+        int anchor = row * width + col;
+        int first = firstWords[orientation][anchor];
+        long[] mask = words[orientation][anchor];
+        for (int i = 0; i < mask.length; i++) {
+            bitboard[first + i] |= mask[i];
+        }
+    }
+
+    /**
+     * Clears the cells of a placement in a bitboard, undoing place.
+     *
+     * @param bitboard    the bitboard to update
+     * @param orientation the orientation
+     * @param row         the top row of the bounding box
+     * @param col         the left column of the bounding box
+     */
+    public void remove(long[] bitboard, int orientation, int row, int col) {
+        int anchor = row * width + col;
+        int first = firstWords[orientation][anchor];
+        long[] mask = words[orientation][anchor];
+        for (int i = 0; i < mask.length; i++) {
+            bitboard[first + i] &= ~mask[i];
+        }
+    }
+
+    /**
+     * Checks whether a cell is set in a bitboard.
+     *
+     * @param bitboard the bitboard
+     * @param bit      the cell, row * width + column
+     * @return true if the cell is set
+     */
+    public static boolean isSet(long[] bitboard, int bit) {
+        return (bitboard[bit >>> 6] & (1L << bit)) != 0;
+    }
+}
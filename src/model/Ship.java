@@ -11,6 +11,11 @@ package model;
  * being destroyed.
  * 
  * The ship can be placed either horizontally or vertically on the game board.
+ * Ships may also have other shapes (see ShipShape), with up to four
+ * orientations; a straight ship's orientation 0 is horizontal.
+ * 
+ * Once placed, the ship keeps a bitmask of the cell ids it covers, which
+ * resolves shots with a single bit test.
  * 
  * This class provides methods to access and modify the ship's attributes.
  * 
@@ -23,7 +28,9 @@ public class Ship {
     private int col;
     private int health;
     private Coordinate[] shipCoordinates;
-    private boolean isHorizontal;
+    private ShipShape shape;
+    private int orientation;
+    private long[] mask;
 
     /**
      * Constructs a Ship object with the specified length.
@@ -31,8 +38,20 @@ public class Ship {
      * @param length the length of the ship
      */
     public Ship(int length, boolean isHorizontal) {
-        this.isHorizontal = isHorizontal;
-        this.length = length;
+        this(ShipShape.line(length), isHorizontal ? 0 : 1);
+    }
+
+    /**
+     * Constructs a Ship object of the specified shape.
+     * 
+     * @param shape       the shape of the ship
+     * @param orientation the initial orientation, from 0 to the shape's
+     *                    orientation count - 1
+     */
+    public Ship(ShipShape shape, int orientation) {
+        this.shape = shape;
+        this.orientation = orientation % shape.getOrientationCount();
+        this.length = shape.getSize();
         this.shipCoordinates = new Coordinate[length];
     }
 
@@ -87,7 +106,44 @@ public class Ship {
      * @return true if the ship is horizontal, false if it is vertical
      */
     public boolean isHorizontal() {
-        return isHorizontal;
+        return orientation == 0;
+    }
+
+    /**
+     * Returns the shape of the ship.
+     * 
+     * @return the shape
+     */
+    public ShipShape getShape() {
+        return shape;
+    }
+
+    /**
+     * Returns the current orientation of the ship's shape.
+     * 
+     * @return the orientation index
+     */
+    public int getOrientation() {
+        return orientation;
+    }
+
+    /**
+     * Sets the bitmask of the cell ids the placed ship covers.
+     * 
+     * @param cells the bitmask, owned by the ship from now on
+     */
+    void setMask(long[] cells) {
+        mask = cells;
+    }
+
+    /**
+     * Checks whether the ship covers a cell.
+     * 
+     * @param cellId the cell id on the ship's board
+     * @return true if the ship is placed and covers the cell
+     */
+    public boolean covers(int cellId) {
+        return mask != null && ShapeMasks.isSet(mask, cellId);
     }
 
     /**
@@ -116,10 +172,11 @@ public class Ship {
     }
 
     /**
-     * Set new status for the ships horizontal or vertical
+     * Set new status for the ships horizontal or vertical. Ships of other
+     * shapes turn a quarter clockwise.
      * 
      */
     public void switchAlignment() {
-        isHorizontal = !isHorizontal;
+        orientation = (orientation + 1) % shape.getOrientationCount();
     }
 }
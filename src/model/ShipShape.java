@@ -0,0 +1,380 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ShipShape class describes the cells of a ship as a polyomino: a set of
+ * cells connected edge to edge. A shape has up to four orientations, its
+ * distinct quarter turns; orientation 0 is the shape as written, so for a
+ * straight ship it is horizontal and orientation 1 is vertical.
+ *
+ * Shapes are written as rows of '#' (ship) and '.' (water) separated by '/',
+ * e.g. "#../###" for an L of four cells. The names "L", "T" and "plus" and a
+ * plain number, for a straight ship of that length, are also accepted.
+ *
+ * The cells of every orientation are stored as row and column offsets from
+ * the top-left corner of its bounding box, in row-major order. Placement is
+ * checked with the ShapeMasks of the shape, cached per grid size.
+ */
+public final class ShipShape {
+
+    /** The L tetromino. */
+    public static final ShipShape L = parse("L");
+    /** The T tetromino. */
+    public static final ShipShape T = parse("T");
+    /** The five-cell cross. */
+    public static final ShipShape PLUS = parse("plus");
+
+    private final String name;
+    private final String key;
+    private final int size;
+    private final int[][] rows;
+    private final int[][] cols;
+    private final int[] heights;
+    private final int[] widths;
+    private final Map<Integer, ShapeMasks> masks = new ConcurrentHashMap<>();
+
+    /**
+     * Holds the straight ships of common lengths, built on first use of the
+     * class, so that worker threads share them without locking.
+     */
+    private static final class Lines {
+        static final ShipShape[] SHAPES = new ShipShape[32];
+
+        static {
+            for (int length = 1; length < SHAPES.length; length++) {
+                SHAPES[length] = new ShipShape(Integer.toString(length), lineGrid(length));
+            }
+        }
+    }
+
+    private ShipShape(String name, boolean[][] grid) {
+        this.name = name;
+        List<boolean[][]> orientations = new ArrayList<>(4);
+        boolean[][] turned = trim(grid);
+        if (turned[0].length == 1) {
+            // A straight ship written upright still starts horizontal.
+            turned = rotate(turned);
+        }
+        for (int turn = 0; turn < 4; turn++) {
+            boolean seen = false;
+            for (boolean[][] orientation : orientations) {
+                seen |= Arrays.deepEquals(orientation, turned);
+            }
+            if (!seen) {
+                orientations.add(turned);
+            }
+            turned = rotate(turned);
+        }
+
+        int count = orientations.size();
+        rows = new int[count][];
+        cols = new int[count][];
+        heights = new int[count];
+        widths = new int[count];
+        int cells = 0;
+        for (int o = 0; o < count; o++) {
+            boolean[][] cellGrid = orientations.get(o);
+            heights[o] = cellGrid.length;
+            widths[o] = cellGrid[0].length;
+            cells = 0;
+            for (boolean[] row : cellGrid) {
+                for (boolean cell : row) {
+                    cells += cell ? 1 : 0;
+                }
+            }
+            rows[o] = new int[cells];
+            cols[o] = new int[cells];
+            int index = 0;
+            for (int r = 0; r < heights[o]; r++) {
+                for (int c = 0; c < widths[o]; c++) {
+                    if (cellGrid[r][c]) {
+                        rows[o][index] = r;
+                        cols[o][index] = c;
+                        index++;
+                    }
+                }
+            }
+        }
+        size = cells;
+
+        // The smallest description of any orientation names the shape whatever way it was written.
+        String smallest = null;
+        for (boolean[][] orientation : orientations) {
+            StringBuilder text = new StringBuilder();
+            for (boolean[] row : orientation) {
+                if (text.length() > 0) {
+                    text.append('/');
+                }
+                for (boolean cell : row) {
+                    text.append(cell ? '#' : '.');
+                }
+            }
+            if (smallest == null || text.toString().compareTo(smallest) < 0) {
+                smallest = text.toString();
+            }
+        }
+        key = smallest;
+    }
+
+    /**
+     * Returns the straight ship of a length.
+     *
+     * @param length the number of cells, at least 1
+     * @return the shared shape
+     */
+    public static ShipShape line(int length) {
+        if (length < Lines.SHAPES.length) {
+            return Lines.SHAPES[length];
+        }
+        return new ShipShape(Integer.toString(length), lineGrid(length));
+    }
+
+    /**
+     * Parses a shape: a number for a straight ship, "L", "T", "plus", or rows
+     * of '#' and '.' separated by '/'.
+     *
+     * @param text the shape
+     * @return the shape
+     * @throws IllegalArgumentException if the text is not a shape, or its cells
+     *                                  are not connected
+     */
+    public static ShipShape parse(String text) {
+        String pattern = text.trim();
+        switch (pattern) {
+            case "L":
+                pattern = "#./#./##";
+                break;
+            case "T":
+                pattern = "###/.#.";
+                break;
+            case "plus":
+                pattern = ".#./###/.#.";
+                break;
+            default:
+                if (pattern.matches("\\d+")) {
+                    int length = Integer.parseInt(pattern);
+                    if (length < 1) {
+                        throw new IllegalArgumentException("Ship length must be positive: " + text);
+                    }
+                    return line(length);
+                }
+                break;
+        }
+
+        String[] lines = pattern.split("/");
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, line.length());
+        }
+        boolean[][] grid = new boolean[lines.length][width];
+        for (int r = 0; r < lines.length; r++) {
+            for (int c = 0; c < lines[r].length(); c++) {
+                char ch = lines[r].charAt(c);
+                if (ch != '#' && ch != '.') {
+                    throw new IllegalArgumentException("Unexpected '" + ch + "' in shape " + text);
+                }
+                grid[r][c] = ch == '#';
+            }
+        }
+        if (!isConnected(grid)) {
+            throw new IllegalArgumentException("Shape cells must be connected: " + text);
+        }
+        return new ShipShape(text.trim(), grid);
+    }
+
+    private static boolean[][] lineGrid(int length) {
+        boolean[][] grid = new boolean[1][length];
+        Arrays.fill(grid[0], true);
+        return grid;
+    }
+
+    /**
+     * Checks that a grid has at least one cell and that its cells are
+     * connected edge to edge.
+     */
+    private static boolean isConnected(boolean[][] grid) {
+        int height = grid.length;
+        int width = grid[0].length;
+        boolean[][] reached = new boolean[height][width];
+        int[] stack = new int[height * width];
+        int top = 0;
+        int total = 0;
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                if (grid[r][c]) {
+                    total++;
+                    if (top == 0 && total == 1) {
+                        reached[r][c] = true;
+                        stack[top++] = r * width + c;
+                    }
+                }
+            }
+        }
+        int found = 0;
+        while (top > 0) {
+            int cell = stack[--top];
+            found++;
+            int r = cell / width;
+            int c = cell % width;
+            int[][] neighbours = { { r - 1, c }, { r + 1, c }, { r, c - 1 }, { r, c + 1 } };
+            for (int[] n : neighbours) {
+                if (n[0] >= 0 && n[0] < height && n[1] >= 0 && n[1] < width && grid[n[0]][n[1]]
+                        && !reached[n[0]][n[1]]) {
+                    reached[n[0]][n[1]] = true;
+                    stack[top++] = n[0] * width + n[1];
+                }
+            }
+        }
+        return total > 0 && found == total;
+    }
+
+    /**
+     * Removes empty rows and columns around the cells of a grid.
+     */
+    private static boolean[][] trim(boolean[][] grid) {
+        int top = grid.length;
+        int bottom = -1;
+        int left = grid[0].length;
+        int right = -1;
+        for (int r = 0; r < grid.length; r++) {
+            for (int c = 0; c < grid[r].length; c++) {
+                if (grid[r][c]) {
+                    top = Math.min(top, r);
+                    bottom = Math.max(bottom, r);
+                    left = Math.min(left, c);
+                    right = Math.max(right, c);
+                }
+            }
+        }
+        boolean[][] trimmed = new boolean[bottom - top + 1][right - left + 1];
+        for (int r = top; r <= bottom; r++) {
+            System.arraycopy(grid[r], left, trimmed[r - top], 0, right - left + 1);
+        }
+        return trimmed;
+    }
+
+    /**
+     * Turns a grid a quarter clockwise.
+     */
+    private static boolean[][] rotate(boolean[][] grid) {
+        int height = grid.length;
+        int width = grid[0].length;
+        boolean[][] turned = new boolean[width][height];
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                turned[c][height - 1 - r] = grid[r][c];
+            }
+        }
+        return turned;
+    }
+
+    /**
+     * Returns the name the shape was written with.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns a description of the shape that is the same for every way of
+     * writing it, e.g. "L" and "###/#.." have the same key. Mirror images
+     * have different keys.
+     *
+     * @return the canonical pattern
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the number of cells of the shape.
+     *
+     * @return the cell count
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct orientations: 1 for a single cell or the
+     * cross, 2 for a straight ship, 4 for L and T.
+     *
+     * @return the orientation count
+     */
+    public int getOrientationCount() {
+        return rows.length;
+    }
+
+    /**
+     * Checks whether the shape is a straight ship.
+     *
+     * @return true if every cell is in one row or in one column
+     */
+    public boolean isLine() {
+        return heights[0] == 1 || widths[0] == 1;
+    }
+
+    /**
+     * Returns the row offsets of the cells of an orientation.
+     *
+     * @param orientation the orientation
+     * @return the offsets, in row-major order of the cells; not to be modified
+     */
+    public int[] getRowOffsets(int orientation) {
+        return rows[orientation];
+    }
+
+    /**
+     * Returns the column offsets of the cells of an orientation.
+     *
+     * @param orientation the orientation
+     * @return the offsets, in row-major order of the cells; not to be modified
+     */
+    public int[] getColumnOffsets(int orientation) {
+        return cols[orientation];
+    }
+
+    /**
+     * Returns the number of rows an orientation spans.
+     *
+     * @param orientation the orientation
+     * @return the height of the bounding box
+     */
+    public int getHeight(int orientation) {
+        return heights[orientation];
+    }
+
+    /**
+     * Returns the number of columns an orientation spans.
+     *
+     * @param orientation the orientation
+     * @return the width of the bounding box
+     */
+    public int getWidth(int orientation) {
+        return widths[orientation];
+    }
+
+    /**
+     * Returns the placement masks of the shape on a grid, computing them on
+     * first use.
+     *
+     * @param width  the number of columns of the grid
+     * @param height the number of rows of the grid
+     * @return the shared masks
+     */
+    public ShapeMasks getMasks(int width, int height) {
+        return masks.computeIfAbsent(width << 16 | height, key -> new ShapeMasks(this, width, height));
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
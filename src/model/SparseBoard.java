@@ -0,0 +1,351 @@
+package model;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import miscellaneous.Misc;
+
+/**
+ * The SparseBoard class is a headless board for large boards (up to
+ * Misc.MEGA_MAX_SIZE cells per side) used by the "mega board" variant and by
+ * stress tests. It creates no Swing components.
+ *
+ * Only occupied cells are stored, in a primitive hash map from cell id to ship
+ * index, so memory grows with the size of the fleet rather than the number of
+ * cells. Shots are kept in a BitSet. Placing a ship costs O(length) and
+ * resolving a shot costs O(1), independent of the board size.
+ *
+ * Cells are numbered row * width + column, with rows and columns starting at
+ * 0 (there are no header cells).
+ */
+public class SparseBoard {
+
+    /** State of a cell that has not been shot. */
+    public static final int UNKNOWN = -1;
+    /** Result of a shot that hit water. */
+    public static final int MISSED = 0;
+    /** Result of a shot that hit a ship that is still afloat. */
+    public static final int HIT = 1;
+    /** Result of a shot that sank a ship. */
+    public static final int SUNK = 2;
+
+    private static final int MAX_ATTEMPTS_PER_SHIP = 100_000;
+
+    private final int width;
+    private final int height;
+    private final int[] lengths;
+    private final int[] starts;
+    private final boolean[] horizontal;
+    private final int[] health;
+    private final IntIntMap occupied;
+    private final BitSet shots = new BitSet();
+    private int shipsLeft;
+
+    /**
+     * Constructs an empty board for the given fleet.
+     *
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @param fleet  the length of every ship
+     */
+    public SparseBoard(int width, int height, int[] fleet) {
+        if (width < 1 || height < 1 || width > Misc.MEGA_MAX_SIZE || height > Misc.MEGA_MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be between 1 and " + Misc.MEGA_MAX_SIZE);
+        }
+        this.width = width;
+        this.height = height;
+        this.lengths = fleet.clone();
+        this.starts = new int[fleet.length];
+        this.horizontal = new boolean[fleet.length];
+        this.health = new int[fleet.length];
+
+        int cells = 0;
+        for (int length : fleet) {
+            cells += length;
+        }
+        occupied = new IntIntMap(cells);
+    }
+
+    /**
+     * Returns a fleet proportional to the board area: the classic 5, 4, 3, 3, 2
+     * fleet once for every 10x10 block, and at least once.
+     *
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @return the ship lengths, longest first
+     */
+    public static int[] megaFleet(int width, int height) {
+        int[] classic = { 5, 4, 3, 3, 2 };
+        int copies = Math.max(1, (width / 10) * (height / 10));
+        int[] fleet = new int[classic.length * copies];
+        for (int i = 0; i < fleet.length; i++) {
+            fleet[i] = classic[i / copies];
+        }
+        return fleet;
+    }
+
+    /**
+     * Places every ship at a random legal position.
+     *
+     * @param random the source of randomness
+     * @return the number of candidate positions tried
+     * @throws IllegalStateException if a ship cannot be placed
+     */
+    public long randomize(Random random) {
+        long attempts = 0;
+        for (int ship = 0; ship < lengths.length; ship++) {
+            int tries = 0;
+            while (true) {
+                attempts++;
+                if (++tries > MAX_ATTEMPTS_PER_SHIP) {
+                    throw new IllegalStateException("Could not place ship " + ship + " of length " + lengths[ship]);
+                }
+                boolean isHorizontal = random.nextBoolean();
+                int rowRange = isHorizontal ? height : height - lengths[ship] + 1;
+                int colRange = isHorizontal ? width - lengths[ship] + 1 : width;
+                if (rowRange < 1 || colRange < 1) {
+                    continue;
+                }
+                int row = random.nextInt(rowRange);
+                int col = random.nextInt(colRange);
+                if (canPlace(lengths[ship], row, col, isHorizontal)) {
+                    place(ship, row, col, isHorizontal);
+                    break;
+                }
+            }
+        }
+        return attempts;
+    }
+
+    /**
+     * Checks whether a ship fits at a position without leaving the board or
+     * overlapping another ship.
+     *
+     * @param length       the length of the ship
+     * @param row          the row of the first cell
+     * @param col          the column of the first cell
+     * @param isHorizontal true to extend along the row, false along the column
+     * @return true if the ship can be placed
+     */
+    public boolean canPlace(int length, int row, int col, boolean isHorizontal) {
+        if (row < 0 || col < 0) {
+            return false;
+        }
+        if (isHorizontal ? col + length > width || row >= height : row + length > height || col >= width) {
+            return false;
+        }
+        int step = isHorizontal ? 1 : width;
+        int cell = row * width + col;
+        for (int i = 0; i < length; i++, cell += step) {
+            if (occupied.containsKey(cell)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Places a ship. The position must have been checked with canPlace.
+     *
+     * @param ship         the index of the ship in the fleet
+     * @param row          the row of the first cell
+     * @param col          the column of the first cell
+     * @param isHorizontal true to extend along the row, false along the column
+     */
+    public void place(int ship, int row, int col, boolean isHorizontal) {
+        starts[ship] = row * width + col;
+        horizontal[ship] = isHorizontal;
+        health[ship] = lengths[ship];
+        shipsLeft++;
+
+        int step = isHorizontal ? 1 : width;
+        int cell = starts[ship];
+        for (int i = 0; i < lengths[ship]; i++, cell += step) {
+            occupied.put(cell, ship);
+        }
+    }
+
+    /**
+     * Resolves a shot.
+     *
+     * @param cellId the cell being shot
+     * @return MISSED, HIT or SUNK
+     * @throws IllegalArgumentException if the cell has already been shot
+     */
+    public int shoot(int cellId) {
+        if (shots.get(cellId)) {
+            throw new IllegalArgumentException("Cell " + getCellName(cellId) + " has already been shot");
+        }
+        shots.set(cellId);
+
+        int ship = occupied.get(cellId, -1);
+        if (ship < 0) {
+            return MISSED;
+        }
+        if (--health[ship] > 0) {
+            return HIT;
+        }
+        shipsLeft--;
+        return SUNK;
+    }
+
+    /**
+     * Checks whether a cell has been shot.
+     *
+     * @param cellId the cell id
+     * @return true if the cell has been shot
+     */
+    public boolean isShot(int cellId) {
+        return shots.get(cellId);
+    }
+
+    /**
+     * Returns what a shooter knows about a cell.
+     *
+     * @param cellId the cell id
+     * @return UNKNOWN, MISSED, HIT, or SUNK if the cell belongs to a sunk ship
+     */
+    public int getCellState(int cellId) {
+        if (!shots.get(cellId)) {
+            return UNKNOWN;
+        }
+        int ship = occupied.get(cellId, -1);
+        if (ship < 0) {
+            return MISSED;
+        }
+        return health[ship] == 0 ? SUNK : HIT;
+    }
+
+    /**
+     * Returns the ship covering a cell.
+     *
+     * @param cellId the cell id
+     * @return the ship index, or -1 for water
+     */
+    public int getShipAt(int cellId) {
+        return occupied.get(cellId, -1);
+    }
+
+    /**
+     * Returns the cells of a ship, in order from its first cell.
+     *
+     * @param ship the ship index
+     * @return the cell ids
+     */
+    public int[] getShipCells(int ship) {
+        int[] cells = new int[lengths[ship]];
+        int step = horizontal[ship] ? 1 : width;
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = starts[ship] + i * step;
+        }
+        return cells;
+    }
+
+    /**
+     * Checks whether a ship extends along its row.
+     *
+     * @param ship the ship index
+     * @return true for a horizontal ship, false for a vertical one
+     */
+    public boolean isHorizontal(int ship) {
+        return horizontal[ship];
+    }
+
+    /**
+     * Returns a new board with the same ships in the same places and no shots
+     * fired.
+     *
+     * @return a fresh copy of the layout
+     */
+    public SparseBoard copyLayout() {
+        SparseBoard copy = new SparseBoard(width, height, lengths);
+        for (int ship = 0; ship < lengths.length; ship++) {
+            copy.place(ship, starts[ship] / width, starts[ship] % width, horizontal[ship]);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a board with the ships placed as in a layout and no shots
+     * fired.
+     *
+     * @param layout a valid layout of straight ships
+     * @return the board, ships in the order of the layout
+     */
+    public static SparseBoard fromLayout(FleetLayout layout) {
+        int[] fleet = new int[layout.getShipCount()];
+        for (int ship = 0; ship < fleet.length; ship++) {
+            fleet[ship] = layout.getShape(ship).getSize();
+        }
+        SparseBoard board = new SparseBoard(layout.getWidth(), layout.getHeight(), fleet);
+        for (int ship = 0; ship < fleet.length; ship++) {
+            board.place(ship, layout.getRow(ship), layout.getColumn(ship), layout.getOrientation(ship) == 0);
+        }
+        return board;
+    }
+
+    /**
+     * Returns the display name of a cell, e.g. "AB12".
+     *
+     * @param cellId the cell id
+     * @return the cell name
+     */
+    public String getCellName(int cellId) {
+        return Misc.columnName(cellId % width + 1) + (cellId / width + 1);
+    }
+
+    /**
+     * Returns the number of columns.
+     *
+     * @return the board width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the board height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of ships in the fleet.
+     *
+     * @return the ship count
+     */
+    public int getShipCount() {
+        return lengths.length;
+    }
+
+    /**
+     * Returns the number of placed ships that are still afloat.
+     *
+     * @return the ships left
+     */
+    public int getShipsLeft() {
+        return shipsLeft;
+    }
+
+    /**
+     * Returns the length of a ship.
+     *
+     * @param ship the ship index
+     * @return the ship length
+     */
+    public int getShipLength(int ship) {
+        return lengths[ship];
+    }
+
+    /**
+     * Returns the approximate memory used by the board's storage.
+     *
+     * @return the footprint in bytes
+     */
+    public long footprintBytes() {
+        return occupied.footprintBytes() + 13L * lengths.length + shots.size() / 8;
+    }
+}
@@ -0,0 +1,174 @@
+package model;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The UniformPlacement class draws layouts of the fleet of a dimension
+ * uniformly at random. Ships placed one by one at random positions, as
+ * SparseBoard.randomize does, are not uniform: the first ships are placed on
+ * an empty board and crowd the later ones towards where room is left.
+ *
+ * Up to dimension {@code battleship.uniform.exactDimension} (default 3) the
+ * layouts of a fleet of straight ships are counted exactly by a LayoutCounter
+ * and drawn exactly uniformly. The counter is built once per dimension and
+ * kept. Larger dimensions, other fleets and the no-touch rule use a
+ * LayoutChain per dimension and rule. It runs at least
+ * {@code battleship.uniform.sweeps} sweeps (default 4) between samples, more
+ * if it mixes slowly.
+ *
+ * Run with: java model.UniformPlacement [dimension] [samples] to print the
+ * counts, the chain's mixing and how far each sampler's cell heatmap is from
+ * uniform.
+ */
+public final class UniformPlacement {
+
+    private static final int EXACT_DIMENSION = Integer.getInteger("battleship.uniform.exactDimension", 3);
+    private static final int SWEEPS_PER_SAMPLE = Integer.getInteger("battleship.uniform.sweeps", 4);
+
+    private static final Map<Integer, LayoutCounter> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<Integer, LayoutChain> CHAINS = new ConcurrentHashMap<>();
+
+    private UniformPlacement() {
+    }
+
+    /**
+     * Returns the exact counter of a dimension, building it on first use.
+     *
+     * @param dimension the game dimension
+     * @return the counter, or null if the dimension is counted by a chain
+     */
+    public static LayoutCounter counter(int dimension) {
+        FleetConfig fleet = FleetConfig.forDimension(dimension);
+        if (dimension > EXACT_DIMENSION || !fleet.isLinesOnly()) {
+            return null;
+        }
+        return COUNTERS.computeIfAbsent(dimension,
+                key -> new LayoutCounter(2 * dimension, 2 * dimension, fleet.getSizes()));
+    }
+
+    /**
+     * Draws a layout of the fleet of a dimension.
+     *
+     * @param dimension the game dimension
+     * @param random    the random source; a chain is also built with the
+     *                  random source of its first caller, so a seeded caller
+     *                  that is the only one to draw layouts of a dimension gets
+     *                  the same layouts on every run
+     * @return the layout on the 2d x 2d board, in strategy cells
+     */
+    public static FleetLayout sample(int dimension, Random random) {
+        return sample(dimension, false, random);
+    }
+
+    /**
+     * Draws a layout of the fleet of a dimension. Layouts without touching
+     * ships are always drawn by a chain.
+     *
+     * @param dimension the game dimension
+     * @param noTouch   true if ships may not touch, diagonally included
+     * @param random    the random source, as for sample(int, Random)
+     * @return the layout on the 2d x 2d board, in strategy cells
+     * @throws IllegalArgumentException if the chain finds no layout to start
+     *                                  from
+     */
+    public static FleetLayout sample(int dimension, boolean noTouch, Random random) {
+        LayoutCounter counter = noTouch ? null : counter(dimension);
+        if (counter != null) {
+            return counter.sample(random);
+        }
+        LayoutChain chain = CHAINS.computeIfAbsent(2 * dimension + (noTouch ? 1 : 0), key -> new LayoutChain(
+                FleetConfig.forDimension(dimension), 2 * dimension, 2 * dimension, SWEEPS_PER_SAMPLE, noTouch, random));
+        synchronized (chain) {
+            return chain.sample(random);
+        }
+    }
+
+    /**
+     * Adds the cells covered by a layout to a heatmap.
+     */
+    private static void count(FleetLayout layout, long[] heatmap) {
+        for (int i = 0; i < layout.getShipCount(); i++) {
+            int[] rows = layout.getShape(i).getRowOffsets(layout.getOrientation(i));
+            int[] cols = layout.getShape(i).getColumnOffsets(layout.getOrientation(i));
+            for (int j = 0; j < rows.length; j++) {
+                heatmap[(layout.getRow(i) + rows[j]) * layout.getWidth() + layout.getColumn(i) + cols[j]]++;
+            }
+        }
+    }
+
+    /**
+     * Returns the largest difference between the cell occupancies of two
+     * heatmaps of the same number of samples.
+     */
+    private static double distance(long[] a, long[] b, int samples) {
+        double largest = 0;
+        for (int cell = 0; cell < a.length; cell++) {
+            largest = Math.max(largest, Math.abs(a[cell] - b[cell]) / (double) samples);
+        }
+        return largest;
+    }
+
+    /**
+     * Prints the exact count of a dimension if there is one, the mixing of
+     * its chain, and the largest cell occupancy difference between ship by
+     * ship placement, the chain and the exact sampler.
+     *
+     * @param args optionally, the dimension and the number of samples
+     */
+    public static void main(String[] args) {
+        int dimension = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        int size = 2 * dimension;
+        FleetConfig fleet = FleetConfig.forDimension(dimension);
+        Random random = new Random(42);
+
+        long start = System.nanoTime();
+        LayoutCounter counter = counter(dimension);
+        if (counter != null) {
+            System.out.printf("layouts            %d%n", counter.getCount());
+            System.out.printf("states             %d (%.1f MB, %.0f ms)%n", counter.getStateCount(),
+                    counter.footprintBytes() / 1e6, (System.nanoTime() - start) / 1e6);
+        }
+
+        start = System.nanoTime();
+        LayoutChain chain = new LayoutChain(fleet, size, size, SWEEPS_PER_SAMPLE, random);
+        System.out.printf("chain burn-in      %.1f ms%n", (System.nanoTime() - start) / 1e6);
+        System.out.printf("autocorrelation    %.1f sweeps (%d sweeps per sample)%n", chain.getMixingTime(),
+                chain.getSweepsPerSample());
+        System.out.printf("acceptance rate    %.1f%%%n", 100 * chain.getAcceptanceRate());
+
+        long[] chainMap = new long[size * size];
+        start = System.nanoTime();
+        for (int i = 0; i < samples; i++) {
+            count(chain.sample(random), chainMap);
+        }
+        System.out.printf("us per chain sample %.1f%n", (System.nanoTime() - start) / 1e3 / samples);
+
+        long[] greedyMap = new long[size * size];
+        if (fleet.isLinesOnly()) {
+            for (int i = 0; i < samples; i++) {
+                SparseBoard board = new SparseBoard(size, size, fleet.getSizes());
+                board.randomize(random);
+                for (int ship = 0; ship < board.getShipCount(); ship++) {
+                    for (int cell : board.getShipCells(ship)) {
+                        greedyMap[cell]++;
+                    }
+                }
+            }
+        }
+        if (counter != null) {
+            long[] exactMap = new long[size * size];
+            start = System.nanoTime();
+            for (int i = 0; i < samples; i++) {
+                count(counter.sample(random), exactMap);
+            }
+            System.out.printf("us per exact sample %.1f%n", (System.nanoTime() - start) / 1e3 / samples);
+            System.out.printf("ship by ship vs exact  %.4f%n", distance(greedyMap, exactMap, samples));
+            System.out.printf("chain vs exact         %.4f%n", distance(chainMap, exactMap, samples));
+        } else if (fleet.isLinesOnly()) {
+            System.out.printf("ship by ship vs chain  %.4f%n", distance(greedyMap, chainMap, samples));
+        }
+    }
+}
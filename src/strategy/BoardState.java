@@ -0,0 +1,233 @@
+package strategy;
+
+import model.SparseBoard;
+
+/**
+ * The BoardState class is an immutable ShotHistory. Recording a shot or a
+ * sunk ship returns a new version of the state and leaves the old one as it
+ * was. The cell states and the shot list are PersistentIntArrays, so a new
+ * version copies O(log n) small nodes and shares the rest with the version
+ * it came from; only the count of ships afloat per length is copied when a
+ * ship sinks.
+ *
+ * Versions can be handed to strategies on any thread and branched from
+ * without locks or copies: a search tries shots on its own versions while
+ * the game goes on with another. Every version also keeps the one it was
+ * made from, so stepping back through getPrevious undoes shots, and holding
+ * on to the later versions redoes them.
+ *
+ * The Zobrist hash and the no-touch rule behave as in ShotLog.
+ */
+public final class BoardState implements ShotHistory {
+
+    private final int width;
+    private final int height;
+    private final PersistentIntArray cells;
+    private final PersistentIntArray shots;
+    private final int[] remainingByLength;
+    private final int remainingShips;
+    private final long hash;
+    private final PlacementPrior prior;
+    private final boolean noTouch;
+    private final BoardState previous;
+
+    private BoardState(int width, int height, PersistentIntArray cells, PersistentIntArray shots,
+            int[] remainingByLength, int remainingShips, long hash, PlacementPrior prior, boolean noTouch,
+            BoardState previous) {
+        this.width = width;
+        this.height = height;
+        this.cells = cells;
+        this.shots = shots;
+        this.remainingByLength = remainingByLength;
+        this.remainingShips = remainingShips;
+        this.hash = hash;
+        this.prior = prior;
+        this.noTouch = noTouch;
+        this.previous = previous;
+    }
+
+    /**
+     * Returns the state of a board before any shot.
+     *
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @param fleet  the length of every ship
+     * @return the state
+     */
+    public static BoardState empty(int width, int height, int[] fleet) {
+        int longest = 0;
+        for (int length : fleet) {
+            longest = Math.max(longest, length);
+        }
+        int[] remainingByLength = new int[longest + 1];
+        for (int length : fleet) {
+            remainingByLength[length]++;
+        }
+        long hash = Zobrist.board(width, height);
+        for (int length = 1; length <= longest; length++) {
+            hash ^= Zobrist.fleet(length, remainingByLength[length]);
+        }
+        return new BoardState(width, height, PersistentIntArray.zeros(width * height), PersistentIntArray.EMPTY,
+                remainingByLength, fleet.length, hash, null, false, null);
+    }
+
+    /**
+     * Returns the state after a resolved shot. A sinking shot is recorded as
+     * HIT here and upgraded by sink.
+     *
+     * @param cell   the cell that was shot
+     * @param result MISSED, HIT or SUNK
+     * @return the new version
+     */
+    public BoardState shoot(int cell, int result) {
+        int state = result == SparseBoard.MISSED ? SparseBoard.MISSED : SparseBoard.HIT;
+        return new BoardState(width, height, cells.set(cell, state + 1), shots.append(cell << 2 | result),
+                remainingByLength, remainingShips, hash ^ change(cell, state), prior, noTouch, this);
+    }
+
+    /**
+     * Returns the state after a ship has been sunk. Under the no-touch rule
+     * the unknown cells around the ship become MISSED.
+     *
+     * @param shipCells the cells of the sunk ship
+     * @return the new version
+     * @throws IllegalArgumentException if no ship of that many cells is
+     *                                  afloat
+     */
+    public BoardState sink(int[] shipCells) {
+        int length = shipCells.length;
+        if (length >= remainingByLength.length || remainingByLength[length] == 0) {
+            throw new IllegalArgumentException("No ship of " + length + " cells is afloat");
+        }
+        PersistentIntArray next = cells;
+        long nextHash = hash;
+        for (int cell : shipCells) {
+            nextHash ^= change(next, cell, SparseBoard.SUNK);
+            next = next.set(cell, SparseBoard.SUNK + 1);
+        }
+        if (noTouch) {
+            for (int cell : shipCells) {
+                int row = cell / width;
+                int col = cell % width;
+                for (int r = Math.max(0, row - 1); r <= Math.min(height - 1, row + 1); r++) {
+                    for (int c = Math.max(0, col - 1); c <= Math.min(width - 1, col + 1); c++) {
+                        int neighbour = r * width + c;
+                        if (next.get(neighbour) - 1 == SparseBoard.UNKNOWN) {
+                            nextHash ^= change(next, neighbour, SparseBoard.MISSED);
+                            next = next.set(neighbour, SparseBoard.MISSED + 1);
+                        }
+                    }
+                }
+            }
+        }
+
+        int[] afloat = remainingByLength.clone();
+        nextHash ^= Zobrist.fleet(length, afloat[length]);
+        afloat[length]--;
+        nextHash ^= Zobrist.fleet(length, afloat[length]);
+        return new BoardState(width, height, next, shots, afloat, remainingShips - 1, nextHash, prior, noTouch, this);
+    }
+
+    /**
+     * Returns the change of the hash when a cell of this state takes a new
+     * state.
+     */
+    private long change(int cell, int state) {
+        return change(cells, cell, state);
+    }
+
+    private static long change(PersistentIntArray cells, int cell, int state) {
+        int old = cells.get(cell) - 1;
+        long keys = Zobrist.cell(cell, state);
+        return old == SparseBoard.UNKNOWN ? keys : keys ^ Zobrist.cell(cell, old);
+    }
+
+    /**
+     * Returns this state with another placement prior.
+     *
+     * @param prior the prior, or null for random placement
+     * @return the state, with the same previous version
+     */
+    public BoardState withPrior(PlacementPrior prior) {
+        return new BoardState(width, height, cells, shots, remainingByLength, remainingShips, hash, prior, noTouch,
+                previous);
+    }
+
+    /**
+     * Returns this state with the no-touch rule on or off, for the ships
+     * sunk afterwards.
+     *
+     * @param noTouch true if the no-touch rule applies
+     * @return the state, with the same previous version
+     */
+    public BoardState withNoTouch(boolean noTouch) {
+        return new BoardState(width, height, cells, shots, remainingByLength, remainingShips, hash, prior, noTouch,
+                previous);
+    }
+
+    /**
+     * Returns the version this one was made from by shoot or sink.
+     *
+     * @return the previous version, or null for an empty board
+     */
+    public BoardState getPrevious() {
+        return previous;
+    }
+
+    @Override
+    public boolean isNoTouch() {
+        return noTouch;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getState(int cell) {
+        return cells.get(cell) - 1;
+    }
+
+    @Override
+    public int getShotCount() {
+        return shots.length();
+    }
+
+    @Override
+    public int getShot(int index) {
+        return shots.get(index) >>> 2;
+    }
+
+    @Override
+    public int getResult(int index) {
+        return shots.get(index) & 3;
+    }
+
+    @Override
+    public long getZobristHash() {
+        return hash;
+    }
+
+    @Override
+    public PlacementPrior getPrior() {
+        return prior;
+    }
+
+    @Override
+    public int[] getRemainingLengths() {
+        int[] lengths = new int[remainingShips];
+        int index = 0;
+        for (int length = remainingByLength.length - 1; length > 0; length--) {
+            for (int i = 0; i < remainingByLength[length]; i++) {
+                lengths[index++] = length;
+            }
+        }
+        return lengths;
+    }
+}
@@ -0,0 +1,709 @@
+package strategy;
+
+import java.util.Arrays;
+
+import model.SparseBoard;
+
+/**
+ * The EndgameSolver class plays the end of a game exactly. Once only a few
+ * ships remain it enumerates every layout of those ships that is consistent
+ * with the shots so far, treats the layouts as equally likely, and searches
+ * the full game tree for the shot that minimises the expected number of
+ * remaining shots.
+ *
+ * Every remaining ship cell has to be shot anyway, so the search minimises the
+ * expected number of misses. Cells occupied in every layout cost nothing and
+ * are shot first. Other cells are tried in order of hit probability, only one
+ * of the cells covered by exactly the same layouts is tried, and a branch is
+ * abandoned as soon as its expected misses cannot beat the best one found.
+ *
+ * Under the no-touch rule ships of a layout may not touch. Every placement
+ * then also has a dilated mask, its cells and their neighbours, and the
+ * enumeration keeps the union of the dilated masks placed so far per depth, as
+ * AdjacencyMask does for placing fleets; a placement inside it is rejected.
+ *
+ * Layouts and cells are bitboards of long words. Results are memoised on a
+ * 64-bit hash of the search state: the consistent layouts of the remaining
+ * ships and which of their cells are still unknown. The memo is a bounded
+ * TranspositionCache kept for the whole game, so later moves reuse earlier
+ * searches. The scratch arrays of the search are kept per depth and reused,
+ * so a node allocates nothing.
+ *
+ * When there are too many layouts, or the search runs past its deadline, solve
+ * returns -1 and the caller falls back to its own heuristic. After a search
+ * over all layouts times out, the solver waits until the number of layouts
+ * has halved before it tries again, so a hard endgame does not use up the
+ * budget of every move. The full limit is back once a search completes.
+ */
+final class EndgameSolver {
+
+    /** The solver is used when at most this many ships remain. */
+    static final int MAX_SHIPS = 3;
+
+    private static final int MAX_LAYOUTS = 1024;
+    private static final int MEMO_SIZE = 1 << 16;
+    private static final RuntimeException TIMEOUT = new RuntimeException("Endgame search timed out", null, false,
+            false) {
+        private static final long serialVersionUID = 1L;
+    };
+
+    private final TranspositionCache<Double> memo = new TranspositionCache<>(MEMO_SIZE);
+
+    private int width;
+    private int cells;
+    private int words;
+    private long deadline;
+    private long nodes;
+    private int bestCell;
+    private int layoutCount;
+    private int layoutLimit = MAX_LAYOUTS;
+    private boolean noTouch;
+
+    private long[][] placementMasks = new long[64][];
+    private long[][] placementHalos = new long[64][];
+    private int[] placementLengths = new int[64];
+    private int[] firstPlacement;
+    private int placementCount;
+    private long[][] halos;
+
+    private int[][] layoutPlacements;
+    private long[][] layoutMasks;
+    private long[] layoutHashes;
+
+    private long[] shot;
+    private long[] hitOpen;
+    private Frame[] frames = new Frame[0];
+
+    /**
+     * Chooses the shot that minimises the expected number of remaining shots.
+     *
+     * @param history       the shot history
+     * @param deadlineNanos the System.nanoTime by which the search must end
+     * @return the best cell, or -1 if the endgame is too large to solve in
+     *         time
+     */
+    int solve(ShotHistory history, long deadlineNanos) {
+        int[] lengths = history.getRemainingLengths();
+        if (lengths.length == 0 || lengths.length > MAX_SHIPS) {
+            return -1;
+        }
+        deadline = deadlineNanos;
+        noTouch = history.isNoTouch();
+        nodes = 0;
+        layoutCount = 0;
+        if (history.getWidth() * history.getHeight() != cells || history.getWidth() != width) {
+            width = history.getWidth();
+            cells = width * history.getHeight();
+            words = (cells + 63) / 64;
+            frames = new Frame[0];
+            memo.clear();
+        }
+
+        shot = new long[words];
+        hitOpen = new long[words];
+        for (int cell = 0; cell < cells; cell++) {
+            int state = history.getState(cell);
+            if (state != SparseBoard.UNKNOWN) {
+                set(shot, cell);
+            }
+            if (state == SparseBoard.HIT) {
+                set(hitOpen, cell);
+            }
+        }
+
+        boolean enumerated = false;
+        try {
+            if (!enumerate(history, lengths) || layoutCount == 0) {
+                return -1;
+            }
+            enumerated = true;
+            int[] all = new int[layoutCount];
+            for (int i = 0; i < layoutCount; i++) {
+                all[i] = i;
+            }
+            bestCell = -1;
+            search(all, layoutCount, Double.POSITIVE_INFINITY, true, 0);
+            layoutLimit = MAX_LAYOUTS;
+            return bestCell;
+        } catch (RuntimeException e) {
+            if (e != TIMEOUT) {
+                throw e;
+            }
+            // Do not try again until the endgame has become clearly smaller.
+            // A timeout while listing layouts leaves only a partial count.
+            if (enumerated) {
+                layoutLimit = Math.max(1, layoutCount / 2);
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the number of consistent layouts found by the last solve.
+     *
+     * @return the layout count
+     */
+    int getLayoutCount() {
+        return layoutCount;
+    }
+
+    /**
+     * Forgets the memoised searches of the previous game.
+     */
+    void reset() {
+        memo.clear();
+        cells = 0;
+        layoutLimit = MAX_LAYOUTS;
+    }
+
+    /**
+     * Lists the placements of every remaining length that avoid known water
+     * and sunk ships, then every non-overlapping combination of them that
+     * covers all open hits. Under the no-touch rule the ships of a
+     * combination must not touch either.
+     *
+     * @return false if there are more layouts than the current limit
+     */
+    private boolean enumerate(ShotHistory history, int[] lengths) {
+        int height = cells / width;
+        placementCount = 0;
+        int[] firstPlacement = new int[lengths[0] + 2];
+        Arrays.fill(firstPlacement, -1);
+        for (int i = 0; i < lengths.length; i++) {
+            int length = lengths[i];
+            if (firstPlacement[length] >= 0) {
+                continue;
+            }
+            firstPlacement[length] = placementCount;
+            for (int horizontal = 1; horizontal >= 0; horizontal--) {
+                int step = horizontal == 1 ? 1 : width;
+                int rows = horizontal == 1 ? height : height - length + 1;
+                int cols = horizontal == 1 ? width - length + 1 : width;
+                for (int row = 0; row < rows; row++) {
+                    for (int col = 0; col < cols; col++) {
+                        long[] mask = new long[words];
+                        boolean blocked = false;
+                        for (int k = 0, cell = row * width + col; k < length; k++, cell += step) {
+                            int state = history.getState(cell);
+                            if (state == SparseBoard.MISSED || state == SparseBoard.SUNK) {
+                                blocked = true;
+                                break;
+                            }
+                            set(mask, cell);
+                        }
+                        if (!blocked) {
+                            addPlacement(mask, length);
+                        }
+                    }
+                }
+            }
+        }
+
+        layoutPlacements = new int[MAX_LAYOUTS][];
+        layoutMasks = new long[MAX_LAYOUTS][];
+        layoutHashes = new long[MAX_LAYOUTS];
+        this.firstPlacement = firstPlacement;
+        halos = noTouch ? new long[lengths.length + 1][words] : null;
+        int[] unplaced = new int[lengths[0] + 1];
+        for (int length : lengths) {
+            unplaced[length]++;
+        }
+        return cover(unplaced, 0, new int[lengths.length], new long[words]);
+    }
+
+    private void addPlacement(long[] mask, int length) {
+        if (placementCount == placementMasks.length) {
+            placementMasks = Arrays.copyOf(placementMasks, placementCount * 2);
+            placementHalos = Arrays.copyOf(placementHalos, placementCount * 2);
+            placementLengths = Arrays.copyOf(placementLengths, placementCount * 2);
+        }
+        placementMasks[placementCount] = mask;
+        placementHalos[placementCount] = noTouch ? dilate(mask) : null;
+        placementLengths[placementCount] = length;
+        placementCount++;
+    }
+
+    /**
+     * Returns the cells of a mask and their eight neighbours.
+     */
+    private long[] dilate(long[] mask) {
+        int height = cells / width;
+        long[] halo = new long[words];
+        for (int w = 0; w < words; w++) {
+            long bits = mask[w];
+            while (bits != 0) {
+                int cell = w * 64 + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int row = cell / width;
+                int col = cell % width;
+                for (int r = Math.max(0, row - 1); r <= Math.min(height - 1, row + 1); r++) {
+                    for (int c = Math.max(0, col - 1); c <= Math.min(width - 1, col + 1); c++) {
+                        set(halo, r * width + c);
+                    }
+                }
+            }
+        }
+        return halo;
+    }
+
+    /**
+     * Checks whether a placement cannot join the ships placed so far: it
+     * overlaps them or, under the no-touch rule, touches them.
+     *
+     * @param mask  the placement
+     * @param depth the number of ships placed so far
+     * @param used  the cells covered so far
+     */
+    private boolean blocked(long[] mask, int depth, long[] used) {
+        return overlaps(mask, noTouch ? halos[depth] : used);
+    }
+
+    /**
+     * Under the no-touch rule, sets the dilated mask of the next depth to that
+     * of this depth and the dilated placement.
+     */
+    private void dilateNext(int depth, int placement) {
+        if (noTouch) {
+            long[] current = halos[depth];
+            long[] next = halos[depth + 1];
+            long[] halo = placementHalos[placement];
+            for (int w = 0; w < words; w++) {
+                next[w] = current[w] | halo[w];
+            }
+        }
+    }
+
+    /**
+     * Places ships over the open hits. The lowest uncovered hit must belong to
+     * exactly one ship of the layout, so branching over the placements that
+     * cover it lists every layout once and never builds a combination that
+     * leaves a hit uncovered. Once every hit is covered, the other ships are
+     * placed freely.
+     *
+     * @param unplaced the number of unplaced ships of each length
+     * @param placed   the number of ships placed so far
+     * @param chosen   the placements chosen so far
+     * @param used     the cells covered so far
+     * @return false if there are more layouts than the current limit
+     */
+    private boolean cover(int[] unplaced, int placed, int[] chosen, long[] used) {
+        int hit = -1;
+        for (int w = 0; w < words && hit < 0; w++) {
+            long open = hitOpen[w] & ~used[w];
+            if (open != 0) {
+                hit = w * 64 + Long.numberOfTrailingZeros(open);
+            }
+        }
+        if (hit < 0) {
+            int[] free = new int[chosen.length - placed];
+            int index = 0;
+            for (int length = unplaced.length - 1; length > 0; length--) {
+                for (int i = 0; i < unplaced[length]; i++) {
+                    free[index++] = length;
+                }
+            }
+            return place(free, 0, -1, placed, chosen, used);
+        }
+        if ((++nodes & 1023) == 0 && System.nanoTime() > deadline) {
+            throw TIMEOUT;
+        }
+
+        for (int length = 1; length < unplaced.length; length++) {
+            if (unplaced[length] == 0) {
+                continue;
+            }
+            for (int p = firstPlacement[length]; p < placementCount && placementLengths[p] == length; p++) {
+                long[] mask = placementMasks[p];
+                if (!get(mask, hit) || blocked(mask, placed, used)) {
+                    continue;
+                }
+                or(used, mask);
+                dilateNext(placed, p);
+                unplaced[length]--;
+                chosen[placed] = p;
+                boolean ok = cover(unplaced, placed + 1, chosen, used);
+                unplaced[length]++;
+                andNot(used, mask);
+                if (!ok) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Places the remaining ships anywhere they fit. Ships of equal length take
+     * placements in increasing order, so each layout is listed once.
+     */
+    private boolean place(int[] free, int ship, int previous, int placed, int[] chosen, long[] used) {
+        if (ship == free.length) {
+            if (layoutCount == layoutLimit) {
+                return false;
+            }
+            layoutPlacements[layoutCount] = chosen.clone();
+            layoutMasks[layoutCount] = used.clone();
+            layoutHashes[layoutCount] = layoutHash(chosen);
+            layoutCount++;
+            return true;
+        }
+        if ((++nodes & 1023) == 0 && System.nanoTime() > deadline) {
+            throw TIMEOUT;
+        }
+
+        int length = free[ship];
+        int start = ship > 0 && free[ship - 1] == length ? previous + 1 : firstPlacement[length];
+        for (int p = start; p < placementCount && placementLengths[p] == length; p++) {
+            long[] mask = placementMasks[p];
+            if (blocked(mask, placed + ship, used)) {
+                continue;
+            }
+            or(used, mask);
+            dilateNext(placed + ship, p);
+            chosen[placed + ship] = p;
+            boolean ok = place(free, ship + 1, p, placed, chosen, used);
+            andNot(used, mask);
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean overlaps(long[] mask, long[] used) {
+        for (int w = 0; w < words; w++) {
+            if ((mask[w] & used[w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void or(long[] target, long[] mask) {
+        for (int w = 0; w < words; w++) {
+            target[w] |= mask[w];
+        }
+    }
+
+    private void andNot(long[] target, long[] mask) {
+        for (int w = 0; w < words; w++) {
+            target[w] &= ~mask[w];
+        }
+    }
+
+    /**
+     * Returns the expected number of misses needed to finish the game from the
+     * current knowledge state, given the consistent layouts.
+     *
+     * @param layouts the consistent layouts, in the first n entries
+     * @param n       the number of consistent layouts
+     * @param bound   a value above which the exact result is not needed
+     * @param root    true to record the best cell in bestCell
+     * @param depth   the number of shots searched so far, which selects the
+     *                scratch arrays
+     * @return the expected misses, or a lower bound of at least bound if the
+     *         result exceeds bound
+     */
+    private double search(int[] layouts, int n, double bound, boolean root, int depth) {
+        if ((++nodes & 1023) == 0 && System.nanoTime() > deadline) {
+            throw TIMEOUT;
+        }
+        Frame frame = frame(depth);
+        long key = 0;
+        if (!root) {
+            key = hash(layouts, n, frame.union);
+            Double known = memo.get(key);
+            if (known != null) {
+                return known;
+            }
+        }
+
+        // For every open cell, the number of layouts covering it and a
+        // signature of which ones.
+        int[] counts = frame.counts;
+        long[] signatures = frame.signatures;
+        Arrays.fill(counts, 0);
+        Arrays.fill(signatures, 0);
+        for (int i = 0; i < n; i++) {
+            long[] mask = layoutMasks[layouts[i]];
+            long layoutHash = layoutHashes[layouts[i]];
+            for (int w = 0; w < words; w++) {
+                long open = mask[w] & ~shot[w];
+                while (open != 0) {
+                    int cell = w * 64 + Long.numberOfTrailingZeros(open);
+                    counts[cell]++;
+                    signatures[cell] ^= layoutHash;
+                    open &= open - 1;
+                }
+            }
+        }
+
+        // A cell occupied in every layout is shot first, at no cost.
+        int certain = -1;
+        int uncertain = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (counts[cell] == n && certain < 0) {
+                certain = cell;
+            } else if (counts[cell] > 0 && counts[cell] < n) {
+                uncertain++;
+            }
+        }
+        if (n == 1 || (uncertain == 0 && certain < 0)) {
+            if (root) {
+                bestCell = certain >= 0 ? certain : firstOpenCell(layouts[0]);
+            }
+            return 0;
+        }
+
+        int[] candidates = frame.candidates;
+        int candidateCount = 0;
+        if (certain >= 0) {
+            candidates[candidateCount++] = certain;
+        } else {
+            for (int cell = 0; cell < cells; cell++) {
+                if (counts[cell] > 0 && counts[cell] < n) {
+                    candidates[candidateCount++] = cell;
+                }
+            }
+            sortByCount(candidates, candidateCount, counts);
+        }
+
+        double best = bound;
+        boolean exact = false;
+        long[] tried = frame.tried;
+        int triedCount = 0;
+        for (int c = 0; c < candidateCount; c++) {
+            int cell = candidates[c];
+            double missProbability = (n - counts[cell]) / (double) n;
+            if (missProbability >= best) {
+                break;
+            }
+            // Cells covered by the same layouts lead to the same states: after
+            // a hit on one the other is certain, and after a miss neither lies
+            // in any remaining layout.
+            if (contains(tried, triedCount, signatures[cell])) {
+                continue;
+            }
+            tried[triedCount++] = signatures[cell];
+            double value = evaluate(layouts, n, cell, missProbability, best, frame, depth);
+            if (value < best) {
+                best = value;
+                exact = true;
+                if (root) {
+                    bestCell = cell;
+                }
+            }
+        }
+
+        if (!exact) {
+            return bound;
+        }
+        if (!root) {
+            memo.put(key, best);
+        }
+        return best;
+    }
+
+    /**
+     * Returns the expected misses of shooting a cell: the chance of a miss plus
+     * the expected misses after each possible outcome.
+     */
+    private double evaluate(int[] layouts, int n, int cell, double missProbability, double bound, Frame frame,
+            int depth) {
+        // Outcome of each layout: -2 miss, -1 hit, or the placement it sinks.
+        int[] outcomes = frame.outcomes;
+        int[] groupCodes = frame.groupCodes;
+        int[] groupSizes = frame.groupSizes;
+        int groups = 0;
+        for (int i = 0; i < n; i++) {
+            int layout = layouts[i];
+            int code = -2;
+            if (get(layoutMasks[layout], cell)) {
+                code = -1;
+                for (int placement : layoutPlacements[layout]) {
+                    long[] mask = placementMasks[placement];
+                    if (get(mask, cell)) {
+                        if (isSunkBy(mask, cell)) {
+                            code = placement;
+                        }
+                        break;
+                    }
+                }
+            }
+            outcomes[i] = code;
+            int group = 0;
+            while (group < groups && groupCodes[group] != code) {
+                group++;
+            }
+            if (group == groups) {
+                groupCodes[groups] = code;
+                groupSizes[groups++] = 0;
+            }
+            groupSizes[group]++;
+        }
+
+        double total = missProbability;
+        for (int group = 0; group < groups && total < bound; group++) {
+            int code = groupCodes[group];
+            // The subset is only read below this depth, so every group can
+            // reuse the same array.
+            int[] subset = frame.subset;
+            int size = 0;
+            for (int i = 0; i < n; i++) {
+                if (outcomes[i] == code) {
+                    subset[size++] = layouts[i];
+                }
+            }
+            double probability = size / (double) n;
+            double remainingBound = (bound - total) / probability;
+
+            set(shot, cell);
+            total += probability * search(subset, size, remainingBound, false, depth + 1);
+            clear(shot, cell);
+        }
+        return total;
+    }
+
+    /**
+     * Checks whether shooting a cell sinks the ship of a placement, i.e.
+     * whether every other cell of it has already been shot.
+     */
+    private boolean isSunkBy(long[] mask, int cell) {
+        for (int w = 0; w < words; w++) {
+            long open = mask[w] & ~shot[w];
+            if (w == cell >>> 6) {
+                open &= ~(1L << cell);
+            }
+            if (open != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int firstOpenCell(int layout) {
+        long[] mask = layoutMasks[layout];
+        for (int w = 0; w < words; w++) {
+            long open = mask[w] & ~shot[w];
+            if (open != 0) {
+                return w * 64 + Long.numberOfTrailingZeros(open);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Hashes a search state: the set of consistent layouts and which of their
+     * cells have been shot. Shots outside every layout cannot change the rest
+     * of the game, so states reached through different misses share an entry.
+     */
+    private long hash(int[] layouts, int n, long[] union) {
+        long set = 0;
+        Arrays.fill(union, 0);
+        for (int i = 0; i < n; i++) {
+            set ^= layoutHashes[layouts[i]];
+            or(union, layoutMasks[layouts[i]]);
+        }
+        long h = mix(set);
+        for (int w = 0; w < words; w++) {
+            h = mix(h ^ (shot[w] & union[w]));
+        }
+        return h;
+    }
+
+    /**
+     * Hashes a layout by its ships, independently of the order in which they
+     * were placed and of the placement numbering of the current move.
+     */
+    private long layoutHash(int[] placements) {
+        long h = 0;
+        for (int placement : placements) {
+            long ship = placementLengths[placement];
+            for (long word : placementMasks[placement]) {
+                ship = mix(ship ^ word);
+            }
+            h ^= ship;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Sorts cells by descending count, so likely hits are tried first.
+     */
+    private static void sortByCount(int[] candidates, int count, int[] counts) {
+        for (int i = 1; i < count; i++) {
+            int cell = candidates[i];
+            int j = i - 1;
+            while (j >= 0 && counts[candidates[j]] < counts[cell]) {
+                candidates[j + 1] = candidates[j];
+                j--;
+            }
+            candidates[j + 1] = cell;
+        }
+    }
+
+    /**
+     * Returns the scratch arrays of a search depth, creating them on first
+     * use.
+     */
+    private Frame frame(int depth) {
+        if (depth == frames.length) {
+            frames = Arrays.copyOf(frames, Math.max(8, depth * 2));
+        }
+        if (frames[depth] == null) {
+            frames[depth] = new Frame(cells, words);
+        }
+        return frames[depth];
+    }
+
+    private static boolean contains(long[] values, int count, long value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean get(long[] mask, int cell) {
+        return (mask[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private static void set(long[] mask, int cell) {
+        mask[cell >>> 6] |= 1L << cell;
+    }
+
+    private static void clear(long[] mask, int cell) {
+        mask[cell >>> 6] &= ~(1L << cell);
+    }
+
+    /**
+     * The scratch arrays of one search depth: the per-cell counts of a node
+     * and the outcome groups of the cell it evaluates.
+     */
+    private static final class Frame {
+        final int[] counts;
+        final long[] signatures;
+        final int[] candidates;
+        final long[] tried;
+        final long[] union;
+        final int[] outcomes = new int[MAX_LAYOUTS];
+        final int[] groupCodes = new int[MAX_LAYOUTS];
+        final int[] groupSizes = new int[MAX_LAYOUTS];
+        final int[] subset = new int[MAX_LAYOUTS];
+
+        Frame(int cells, int words) {
+            counts = new int[cells];
+            signatures = new long[cells];
+            candidates = new int[cells];
+            tried = new long[cells];
+            union = new long[words];
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import diagnostics.Log;
+import model.SparseBoard;
+
+/**
+ * The HardPlacement class searches for a fleet layout that is hard to sink.
+ * One worker per core generates random layouts and scores each by the mean
+ * number of shots a reference shooter needs to sink it over a few simulated
+ * games; the layout with the highest score found within the time budget wins.
+ *
+ * The budget is read from the {@code battleship.hardPlacement.ms} system
+ * property (default 750) and the reference shooter, named as in
+ * StrategyRegistry, from {@code battleship.hardPlacement.shooter} (default
+ * Probability). Every worker plays with its own shooter instance.
+ */
+public final class HardPlacement {
+
+    private static final long BUDGET_NANOS = Long.getLong("battleship.hardPlacement.ms", 750) * 1_000_000L;
+    private static final String SHOOTER = System.getProperty("battleship.hardPlacement.shooter", "Probability");
+    private static final int GAMES = 8;
+    private static final double CUTOFF = 0.9;
+    private static final long MOVE_NANOS = 1_000_000L;
+    private static final int WORKERS = Runtime.getRuntime().availableProcessors();
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(WORKERS, task -> {
+        Thread thread = new Thread(task, "hard-placement-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private HardPlacement() {
+    }
+
+    /**
+     * Returns the configured search time.
+     *
+     * @return the budget in nanoseconds
+     */
+    public static long getBudgetNanos() {
+        return BUDGET_NANOS;
+    }
+
+    /**
+     * Searches for the hardest layout of a fleet on all cores. Blocks until
+     * the budget has run out; interrupting the calling thread stops the
+     * workers.
+     *
+     * @param width       the number of columns
+     * @param height      the number of rows
+     * @param fleet       the ship lengths, longest first
+     * @param budgetNanos the search time
+     * @return the hardest layout found and the search statistics
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public static Result search(int width, int height, int[] fleet, long budgetNanos) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        List<Future<Result>> futures = new ArrayList<>(WORKERS);
+        for (int i = 0; i < WORKERS; i++) {
+            futures.add(executor.submit(() -> work(width, height, fleet, deadline)));
+        }
+
+        Result best = null;
+        try {
+            for (Future<Result> future : futures) {
+                Result result = future.get();
+                best = best == null ? result : best.merge(result);
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Hard placement failed", e.getCause());
+        } finally {
+            for (Future<Result> future : futures) {
+                future.cancel(true);
+            }
+        }
+        Log.info("Hard placement: {} layouts in {} ms", best.candidates, (System.nanoTime() - start) / 1_000_000L);
+        Log.info("Hard placement: hardest {} shots, average {} shots", String.format("%.1f", best.meanShots),
+                String.format("%.1f", best.getAverageShots()));
+        return best;
+    }
+
+    /**
+     * Generates and scores layouts until the deadline. Always scores at least
+     * one layout, so the search returns one however small the budget.
+     */
+    private static Result work(int width, int height, int[] fleet, long deadline) {
+        Random random = ThreadLocalRandom.current();
+        OpponentStrategy shooter = newShooter();
+        Result best = new Result();
+        do {
+            SparseBoard layout = new SparseBoard(width, height, fleet);
+            layout.randomize(random);
+            int total = 0;
+            int games = 0;
+            while (games < GAMES && !Thread.currentThread().isInterrupted()) {
+                total += play(shooter, layout.copyLayout(), fleet);
+                games++;
+                // Give up on a layout that is clearly easier than the best so far.
+                if (games == GAMES / 2 && (double) total / games < CUTOFF * best.meanShots) {
+                    break;
+                }
+            }
+            best.add(layout, (double) total / games, games == GAMES);
+        } while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted());
+        return best;
+    }
+
+    /**
+     * Plays one game of the shooter against a board and returns the number of
+     * shots it took.
+     */
+    private static int play(OpponentStrategy shooter, SparseBoard board, int[] fleet) {
+        ShotLog log = new ShotLog(board.getWidth(), board.getHeight(), fleet);
+        shooter.reset();
+        int shots = 0;
+        while (board.getShipsLeft() > 0) {
+            int cell = shooter.chooseCell(log, MOVE_NANOS);
+            int result = board.shoot(cell);
+            log.record(cell, result);
+            if (result == SparseBoard.SUNK) {
+                log.recordSunk(board.getShipCells(board.getShipAt(cell)));
+            }
+            shots++;
+        }
+        return shots;
+    }
+
+    /**
+     * Creates a private instance of the reference shooter, since strategies
+     * keep per-game state.
+     */
+    private static OpponentStrategy newShooter() {
+        try {
+            return StrategyRegistry.byName(SHOOTER).getClass().getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            return new ProbabilityStrategy();
+        }
+    }
+
+    /**
+     * The Result class holds the hardest layout of a search with the number
+     * of layouts scored.
+     */
+    public static final class Result {
+        private SparseBoard layout;
+        private double meanShots;
+        private int candidates;
+        private double totalShots;
+
+        private void add(SparseBoard candidate, double shots, boolean complete) {
+            candidates++;
+            totalShots += shots;
+            if (layout == null || (complete && shots > meanShots)) {
+                layout = candidate;
+                meanShots = shots;
+            }
+        }
+
+        private Result merge(Result other) {
+            Result hardest = other.meanShots > meanShots ? other : this;
+            hardest.candidates = candidates + other.candidates;
+            hardest.totalShots = totalShots + other.totalShots;
+            return hardest;
+        }
+
+        /**
+         * Returns the hardest layout found.
+         *
+         * @return a board with the ships placed and no shots fired
+         */
+        public SparseBoard getLayout() {
+            return layout;
+        }
+
+        /**
+         * Returns the mean number of shots the reference shooter needed to
+         * sink the hardest layout.
+         *
+         * @return the mean shot count
+         */
+        public double getMeanShots() {
+            return meanShots;
+        }
+
+        /**
+         * Returns the mean score of every layout scored, an estimate for a
+         * random layout.
+         *
+         * @return the mean shot count over all candidates
+         */
+        public double getAverageShots() {
+            return candidates == 0 ? 0 : totalShots / candidates;
+        }
+
+        /**
+         * Returns the number of layouts scored.
+         *
+         * @return the candidate count
+         */
+        public int getCandidates() {
+            return candidates;
+        }
+    }
+}
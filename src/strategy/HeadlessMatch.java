@@ -0,0 +1,99 @@
+package strategy;
+
+import java.util.Random;
+
+import diagnostics.EngineStats;
+import model.SparseBoard;
+import model.UniformPlacement;
+
+/**
+ * The HeadlessMatch class plays opponent strategies against randomly placed
+ * fleets without any Swing components, so strategies can be compared on
+ * exactly the same boards. The boards are drawn by UniformPlacement, so every
+ * layout is equally likely. It reports the mean number of shots needed to sink
+ * the fleet, the decision time and allocation recorded in EngineStats, and
+ * the transposition cache hit rate.
+ *
+ * Run with: java strategy.HeadlessMatch [games] [dimension]
+ */
+public class HeadlessMatch {
+
+    /**
+     * Plays one game of a strategy against a board whose ships are placed.
+     *
+     * @param strategy    the strategy to play
+     * @param board       the board to shoot at
+     * @param fleet       the ship lengths of the board
+     * @param budgetNanos the time allowed per decision
+     * @return the number of shots needed to sink every ship
+     */
+    public static int play(OpponentStrategy strategy, SparseBoard board, int[] fleet, long budgetNanos) {
+        ShotLog log = new ShotLog(board.getWidth(), board.getHeight(), fleet);
+        strategy.reset();
+        int shots = 0;
+        while (board.getShipsLeft() > 0) {
+            int cell = StrategyRegistry.choose(strategy, log, budgetNanos);
+            int result = board.shoot(cell);
+            log.record(cell, result);
+            if (result == SparseBoard.SUNK) {
+                log.recordSunk(board.getShipCells(board.getShipAt(cell)));
+            }
+            shots++;
+        }
+        return shots;
+    }
+
+    /**
+     * Returns the fleet the game uses for a dimension: one ship of length
+     * dimension, two of length dimension - 1, and so on down to length 1.
+     *
+     * @param dimension the game dimension
+     * @return the ship lengths, longest first
+     */
+    public static int[] fleetFor(int dimension) {
+        int[] fleet = new int[dimension * (dimension + 1) / 2];
+        int index = 0;
+        for (int length = dimension; length >= 1; length--) {
+            for (int j = 0; j < dimension - length + 1; j++) {
+                fleet[index++] = length;
+            }
+        }
+        return fleet;
+    }
+
+    /**
+     * Plays every available strategy on the same boards and prints one row per
+     * strategy.
+     *
+     * @param args optionally, the number of games and the game dimension
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int dimension = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int[] fleet = fleetFor(dimension);
+        Random random = new Random(42);
+        SparseBoard[] boards = new SparseBoard[games];
+        for (int game = 0; game < games; game++) {
+            boards[game] = SparseBoard.fromLayout(UniformPlacement.sample(dimension, random));
+        }
+
+        System.out.printf("%-14s %10s %8s %8s%n", "strategy", "mean shots", "best", "worst");
+        for (OpponentStrategy strategy : StrategyRegistry.getStrategies()) {
+            long total = 0;
+            int best = Integer.MAX_VALUE;
+            int worst = 0;
+            for (int game = 0; game < games; game++) {
+                int shots = play(strategy, boards[game].copyLayout(), fleet, Long.MAX_VALUE);
+                total += shots;
+                best = Math.min(best, shots);
+                worst = Math.max(worst, shots);
+            }
+            System.out.printf("%-14s %10.1f %8d %8d%n", strategy.getName(), total / (double) games, best, worst);
+        }
+        System.out.println();
+        System.out.print(EngineStats.get().dumpStrategyStats());
+        System.out.printf("transposition cache: %d lookups, %.1f%% hits, %d evictions%n",
+                EngineStats.get().getTranspositionLookups(), 100 * EngineStats.get().getTranspositionHitRate(),
+                EngineStats.get().getTranspositionEvictions());
+    }
+}
@@ -0,0 +1,93 @@
+package strategy;
+
+import java.util.Random;
+
+import model.SparseBoard;
+
+/**
+ * The HuntTargetStrategy class hunts on a checkerboard pattern until it hits a
+ * ship, then targets the unknown neighbours of its hits, preferring cells that
+ * extend a line of two or more hits.
+ *
+ * Every ship but a length 1 ship covers a cell of each colour of the
+ * checkerboard, so hunting on one colour halves the search. Length 1 ships are
+ * found by the random fallback once that colour is exhausted.
+ */
+public class HuntTargetStrategy implements OpponentStrategy {
+
+    private final Random random = new Random();
+    private int candidates;
+
+    @Override
+    public String getName() {
+        return "Hunt and Target";
+    }
+
+    @Override
+    public int chooseCell(ShotHistory history, long budgetNanos) {
+        int width = history.getWidth();
+        int height = history.getHeight();
+        candidates = 0;
+
+        int best = -1;
+        int bestScore = 0;
+        for (int cell = 0; cell < width * height; cell++) {
+            if (history.getState(cell) != SparseBoard.HIT) {
+                continue;
+            }
+            int row = cell / width;
+            int col = cell % width;
+            for (int direction = 0; direction < 4; direction++) {
+                int dRow = direction == 0 ? -1 : direction == 1 ? 1 : 0;
+                int dCol = direction == 2 ? -1 : direction == 3 ? 1 : 0;
+                int r = row + dRow;
+                int c = col + dCol;
+                if (r < 0 || c < 0 || r >= height || c >= width
+                        || history.getState(r * width + c) != SparseBoard.UNKNOWN) {
+                    continue;
+                }
+                candidates++;
+                // Score a neighbour by the run of hits behind it.
+                int score = 1;
+                int backRow = row - dRow;
+                int backCol = col - dCol;
+                while (backRow >= 0 && backCol >= 0 && backRow < height && backCol < width
+                        && history.getState(backRow * width + backCol) == SparseBoard.HIT) {
+                    score++;
+                    backRow -= dRow;
+                    backCol -= dCol;
+                }
+                if (score > bestScore || (score == bestScore && random.nextBoolean())) {
+                    best = r * width + c;
+                    bestScore = score;
+                }
+            }
+        }
+        if (best >= 0) {
+            return best;
+        }
+
+        int cells = width * height;
+        for (int probe = 0; probe < 64; probe++) {
+            int cell = random.nextInt(cells);
+            candidates++;
+            if (history.getState(cell) == SparseBoard.UNKNOWN && (cell / width + cell % width) % 2 == 0) {
+                return cell;
+            }
+        }
+        int offset = random.nextInt(cells);
+        for (int i = 0; i < cells; i++) {
+            int cell = (offset + i) % cells;
+            candidates++;
+            if (history.getState(cell) == SparseBoard.UNKNOWN && (cell / width + cell % width) % 2 == 0) {
+                return cell;
+            }
+        }
+        return RandomStrategy.randomUnknown(history, random);
+    }
+
+    @Override
+    public int getCandidatesEvaluated() {
+        return candidates;
+    }
+}
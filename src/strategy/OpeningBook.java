@@ -0,0 +1,313 @@
+package strategy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import javax.swing.SwingUtilities;
+
+import diagnostics.Log;
+import miscellaneous.Misc;
+
+/**
+ * The OpeningBook class holds the opening heatmap of every game dimension: the
+ * number of ship placements through each cell of an empty board, as counted by
+ * ProbabilityStrategy, and the number of placements of each ship. Every game
+ * of a dimension starts from the same empty board, so the maps are computed
+ * once, stored in {@code openings.bin} in the configuration directory, and
+ * memory-mapped on later runs; a strategy's first move then needs no counting.
+ *
+ * The file is a sequence of big-endian ints:
+ *
+ * <pre>
+ * magic, version, entry count
+ * per entry: width, height, ship count, fleet offset, counts offset, map offset
+ * data:      fleet lengths, placements per ship, placements per cell
+ * </pre>
+ *
+ * Offsets are in ints from the start of the file. A missing, truncated or
+ * outdated file is rebuilt, as is one whose boards and fleets are not those
+ * of Misc.DIMENSION.
+ *
+ * Building takes a while, so the game starts it on a background thread. The
+ * Event Dispatch Thread never waits for it: until the book is ready, it gets
+ * an empty book there and counts the first move itself.
+ */
+public final class OpeningBook {
+
+    private static final int MAGIC = 0x4253_4F42;
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 3;
+    private static final int ENTRY_INTS = 6;
+    private static final String FILE_NAME = "openings.bin";
+
+    private static final OpeningBook EMPTY = new OpeningBook(IntBuffer.allocate(0));
+
+    private static volatile OpeningBook instance;
+
+    private final IntBuffer data;
+
+    private OpeningBook(IntBuffer data) {
+        this.data = data;
+    }
+
+    /**
+     * Starts loading the opening book on a daemon thread.
+     */
+    public static void loadInBackground() {
+        Thread loader = new Thread(OpeningBook::load, "opening-book");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Returns the opening book without holding up the Event Dispatch Thread:
+     * there, an empty book is returned until the book is loaded. Other
+     * threads wait for it, so headless runs see the same book every time.
+     *
+     * @return the opening book, or an empty book
+     */
+    public static OpeningBook current() {
+        OpeningBook book = instance;
+        if (book == null && SwingUtilities.isEventDispatchThread()) {
+            return EMPTY;
+        }
+        return book != null ? book : load();
+    }
+
+    /**
+     * Maps the opening book, building the file first if it is missing or
+     * outdated. Later calls return the loaded book.
+     *
+     * @return the opening book, empty if the file cannot be built or read
+     */
+    public static OpeningBook load() {
+        OpeningBook book = instance;
+        if (book == null) {
+            synchronized (OpeningBook.class) {
+                book = instance;
+                if (book == null) {
+                    book = open(new File(Misc.configDirectory(), FILE_NAME));
+                    instance = book;
+                }
+            }
+        }
+        return book;
+    }
+
+    private static OpeningBook open(File file) {
+        long start = System.nanoTime();
+        try {
+            IntBuffer data = file.isFile() ? map(file) : null;
+            if (data == null) {
+                write(file, build());
+                data = map(file);
+            }
+            if (data != null) {
+                Log.info("Opening book ready in {} us", (System.nanoTime() - start) / 1000);
+                return new OpeningBook(data);
+            }
+        } catch (IOException e) {
+            Log.warn("Could not use opening book {}: {}", file, e.getMessage());
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Maps a book file read-only.
+     *
+     * @return the file contents, or null if it is not a valid book of the
+     *         current dimensions
+     */
+    private static IntBuffer map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            if (size < HEADER_INTS * 4 || size % 4 != 0 || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            IntBuffer data = bytes.asIntBuffer();
+            int entries = data.get(2);
+            if (data.get(0) != MAGIC || data.get(1) != VERSION || entries != Misc.DIMENSION.length
+                    || HEADER_INTS + entries * ENTRY_INTS > data.limit()) {
+                return null;
+            }
+            for (int i = 0; i < entries; i++) {
+                int entry = HEADER_INTS + i * ENTRY_INTS;
+                int cells = data.get(entry) * data.get(entry + 1);
+                int ships = data.get(entry + 2);
+                if (!fits(data, data.get(entry + 3), ships) || !fits(data, data.get(entry + 4), ships)
+                        || !fits(data, data.get(entry + 5), cells)) {
+                    return null;
+                }
+                int dimension = Integer.parseInt(Misc.DIMENSION[i]);
+                int[] fleet = new int[ships];
+                IntBuffer view = data.duplicate();
+                view.position(data.get(entry + 3));
+                view.get(fleet);
+                if (data.get(entry) != 2 * dimension || data.get(entry + 1) != 2 * dimension
+                        || !Arrays.equals(fleet, HeadlessMatch.fleetFor(dimension))) {
+                    return null;
+                }
+            }
+            return data;
+        }
+    }
+
+    private static boolean fits(IntBuffer data, int offset, int length) {
+        return offset >= 0 && length >= 0 && offset + length <= data.limit();
+    }
+
+    /**
+     * Computes the book for every size in Misc.DIMENSION.
+     */
+    private static int[] build() {
+        int entries = Misc.DIMENSION.length;
+        int[][] fleets = new int[entries][];
+        int[][] maps = new int[entries][];
+        int total = HEADER_INTS + entries * ENTRY_INTS;
+        for (int i = 0; i < entries; i++) {
+            int size = 2 * Integer.parseInt(Misc.DIMENSION[i]);
+            fleets[i] = HeadlessMatch.fleetFor(size / 2);
+            ShotLog empty = new ShotLog(size, size, fleets[i]);
+            maps[i] = new ProbabilityStrategy().countPlacements(empty, empty.getRemainingLengths(), Long.MAX_VALUE);
+            total += 2 * fleets[i].length + size * size;
+        }
+
+        int[] book = new int[total];
+        book[0] = MAGIC;
+        book[1] = VERSION;
+        book[2] = entries;
+        int offset = HEADER_INTS + entries * ENTRY_INTS;
+        for (int i = 0; i < entries; i++) {
+            int size = 2 * Integer.parseInt(Misc.DIMENSION[i]);
+            int[] fleet = fleets[i];
+            int entry = HEADER_INTS + i * ENTRY_INTS;
+            book[entry] = size;
+            book[entry + 1] = size;
+            book[entry + 2] = fleet.length;
+
+            book[entry + 3] = offset;
+            System.arraycopy(fleet, 0, book, offset, fleet.length);
+            offset += fleet.length;
+
+            book[entry + 4] = offset;
+            for (int ship = 0; ship < fleet.length; ship++) {
+                book[offset++] = placements(size, size, fleet[ship]);
+            }
+
+            book[entry + 5] = offset;
+            System.arraycopy(maps[i], 0, book, offset, maps[i].length);
+            offset += maps[i].length;
+        }
+        return book;
+    }
+
+    /**
+     * Returns the number of placements of one ship on an empty board, counting
+     * both orientations as ProbabilityStrategy does.
+     */
+    private static int placements(int width, int height, int length) {
+        return Math.max(0, height * (width - length + 1)) + Math.max(0, width * (height - length + 1));
+    }
+
+    /**
+     * Writes a book to a temporary file and moves it into place, so a reader
+     * never sees a partial file.
+     */
+    private static void write(File file, int[] book) throws IOException {
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(book.length * 4);
+        bytes.asIntBuffer().put(book);
+        File temporary = File.createTempFile("openings", ".tmp", directory);
+        try {
+            Files.write(temporary.toPath(), bytes.array());
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+        Log.info("Wrote opening book {} ({} bytes)", file, book.length * 4);
+    }
+
+    /**
+     * Returns the opening heatmap of a board and fleet.
+     *
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @param fleet  the ship lengths, longest first
+     * @return a new array of placement counts per cell, or null if the book
+     *         has no entry for this board and fleet
+     */
+    public int[] getHeatmap(int width, int height, int[] fleet) {
+        int entry = find(width, height, fleet);
+        if (entry < 0) {
+            return null;
+        }
+        int[] map = new int[width * height];
+        IntBuffer view = data.duplicate();
+        view.position(data.get(entry + 5));
+        view.get(map);
+        return map;
+    }
+
+    /**
+     * Returns the number of placements of every ship of a fleet on an empty
+     * board.
+     *
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @param fleet  the ship lengths, longest first
+     * @return a new array of placement counts per ship, or null if the book
+     *         has no entry for this board and fleet
+     */
+    public int[] getPlacementCounts(int width, int height, int[] fleet) {
+        int entry = find(width, height, fleet);
+        if (entry < 0) {
+            return null;
+        }
+        int[] counts = new int[fleet.length];
+        IntBuffer view = data.duplicate();
+        view.position(data.get(entry + 4));
+        view.get(counts);
+        return counts;
+    }
+
+    private int find(int width, int height, int[] fleet) {
+        int entries = data.limit() < HEADER_INTS ? 0 : data.get(2);
+        for (int i = 0; i < entries; i++) {
+            int entry = HEADER_INTS + i * ENTRY_INTS;
+            if (data.get(entry) != width || data.get(entry + 1) != height || data.get(entry + 2) != fleet.length) {
+                continue;
+            }
+            int fleetOffset = data.get(entry + 3);
+            boolean same = true;
+            for (int ship = 0; ship < fleet.length && same; ship++) {
+                same = data.get(fleetOffset + ship) == fleet[ship];
+            }
+            if (same) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of boards in the book.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        return data.limit() < HEADER_INTS ? 0 : data.get(2);
+    }
+}
@@ -0,0 +1,67 @@
+package strategy;
+
+/**
+ * An OpponentStrategy decides where the computer fires next. Implementations
+ * are discovered with java.util.ServiceLoader, so a new opponent only needs a
+ * public no-argument constructor and a line in
+ * META-INF/services/strategy.OpponentStrategy.
+ *
+ * A strategy sees nothing but the shots fired so far and their results, and
+ * must answer within the given time budget. The same instance may play many
+ * games, one after the other; the game calls reset before each new game.
+ */
+public interface OpponentStrategy {
+
+    /**
+     * Returns the name shown to the player and used to look the strategy up.
+     *
+     * @return the strategy name
+     */
+    String getName();
+
+    /**
+     * Chooses the next cell to fire at.
+     *
+     * @param history     the shots fired so far and what they revealed
+     * @param budgetNanos the time allowed for the decision, Long.MAX_VALUE for
+     *                    no limit
+     * @return a cell that has not been shot yet, as row * width + column
+     */
+    int chooseCell(ShotHistory history, long budgetNanos);
+
+    /**
+     * Returns how many candidate cells the last decision evaluated.
+     *
+     * @return the candidate count, or 0 if the strategy does not track it
+     */
+    default int getCandidatesEvaluated() {
+        return 0;
+    }
+
+    /**
+     * Checks whether the strategy can play in this run. Strategies that are
+     * not available are left out of the list of opponents.
+     *
+     * @return true if the strategy can be used
+     */
+    default boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * Checks whether a decision may block, for example while waiting for
+     * another process. The game makes such decisions off the Event Dispatch
+     * Thread.
+     *
+     * @return true if chooseCell may block
+     */
+    default boolean isBlocking() {
+        return false;
+    }
+
+    /**
+     * Forgets any state kept from a previous game.
+     */
+    default void reset() {
+    }
+}
@@ -0,0 +1,123 @@
+package strategy;
+
+/**
+ * The PersistentIntArray class is an immutable array of ints whose updates
+ * return a new array sharing everything but the changed path with the old
+ * one. It is a trie of branching factor 32: leaves hold 32 values and inner
+ * nodes 32 children, so setting or appending a value copies one node per
+ * level, O(log n) with a base of 32. A missing subtree stands for zeros, so
+ * an array of a million zeros takes no memory until values are set.
+ */
+final class PersistentIntArray {
+
+    private static final int BITS = 5;
+    private static final int BRANCHES = 1 << BITS;
+    private static final int MASK = BRANCHES - 1;
+
+    /** The array of length 0. */
+    static final PersistentIntArray EMPTY = new PersistentIntArray(null, 0, 0);
+
+    private final Object root;
+    private final int shift;
+    private final int length;
+
+    private PersistentIntArray(Object root, int shift, int length) {
+        this.root = root;
+        this.shift = shift;
+        this.length = length;
+    }
+
+    /**
+     * Returns an array of zeros.
+     *
+     * @param length the length
+     * @return the array
+     */
+    static PersistentIntArray zeros(int length) {
+        int shift = 0;
+        while (capacity(shift) < length) {
+            shift += BITS;
+        }
+        return new PersistentIntArray(null, shift, length);
+    }
+
+    private static long capacity(int shift) {
+        return 1L << (shift + BITS);
+    }
+
+    /**
+     * @return the number of values
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Returns a value.
+     *
+     * @param index the index
+     * @return the value, 0 if never set
+     * @throws IndexOutOfBoundsException if the index is not below the length
+     */
+    int get(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + length);
+        }
+        Object node = root;
+        for (int level = shift; level > 0 && node != null; level -= BITS) {
+            node = ((Object[]) node)[(index >>> level) & MASK];
+        }
+        return node == null ? 0 : ((int[]) node)[index & MASK];
+    }
+
+    /**
+     * Returns the array with one value changed.
+     *
+     * @param index the index
+     * @param value the new value
+     * @return the new array, or this one if the value is unchanged
+     * @throws IndexOutOfBoundsException if the index is not below the length
+     */
+    PersistentIntArray set(int index, int value) {
+        if (get(index) == value) {
+            return this;
+        }
+        return new PersistentIntArray(set(root, shift, index, value), shift, length);
+    }
+
+    /**
+     * Returns the array with a value added at the end. The trie grows a
+     * level when it is full.
+     *
+     * @param value the value
+     * @return the new array
+     */
+    PersistentIntArray append(int value) {
+        Object top = root;
+        int level = shift;
+        if (length == capacity(shift)) {
+            if (root != null) {
+                Object[] grown = new Object[BRANCHES];
+                grown[0] = root;
+                top = grown;
+            }
+            level += BITS;
+        }
+        return new PersistentIntArray(set(top, level, length, value), level, length + 1);
+    }
+
+    /**
+     * Copies the path to a value and changes the value at its end.
+     */
+    private static Object set(Object node, int level, int index, int value) {
+        if (level == 0) {
+            int[] leaf = node == null ? new int[BRANCHES] : ((int[]) node).clone();
+            leaf[index & MASK] = value;
+            return leaf;
+        }
+        Object[] inner = node == null ? new Object[BRANCHES] : ((Object[]) node).clone();
+        int slot = (index >>> level) & MASK;
+        inner[slot] = set(inner[slot], level - BITS, index, value);
+        return inner;
+    }
+}
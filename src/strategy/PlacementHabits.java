@@ -0,0 +1,330 @@
+package strategy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import diagnostics.Log;
+import miscellaneous.Misc;
+import model.SparseBoard;
+
+/**
+ * The PlacementHabits class learns where the human player places ships. For
+ * every board size it counts, over all finished games, how often each cell
+ * held a ship and how often ships of each length lay horizontally or
+ * vertically. The counts are kept in {@code habits.bin} in the configuration
+ * directory, memory-mapped read-write, so recording a game only touches the
+ * counters of its ships' cells and lengths.
+ *
+ * The file is a sequence of big-endian ints:
+ *
+ * <pre>
+ * magic, version, entry count
+ * per entry: size, data offset
+ * data:      games, (horizontal, vertical) per length 0..size, count per cell
+ * </pre>
+ *
+ * There is one entry per size in Misc.DIMENSION. A missing or outdated file
+ * is recreated empty.
+ *
+ * Games are recorded by one thread at a time; readers take no lock. A reader
+ * that races with a recording may see some of its counters updated and some
+ * not, which a prior tolerates; the volatile version published after every
+ * recording makes complete recordings visible.
+ *
+ * Recording only writes to the mapped memory. A daemon thread then forces
+ * the changes to disk, and a shutdown hook forces any left when the JVM
+ * exits, so the game never waits for the disk.
+ */
+public final class PlacementHabits {
+
+    private static final int MAGIC = 0x4253_4842;
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 3;
+    private static final int ENTRY_INTS = 2;
+    private static final String FILE_NAME = "habits.bin";
+    private static final int PSEUDO_GAMES = 4;
+
+    private static final ExecutorService FLUSHER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "habits-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile PlacementHabits instance;
+
+    private final IntBuffer data;
+    private final MappedByteBuffer bytes;
+    private final Snapshot[] snapshots;
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private volatile long version;
+
+    private PlacementHabits(MappedByteBuffer bytes) {
+        this.bytes = bytes;
+        this.data = bytes == null ? IntBuffer.allocate(0) : bytes.asIntBuffer();
+        this.snapshots = new Snapshot[entries()];
+        if (bytes != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(bytes::force, "habits-force"));
+        }
+    }
+
+    /**
+     * Maps the habits file, creating it first if it is missing or outdated.
+     * Later calls return the loaded tables.
+     *
+     * @return the habits, empty and not recording if the file cannot be used
+     */
+    public static PlacementHabits load() {
+        PlacementHabits habits = instance;
+        if (habits == null) {
+            synchronized (PlacementHabits.class) {
+                habits = instance;
+                if (habits == null) {
+                    habits = open(new File(Misc.configDirectory(), FILE_NAME));
+                    instance = habits;
+                }
+            }
+        }
+        return habits;
+    }
+
+    private static PlacementHabits open(File file) {
+        try {
+            MappedByteBuffer bytes = file.isFile() ? map(file) : null;
+            if (bytes == null) {
+                write(file, empty());
+                bytes = map(file);
+            }
+            if (bytes != null) {
+                return new PlacementHabits(bytes);
+            }
+        } catch (IOException e) {
+            Log.warn("Could not use placement habits {}: {}", file, e.getMessage());
+        }
+        return new PlacementHabits(null);
+    }
+
+    /**
+     * Maps a habits file read-write.
+     *
+     * @return the file contents, or null if it is not a valid current file
+     */
+    private static MappedByteBuffer map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            if (size != empty().length * 4L) {
+                return null;
+            }
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            IntBuffer data = bytes.asIntBuffer();
+            if (data.get(0) != MAGIC || data.get(1) != VERSION || data.get(2) != Misc.DIMENSION.length) {
+                return null;
+            }
+            int[] layout = empty();
+            for (int i = HEADER_INTS; i < HEADER_INTS + Misc.DIMENSION.length * ENTRY_INTS; i++) {
+                if (data.get(i) != layout[i]) {
+                    return null;
+                }
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Returns the contents of a file with no games recorded.
+     */
+    private static int[] empty() {
+        int entries = Misc.DIMENSION.length;
+        int total = HEADER_INTS + entries * ENTRY_INTS;
+        int[] offsets = new int[entries];
+        for (int i = 0; i < entries; i++) {
+            int size = 2 * Integer.parseInt(Misc.DIMENSION[i]);
+            offsets[i] = total;
+            total += 1 + 2 * (size + 1) + size * size;
+        }
+        int[] habits = new int[total];
+        habits[0] = MAGIC;
+        habits[1] = VERSION;
+        habits[2] = entries;
+        for (int i = 0; i < entries; i++) {
+            habits[HEADER_INTS + i * ENTRY_INTS] = 2 * Integer.parseInt(Misc.DIMENSION[i]);
+            habits[HEADER_INTS + i * ENTRY_INTS + 1] = offsets[i];
+        }
+        return habits;
+    }
+
+    private static void write(File file, int[] habits) throws IOException {
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(habits.length * 4);
+        bytes.asIntBuffer().put(habits);
+        File temporary = File.createTempFile("habits", ".tmp", directory);
+        try {
+            Files.write(temporary.toPath(), bytes.array());
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+        Log.info("Created placement habits {}", file);
+    }
+
+    private int entries() {
+        return data.limit() < HEADER_INTS ? 0 : data.get(2);
+    }
+
+    private int find(int width, int height) {
+        if (width != height) {
+            return -1;
+        }
+        for (int i = 0; i < entries(); i++) {
+            if (data.get(HEADER_INTS + i * ENTRY_INTS) == width) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the layout of a finished game to the tables. Only the counters of
+     * the layout's cells and ship lengths are written.
+     *
+     * @param layout the player's ships, placed on a board of a size in
+     *               Misc.DIMENSION; other sizes are ignored
+     */
+    public synchronized void record(SparseBoard layout) {
+        int entry = find(layout.getWidth(), layout.getHeight());
+        if (entry < 0) {
+            return;
+        }
+        int offset = data.get(HEADER_INTS + entry * ENTRY_INTS + 1);
+        int size = layout.getWidth();
+        int cellsOffset = offset + 1 + 2 * (size + 1);
+        for (int ship = 0; ship < layout.getShipCount(); ship++) {
+            int length = layout.getShipLength(ship);
+            if (length > 1) {
+                int counter = offset + 1 + 2 * length + (layout.isHorizontal(ship) ? 0 : 1);
+                data.put(counter, data.get(counter) + 1);
+            }
+            for (int cell : layout.getShipCells(ship)) {
+                data.put(cellsOffset + cell, data.get(cellsOffset + cell) + 1);
+            }
+        }
+        data.put(offset, data.get(offset) + 1);
+        version++;
+        if (flushPending.compareAndSet(false, true)) {
+            FLUSHER.execute(() -> {
+                flushPending.set(false);
+                bytes.force();
+            });
+        }
+    }
+
+    /**
+     * Returns the number of games recorded on a board size.
+     *
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @return the game count
+     */
+    public int getGames(int width, int height) {
+        int entry = find(width, height);
+        return entry < 0 ? 0 : data.get(data.get(HEADER_INTS + entry * ENTRY_INTS + 1));
+    }
+
+    /**
+     * Returns the prior of a board and fleet. Cell weights compare the
+     * recorded counts with how often random placement covers each cell, so
+     * the prior only captures the player's deviation from chance. Counts are
+     * smoothed towards chance with PSEUDO_GAMES imaginary random games.
+     * Chance comes from the opening book, so a prior built before the book
+     * has loaded is built again once it has.
+     *
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @param fleet  the ship lengths, longest first
+     * @return the prior, or null if no game has been recorded on this size
+     */
+    public PlacementPrior getPrior(int width, int height, int[] fleet) {
+        int entry = find(width, height);
+        if (entry < 0) {
+            return null;
+        }
+        long current = version;
+        OpeningBook book = OpeningBook.current();
+        Snapshot snapshot = snapshots[entry];
+        if (snapshot != null && snapshot.version == current && snapshot.book == book) {
+            return snapshot.prior;
+        }
+        int offset = data.get(HEADER_INTS + entry * ENTRY_INTS + 1);
+        int games = data.get(offset);
+        if (games == 0) {
+            return null;
+        }
+
+        int cells = width * height;
+        int[] chance = book.getHeatmap(width, height, fleet);
+        long chanceTotal = 0;
+        if (chance != null) {
+            for (int count : chance) {
+                chanceTotal += count;
+            }
+        }
+        int shipCells = 0;
+        for (int length : fleet) {
+            shipCells += length;
+        }
+        float[] cellWeights = new float[cells];
+        int cellsOffset = offset + 1 + 2 * (width + 1);
+        for (int cell = 0; cell < cells; cell++) {
+            double expected = chanceTotal == 0 ? (double) shipCells / cells
+                    : (double) chance[cell] * shipCells / chanceTotal;
+            cellWeights[cell] = expected <= 0 ? 1f
+                    : (float) ((data.get(cellsOffset + cell) + PSEUDO_GAMES * expected)
+                            / ((games + PSEUDO_GAMES) * expected));
+        }
+
+        int[] horizontalWeights = new int[width + 1];
+        for (int length = 0; length <= width; length++) {
+            int horizontal = data.get(offset + 1 + 2 * length);
+            int vertical = data.get(offset + 2 + 2 * length);
+            double share = (horizontal + PSEUDO_GAMES / 2.0) / (horizontal + vertical + PSEUDO_GAMES);
+            int weight = (int) Math.round(PlacementPrior.ORIENTATION_SCALE * share);
+            horizontalWeights[length] = Math.max(1, Math.min(PlacementPrior.ORIENTATION_SCALE - 1, weight));
+        }
+
+        // A prior rebuilt with the book must not share density maps with the
+        // one built without it.
+        PlacementPrior prior = new PlacementPrior(cellWeights, horizontalWeights,
+                Zobrist.prior(width, current << 1 | (book.size() == 0 ? 0 : 1)));
+        snapshots[entry] = new Snapshot(current, book, prior);
+        return prior;
+    }
+
+    /**
+     * A prior, and the version of the tables and the opening book it was
+     * built from.
+     */
+    private static final class Snapshot {
+        final long version;
+        final OpeningBook book;
+        final PlacementPrior prior;
+
+        Snapshot(long version, OpeningBook book, PlacementPrior prior) {
+            this.version = version;
+            this.book = book;
+            this.prior = prior;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package strategy;
+
+/**
+ * The PlacementPrior class is an immutable snapshot of where one opponent
+ * tends to place ships, built by PlacementHabits from the layouts of earlier
+ * games. It gives every cell a weight relative to random placement (1 where
+ * the opponent behaves like chance, more where they put ships more often) and
+ * every ship length an integer weight per orientation.
+ */
+public final class PlacementPrior {
+
+    /** The sum of the two orientation weights of a length. */
+    public static final int ORIENTATION_SCALE = 32;
+
+    private final float[] cellWeights;
+    private final int[] horizontalWeights;
+    private final long hash;
+
+    PlacementPrior(float[] cellWeights, int[] horizontalWeights, long hash) {
+        this.cellWeights = cellWeights;
+        this.horizontalWeights = horizontalWeights;
+        this.hash = hash;
+    }
+
+    /**
+     * Returns the weight of a cell.
+     *
+     * @param cell the cell id
+     * @return the weight, 1 for a cell that holds ships as often as chance
+     */
+    public float getCellWeight(int cell) {
+        return cellWeights[cell];
+    }
+
+    /**
+     * Returns the weight of placements of a ship length in one orientation.
+     * The two orientations of a length add up to ORIENTATION_SCALE.
+     *
+     * @param length     the ship length
+     * @param horizontal true for placements along a row
+     * @return the weight, at least 1
+     */
+    public int getOrientationWeight(int length, boolean horizontal) {
+        int weight = length < horizontalWeights.length ? horizontalWeights[length] : ORIENTATION_SCALE / 2;
+        return horizontal ? weight : ORIENTATION_SCALE - weight;
+    }
+
+    /**
+     * Returns a key that identifies this snapshot, to be mixed into the
+     * Zobrist hash of positions counted with it.
+     *
+     * @return the key
+     */
+    public long getHash() {
+        return hash;
+    }
+}
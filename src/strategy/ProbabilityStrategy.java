@@ -0,0 +1,217 @@
+package strategy;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import model.SparseBoard;
+
+/**
+ * The ProbabilityStrategy class fires at the cell most likely to hold a ship.
+ * For every ship still afloat it counts the placements that avoid known water
+ * and sunk ships, and adds them up per cell. Placements through unsunk hits
+ * are weighted heavily, so the strategy finishes off damaged ships before it
+ * hunts for new ones.
+ *
+ * The count is stopped when the time budget runs out; the best cell found so
+ * far is used, or a random one if nothing has been counted yet.
+ *
+ * Complete density maps are kept in a transposition cache keyed by the
+ * Zobrist hash of the history, so positions that recur, such as the opening
+ * and early moves of every game, are not counted again. The cache is kept
+ * across games, and the map of the first move comes from the OpeningBook.
+ * It holds as many maps of the current board size as fit in
+ * MAP_CACHE_BYTES, and starts over empty when the board size changes.
+ *
+ * When the history carries a PlacementPrior, placements are weighted by the
+ * opponent's favourite orientation for their length and cells by how often
+ * the opponent puts ships there. Maps counted with a prior are cached under
+ * the position hash mixed with the prior's key.
+ *
+ * Once few ships remain, the EndgameSolver searches for the exact best shot
+ * within at most {@code battleship.endgame.ms} milliseconds (default 50) of
+ * the budget; if it cannot finish, the density count decides.
+ */
+public class ProbabilityStrategy implements OpponentStrategy {
+
+    private static final int HIT_WEIGHT = 50;
+    private static final int MAP_CACHE_BYTES = 1 << 20;
+    private static final int MIN_MAP_CACHE_SIZE = 16;
+    private static final long ENDGAME_NANOS = Long.getLong("battleship.endgame.ms", 50) * 1_000_000L;
+
+    private final Random random = new Random();
+    private final EndgameSolver endgame = new EndgameSolver();
+    private TranspositionCache<int[]> maps;
+    private int mapCells;
+    private int[] density = new int[0];
+    private int candidates;
+
+    @Override
+    public String getName() {
+        return "Probability";
+    }
+
+    @Override
+    public int chooseCell(ShotHistory history, long budgetNanos) {
+        long deadline = budgetNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + budgetNanos / 2;
+        int width = history.getWidth();
+        int height = history.getHeight();
+        int cells = width * height;
+        candidates = 0;
+
+        int[] lengths = history.getRemainingLengths();
+        if (lengths.length <= EndgameSolver.MAX_SHIPS) {
+            long endgameBudget = Math.min(ENDGAME_NANOS, budgetNanos / 2);
+            int cell = endgame.solve(history, System.nanoTime() + endgameBudget);
+            if (cell >= 0) {
+                candidates = endgame.getLayoutCount();
+                return cell;
+            }
+        }
+
+        PlacementPrior prior = history.getPrior();
+        int[] map = maps(cells).get(key(history));
+        if (map == null && prior == null && isUntouched(history)) {
+            map = OpeningBook.current().getHeatmap(width, height, lengths);
+            if (map != null) {
+                maps.put(history.getZobristHash(), map);
+            }
+        }
+        if (map == null) {
+            map = countPlacements(history, lengths, deadline);
+        }
+
+        int best = -1;
+        double bestScore = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (history.getState(cell) != SparseBoard.UNKNOWN || map[cell] == 0) {
+                continue;
+            }
+            double score = prior == null ? map[cell] : map[cell] * (double) prior.getCellWeight(cell);
+            if (best < 0 || score > bestScore || (score == bestScore && random.nextBoolean())) {
+                best = cell;
+                bestScore = score;
+            }
+        }
+        return best >= 0 ? best : RandomStrategy.randomUnknown(history, random);
+    }
+
+    /**
+     * Counts the placements of the remaining ships through every cell. A
+     * complete count is stored in the transposition cache.
+     *
+     * @return the density map
+     */
+    int[] countPlacements(ShotHistory history, int[] lengths, long deadline) {
+        int cells = history.getWidth() * history.getHeight();
+        if (density.length != cells) {
+            density = new int[cells];
+        }
+        Arrays.fill(density, 0);
+
+        for (int ship = 0; ship < lengths.length; ship++) {
+            // Ships of the same length give the same counts.
+            if (ship > 0 && lengths[ship] == lengths[ship - 1]) {
+                continue;
+            }
+            int copies = 1;
+            while (ship + copies < lengths.length && lengths[ship + copies] == lengths[ship]) {
+                copies++;
+            }
+            addPlacements(history, lengths[ship], copies, true);
+            addPlacements(history, lengths[ship], copies, false);
+            if (System.nanoTime() > deadline) {
+                return density;
+            }
+        }
+        maps(cells).put(key(history), density.clone());
+        return density;
+    }
+
+    /**
+     * Returns the map cache of a board size, replacing the cache of another
+     * size.
+     */
+    private TranspositionCache<int[]> maps(int cells) {
+        if (cells != mapCells) {
+            // Rounded down, as the cache rounds its capacity up to a power of two.
+            int capacity = Integer.highestOneBit(Math.max(MIN_MAP_CACHE_SIZE, MAP_CACHE_BYTES / (4 * cells)));
+            maps = new TranspositionCache<>(capacity);
+            mapCells = cells;
+        }
+        return maps;
+    }
+
+    /**
+     * Checks whether nothing is known about the board yet, so the opening
+     * heatmap applies. Salvo histories mark cells without listing shots.
+     */
+    private static boolean isUntouched(ShotHistory history) {
+        if (history.getShotCount() != 0) {
+            return false;
+        }
+        for (int cell = history.getWidth() * history.getHeight() - 1; cell >= 0; cell--) {
+            if (history.getState(cell) != SparseBoard.UNKNOWN) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cache key of a history's density map.
+     */
+    private static long key(ShotHistory history) {
+        PlacementPrior prior = history.getPrior();
+        return prior == null ? history.getZobristHash() : history.getZobristHash() ^ prior.getHash();
+    }
+
+    /**
+     * Adds the placements of one ship length in one orientation to the density
+     * map.
+     */
+    private void addPlacements(ShotHistory history, int length, int copies, boolean horizontal) {
+        PlacementPrior prior = history.getPrior();
+        int orientation = prior == null ? 1 : prior.getOrientationWeight(length, horizontal);
+        int width = history.getWidth();
+        int height = history.getHeight();
+        int step = horizontal ? 1 : width;
+        int rows = horizontal ? height : height - length + 1;
+        int cols = horizontal ? width - length + 1 : width;
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int start = row * width + col;
+                int hits = 0;
+                boolean blocked = false;
+                for (int i = 0, cell = start; i < length; i++, cell += step) {
+                    int state = history.getState(cell);
+                    if (state == SparseBoard.MISSED || state == SparseBoard.SUNK) {
+                        blocked = true;
+                        break;
+                    }
+                    if (state == SparseBoard.HIT) {
+                        hits++;
+                    }
+                }
+                if (blocked) {
+                    continue;
+                }
+                candidates++;
+                int weight = orientation * copies * (hits == 0 ? 1 : HIT_WEIGHT * hits);
+                for (int i = 0, cell = start; i < length; i++, cell += step) {
+                    density[cell] += weight;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getCandidatesEvaluated() {
+        return candidates;
+    }
+
+    @Override
+    public void reset() {
+        endgame.reset();
+    }
+}
@@ -0,0 +1,67 @@
+package strategy;
+
+import java.util.Random;
+
+import model.SparseBoard;
+
+/**
+ * The RandomStrategy class fires at a random cell that has not been shot yet.
+ * It is the original behaviour of the computer opponent.
+ */
+public class RandomStrategy implements OpponentStrategy {
+
+    private final Random random = new Random();
+    private int candidates;
+
+    @Override
+    public String getName() {
+        return "Random";
+    }
+
+    @Override
+    public int chooseCell(ShotHistory history, long budgetNanos) {
+        candidates = 1;
+        return randomUnknown(history, random);
+    }
+
+    @Override
+    public int getCandidatesEvaluated() {
+        return candidates;
+    }
+
+    /**
+     * Returns a random cell that has not been shot. Random probes are tried
+     * first; once the board is mostly shot, the unknown cells are counted and
+     * one is picked directly.
+     *
+     * @param history the shot history
+     * @param random  the source of randomness
+     * @return an unknown cell, or -1 if every cell has been shot
+     */
+    static int randomUnknown(ShotHistory history, Random random) {
+        int cells = history.getWidth() * history.getHeight();
+        for (int probe = 0; probe < 32; probe++) {
+            int cell = random.nextInt(cells);
+            if (history.getState(cell) == SparseBoard.UNKNOWN) {
+                return cell;
+            }
+        }
+
+        int unknown = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (history.getState(cell) == SparseBoard.UNKNOWN) {
+                unknown++;
+            }
+        }
+        if (unknown == 0) {
+            return -1;
+        }
+        int pick = random.nextInt(unknown);
+        for (int cell = 0; cell < cells; cell++) {
+            if (history.getState(cell) == SparseBoard.UNKNOWN && pick-- == 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,85 @@
+package strategy;
+
+/**
+ * The ShotHistory interface is the read-only view of a board that an
+ * OpponentStrategy receives: every shot fired so far, its result, and the
+ * ships that are still afloat. It never reveals where unhit ships are.
+ *
+ * Cells are numbered row * width + column, starting at 0. The cell states are
+ * the SparseBoard constants UNKNOWN, MISSED, HIT and SUNK.
+ */
+public interface ShotHistory {
+
+    /**
+     * @return the number of columns
+     */
+    int getWidth();
+
+    /**
+     * @return the number of rows
+     */
+    int getHeight();
+
+    /**
+     * Returns what is known about a cell.
+     *
+     * @param cell the cell id
+     * @return UNKNOWN, MISSED, HIT (a ship still afloat) or SUNK
+     */
+    int getState(int cell);
+
+    /**
+     * @return the number of shots fired
+     */
+    int getShotCount();
+
+    /**
+     * Returns a fired shot.
+     *
+     * @param index the index of the shot, 0 for the first
+     * @return the cell that was shot
+     */
+    int getShot(int index);
+
+    /**
+     * Returns the result of a fired shot.
+     *
+     * @param index the index of the shot, 0 for the first
+     * @return MISSED, HIT or SUNK
+     */
+    int getResult(int index);
+
+    /**
+     * Returns the lengths of the ships that are still afloat, longest first.
+     *
+     * @return a new array of ship lengths
+     */
+    int[] getRemainingLengths();
+
+    /**
+     * Returns the Zobrist hash of what is known: the board size, every shot
+     * cell and its state, and the ships still afloat. Histories reached by
+     * different shot orders have the same hash.
+     *
+     * @return the position hash
+     */
+    long getZobristHash();
+
+    /**
+     * Returns what is known about where the opponent tends to place ships.
+     *
+     * @return the placement prior, or null to assume random placement
+     */
+    default PlacementPrior getPrior() {
+        return null;
+    }
+
+    /**
+     * Checks whether ships on the board may not touch, not even diagonally.
+     *
+     * @return true if the no-touch rule applies
+     */
+    default boolean isNoTouch() {
+        return false;
+    }
+}
@@ -0,0 +1,256 @@
+package strategy;
+
+import java.util.Arrays;
+
+import model.SparseBoard;
+
+/**
+ * The ShotLog class records the shots fired at one board and is the
+ * ShotHistory handed to strategies. The game records every resolved shot with
+ * record and every sunk ship with recordSunk; strategies only get the
+ * read-only ShotHistory interface.
+ *
+ * The Zobrist hash of the log is updated incrementally with every recorded
+ * shot and sunk ship.
+ *
+ * The log is kept in plain arrays, so recording a shot allocates nothing.
+ * getSnapshot builds an immutable BoardState from it only when asked, and
+ * carries on from the last snapshot, so it costs nothing for code that never
+ * asks for one.
+ *
+ * Under the no-touch rule the cells around a sunk ship cannot hold a ship;
+ * recordSunk marks those still unknown as MISSED without listing them as
+ * shots, as VolleyHistory does with pending cells.
+ */
+public class ShotLog implements ShotHistory {
+
+    private final int width;
+    private final int height;
+    private final int[] fleet;
+    private final byte[] states;
+    private final int[] remainingByLength;
+    private int[] shots = new int[64];
+    private byte[] results = new byte[64];
+    private int shotCount;
+    private int[][] sunkShips = new int[8][];
+    private int[] sunkAfter = new int[8];
+    private int sunkCount;
+    private int remainingShips;
+    private long hash;
+    private PlacementPrior prior;
+    private boolean noTouch;
+    private BoardState snapshot;
+    private int snapshotShots;
+    private int snapshotSunk;
+
+    /**
+     * Constructs an empty log for a board and fleet.
+     *
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @param fleet  the length of every ship
+     */
+    public ShotLog(int width, int height, int[] fleet) {
+        this.width = width;
+        this.height = height;
+        this.fleet = fleet.clone();
+        states = new byte[width * height];
+        Arrays.fill(states, (byte) SparseBoard.UNKNOWN);
+
+        int longest = 0;
+        for (int length : fleet) {
+            longest = Math.max(longest, length);
+        }
+        remainingByLength = new int[longest + 1];
+        for (int length : fleet) {
+            remainingByLength[length]++;
+        }
+        remainingShips = fleet.length;
+
+        hash = Zobrist.board(width, height);
+        for (int length = 1; length <= longest; length++) {
+            hash ^= Zobrist.fleet(length, remainingByLength[length]);
+        }
+    }
+
+    /**
+     * Records a resolved shot. A sinking shot is recorded as HIT here and
+     * upgraded by recordSunk.
+     *
+     * @param cell   the cell that was shot
+     * @param result MISSED, HIT or SUNK
+     */
+    public void record(int cell, int result) {
+        if (shotCount == shots.length) {
+            shots = Arrays.copyOf(shots, shotCount * 2);
+            results = Arrays.copyOf(results, shotCount * 2);
+        }
+        shots[shotCount] = cell;
+        results[shotCount] = (byte) result;
+        shotCount++;
+        setState(cell, result == SparseBoard.MISSED ? SparseBoard.MISSED : SparseBoard.HIT);
+    }
+
+    /**
+     * Changes the state of a cell and updates the hash.
+     */
+    private void setState(int cell, int state) {
+        if (states[cell] != SparseBoard.UNKNOWN) {
+            hash ^= Zobrist.cell(cell, states[cell]);
+        }
+        states[cell] = (byte) state;
+        hash ^= Zobrist.cell(cell, state);
+    }
+
+    /**
+     * Records that a ship has been sunk.
+     *
+     * @param cells the cells of the sunk ship
+     * @throws IllegalArgumentException if no ship of that many cells is
+     *                                  afloat in the fleet
+     */
+    public void recordSunk(int[] cells) {
+        int length = cells.length;
+        if (length >= remainingByLength.length || remainingByLength[length] == 0) {
+            throw new IllegalArgumentException("No ship of " + length + " cells is afloat");
+        }
+        for (int cell : cells) {
+            setState(cell, SparseBoard.SUNK);
+        }
+        if (noTouch) {
+            for (int cell : cells) {
+                int row = cell / width;
+                int col = cell % width;
+                for (int r = Math.max(0, row - 1); r <= Math.min(height - 1, row + 1); r++) {
+                    for (int c = Math.max(0, col - 1); c <= Math.min(width - 1, col + 1); c++) {
+                        if (states[r * width + c] == SparseBoard.UNKNOWN) {
+                            setState(r * width + c, SparseBoard.MISSED);
+                        }
+                    }
+                }
+            }
+        }
+        hash ^= Zobrist.fleet(length, remainingByLength[length]);
+        remainingByLength[length]--;
+        hash ^= Zobrist.fleet(length, remainingByLength[length]);
+        remainingShips--;
+
+        if (sunkCount == sunkShips.length) {
+            sunkShips = Arrays.copyOf(sunkShips, sunkCount * 2);
+            sunkAfter = Arrays.copyOf(sunkAfter, sunkCount * 2);
+        }
+        sunkShips[sunkCount] = cells.clone();
+        sunkAfter[sunkCount] = shotCount;
+        sunkCount++;
+    }
+
+    /**
+     * Returns the log as it is now. The snapshot does not change as more
+     * shots are recorded, and may be read or branched from on any thread;
+     * its previous versions step back one shot or sunk ship at a time.
+     *
+     * @return the current version
+     */
+    public BoardState getSnapshot() {
+        BoardState state = snapshot;
+        if (state == null) {
+            state = BoardState.empty(width, height, fleet).withPrior(prior).withNoTouch(noTouch);
+        }
+        int shot = snapshotShots;
+        int sunk = snapshotSunk;
+        while (shot < shotCount || sunk < sunkCount) {
+            if (sunk < sunkCount && sunkAfter[sunk] == shot) {
+                state = state.sink(sunkShips[sunk++]);
+            } else {
+                state = state.shoot(shots[shot], results[shot]);
+                shot++;
+            }
+        }
+        snapshot = state;
+        snapshotShots = shot;
+        snapshotSunk = sunk;
+        return state;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getState(int cell) {
+        return states[cell];
+    }
+
+    @Override
+    public int getShotCount() {
+        return shotCount;
+    }
+
+    @Override
+    public int getShot(int index) {
+        return shots[index];
+    }
+
+    @Override
+    public int getResult(int index) {
+        return results[index];
+    }
+
+    @Override
+    public long getZobristHash() {
+        return hash;
+    }
+
+    @Override
+    public PlacementPrior getPrior() {
+        return prior;
+    }
+
+    /**
+     * Sets the placement prior handed to strategies.
+     *
+     * @param prior the prior, or null for random placement
+     */
+    public void setPrior(PlacementPrior prior) {
+        this.prior = prior;
+        if (snapshot != null) {
+            snapshot = snapshot.withPrior(prior);
+        }
+    }
+
+    /**
+     * Sets whether ships on the board may not touch, so that the cells
+     * around every sunk ship are known to be water.
+     *
+     * @param noTouch true if the no-touch rule applies
+     */
+    public void setNoTouch(boolean noTouch) {
+        this.noTouch = noTouch;
+        if (snapshot != null) {
+            snapshot = snapshot.withNoTouch(noTouch);
+        }
+    }
+
+    @Override
+    public boolean isNoTouch() {
+        return noTouch;
+    }
+
+    @Override
+    public int[] getRemainingLengths() {
+        int[] lengths = new int[remainingShips];
+        int index = 0;
+        for (int length = remainingByLength.length - 1; length > 0; length--) {
+            for (int i = 0; i < remainingByLength[length]; i++) {
+                lengths[index++] = length;
+            }
+        }
+        return lengths;
+    }
+}
@@ -0,0 +1,193 @@
+package strategy;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import diagnostics.EngineStats;
+import diagnostics.Log;
+import model.SparseBoard;
+
+/**
+ * The StrategyRegistry class finds the available opponent strategies with
+ * java.util.ServiceLoader and runs their decisions. Strategies are loaded once
+ * and cached; if the service file is missing from the classpath the built-in
+ * strategies are used. Strategies that are not available in this run, such
+ * as an external bot that is not configured, are left out.
+ *
+ * Every decision made through choose is timed and, where the JVM supports it,
+ * the bytes it allocated are measured. Both are reported per strategy in
+ * EngineStats, so strategies can be compared on the same games.
+ */
+public final class StrategyRegistry {
+
+    private static List<OpponentStrategy> strategies;
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+    private static final Random RANDOM = new Random();
+
+    private StrategyRegistry() {
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the available strategies, loading them on first use.
+     *
+     * @return the strategies in service file order
+     */
+    public static synchronized List<OpponentStrategy> getStrategies() {
+        if (strategies == null) {
+            List<OpponentStrategy> loaded = new ArrayList<>();
+            try {
+                for (OpponentStrategy strategy : ServiceLoader.load(OpponentStrategy.class)) {
+                    if (strategy.isAvailable()) {
+                        loaded.add(strategy);
+                    }
+                }
+            } catch (ServiceConfigurationError e) {
+                Log.warn("Could not load opponent strategies: {}", e.getMessage());
+            }
+            if (loaded.isEmpty()) {
+                loaded.add(new RandomStrategy());
+                loaded.add(new HuntTargetStrategy());
+                loaded.add(new ProbabilityStrategy());
+            }
+            strategies = Collections.unmodifiableList(loaded);
+            Log.info("Loaded {} opponent strategies", loaded.size());
+        }
+        return strategies;
+    }
+
+    /**
+     * Returns the names of the available strategies.
+     *
+     * @return the strategy names
+     */
+    public static String[] getNames() {
+        List<OpponentStrategy> list = getStrategies();
+        String[] names = new String[list.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = list.get(i).getName();
+        }
+        return names;
+    }
+
+    /**
+     * Looks a strategy up by name.
+     *
+     * @param name the strategy name
+     * @return the strategy, or the first available strategy if none matches
+     */
+    public static OpponentStrategy byName(String name) {
+        for (OpponentStrategy strategy : getStrategies()) {
+            if (strategy.getName().equals(name)) {
+                return strategy;
+            }
+        }
+        return getStrategies().get(0);
+    }
+
+    /**
+     * Asks a strategy for its next cell and records the decision time and
+     * allocation in EngineStats.
+     *
+     * @param strategy    the strategy
+     * @param history     the shot history
+     * @param budgetNanos the time allowed for the decision
+     * @return the chosen cell
+     */
+    public static int choose(OpponentStrategy strategy, ShotHistory history, long budgetNanos) {
+        long thread = Thread.currentThread().getId();
+        long bytesBefore = THREADS != null ? THREADS.getThreadAllocatedBytes(thread) : -1;
+        long start = System.nanoTime();
+        int cell = strategy.chooseCell(history, budgetNanos);
+        long nanos = System.nanoTime() - start;
+        long bytes = THREADS != null ? THREADS.getThreadAllocatedBytes(thread) - bytesBefore : -1;
+
+        EngineStats.get().aiDecision(nanos);
+        EngineStats.get().strategyDecision(strategy.getName(), nanos, bytes);
+        return cell;
+    }
+
+    /**
+     * Asks a strategy for the cells of a salvo. The cells are chosen one at a
+     * time through choose, each choice treating the cells already chosen as
+     * water, and share the budget equally.
+     *
+     * @param strategy    the strategy
+     * @param history     the shot history before the salvo
+     * @param count       the number of shots in the salvo
+     * @param budgetNanos the time allowed for the whole salvo
+     * @return the distinct cells chosen, fewer than count if fewer cells are
+     *         unknown, and the candidates evaluated for them
+     */
+    public static Volley chooseVolley(OpponentStrategy strategy, ShotHistory history, int count, long budgetNanos) {
+        int cells = history.getWidth() * history.getHeight();
+        int unknown = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (history.getState(cell) == SparseBoard.UNKNOWN) {
+                unknown++;
+            }
+        }
+        int[] volley = new int[Math.min(count, unknown)];
+        long budget = budgetNanos == Long.MAX_VALUE ? budgetNanos : budgetNanos / Math.max(1, volley.length);
+        VolleyHistory view = new VolleyHistory(history);
+        int candidates = 0;
+        for (int i = 0; i < volley.length; i++) {
+            int cell = choose(strategy, view, budget);
+            candidates += strategy.getCandidatesEvaluated();
+            if (view.getState(cell) != SparseBoard.UNKNOWN) {
+                cell = RandomStrategy.randomUnknown(view, RANDOM);
+            }
+            view.choose(cell);
+            volley[i] = cell;
+        }
+        return new Volley(volley, candidates);
+    }
+
+    /**
+     * The cells of a salvo and the candidates evaluated to choose them.
+     */
+    public static final class Volley {
+        private final int[] cells;
+        private final int candidates;
+
+        Volley(int[] cells, int candidates) {
+            this.cells = cells;
+            this.candidates = candidates;
+        }
+
+        /**
+         * Returns the cells of the salvo.
+         *
+         * @return the distinct cells chosen
+         */
+        public int[] getCells() {
+            return cells;
+        }
+
+        /**
+         * Returns how many candidate cells the strategy evaluated for the
+         * whole salvo.
+         *
+         * @return the candidate count, summed over the shots
+         */
+        public int getCandidatesEvaluated() {
+            return candidates;
+        }
+    }
+}
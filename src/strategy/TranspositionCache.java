@@ -0,0 +1,122 @@
+package strategy;
+
+import java.util.Arrays;
+
+import diagnostics.EngineStats;
+
+/**
+ * The TranspositionCache class is a bounded map from 64-bit position hashes
+ * to search results, such as probability maps or solver values.
+ *
+ * The cache is a fixed array of two-entry buckets; a hash can only live in its
+ * bucket. When both entries of a bucket are taken, the one used least recently
+ * is evicted. Memory is therefore fixed at construction, lookups touch at most
+ * two entries, and results that are still being reused survive. Lookups and
+ * evictions are reported to EngineStats.
+ *
+ * A cache is not thread-safe; each strategy keeps its own.
+ *
+ * @param <V> the type of the cached results
+ */
+public class TranspositionCache<V> {
+
+    private final long[] keys;
+    private final Object[] values;
+    private final long[] lastUsed;
+    private final int bucketMask;
+    private long clock;
+    private int size;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param capacity the maximum number of entries, rounded up to a power of
+     *                 two of at least 2
+     */
+    public TranspositionCache(int capacity) {
+        int entries = Math.max(2, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+        keys = new long[entries];
+        values = new Object[entries];
+        lastUsed = new long[entries];
+        bucketMask = entries / 2 - 1;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param hash the position hash
+     * @return the cached result, or null if it is not cached
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long hash) {
+        int slot = bucket(hash);
+        for (int i = slot; i < slot + 2; i++) {
+            if (values[i] != null && keys[i] == hash) {
+                lastUsed[i] = ++clock;
+                EngineStats.get().transpositionLookup(true);
+                return (V) values[i];
+            }
+        }
+        EngineStats.get().transpositionLookup(false);
+        return null;
+    }
+
+    /**
+     * Stores the result of a position, evicting the least recently used entry
+     * of its bucket if the bucket is full.
+     *
+     * @param hash  the position hash
+     * @param value the result, not null
+     */
+    public void put(long hash, V value) {
+        int slot = bucket(hash);
+        int target = slot;
+        for (int i = slot; i < slot + 2; i++) {
+            if (values[i] == null || keys[i] == hash) {
+                target = i;
+                break;
+            }
+            if (lastUsed[i] < lastUsed[target]) {
+                target = i;
+            }
+        }
+        if (values[target] == null) {
+            size++;
+        } else if (keys[target] != hash) {
+            EngineStats.get().transpositionEviction();
+        }
+        keys[target] = hash;
+        values[target] = value;
+        lastUsed[target] = ++clock;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    private int bucket(long hash) {
+        return (int) ((hash ^ (hash >>> 32)) & bucketMask) << 1;
+    }
+}
@@ -0,0 +1,84 @@
+package strategy;
+
+import model.SparseBoard;
+
+/**
+ * The VolleyHistory class shows a strategy the shot history with the cells
+ * already chosen for the current salvo marked as water, so that choosing
+ * again yields a different cell. The chosen cells change the state and the
+ * Zobrist hash but are not listed as shots: they have no results yet, and
+ * strategies that replay the shot list, such as ExternalBotStrategy, must
+ * not report them.
+ */
+final class VolleyHistory implements ShotHistory {
+
+    private final ShotHistory history;
+    private final boolean[] pending;
+    private long hash;
+
+    VolleyHistory(ShotHistory history) {
+        this.history = history;
+        this.pending = new boolean[history.getWidth() * history.getHeight()];
+        this.hash = history.getZobristHash();
+    }
+
+    /**
+     * Marks a cell as chosen for the volley.
+     *
+     * @param cell a cell of unknown state
+     */
+    void choose(int cell) {
+        pending[cell] = true;
+        hash ^= Zobrist.cell(cell, SparseBoard.MISSED);
+    }
+
+    @Override
+    public int getWidth() {
+        return history.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return history.getHeight();
+    }
+
+    @Override
+    public int getState(int cell) {
+        return pending[cell] ? SparseBoard.MISSED : history.getState(cell);
+    }
+
+    @Override
+    public int getShotCount() {
+        return history.getShotCount();
+    }
+
+    @Override
+    public int getShot(int index) {
+        return history.getShot(index);
+    }
+
+    @Override
+    public int getResult(int index) {
+        return history.getResult(index);
+    }
+
+    @Override
+    public int[] getRemainingLengths() {
+        return history.getRemainingLengths();
+    }
+
+    @Override
+    public long getZobristHash() {
+        return hash;
+    }
+
+    @Override
+    public PlacementPrior getPrior() {
+        return history.getPrior();
+    }
+
+    @Override
+    public boolean isNoTouch() {
+        return history.isNoTouch();
+    }
+}
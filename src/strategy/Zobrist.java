@@ -0,0 +1,75 @@
+package strategy;
+
+/**
+ * The Zobrist class supplies the random keys of the Zobrist hash of board
+ * knowledge. The hash of a position is the XOR of one key for the board size,
+ * one key for every shot cell and its state (MISSED, HIT or SUNK), and one key
+ * for the number of ships of every length still afloat. Revealing a cell or
+ * sinking a ship changes the hash with a few XORs, and positions reached by
+ * different shot orders get the same hash.
+ *
+ * Keys are derived from their index with the SplitMix64 finaliser instead of
+ * being stored in tables, so boards of any size need no memory and every run
+ * produces the same hashes.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x5DEECE66DL;
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of a board size, the hash of an empty board.
+     *
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @return the key
+     */
+    public static long board(int width, int height) {
+        return key(1, ((long) width << 32) | height);
+    }
+
+    /**
+     * Returns the key of a cell in a known state.
+     *
+     * @param cell  the cell id
+     * @param state MISSED, HIT or SUNK
+     * @return the key
+     */
+    public static long cell(int cell, int state) {
+        return key(2, (long) cell * 4 + state);
+    }
+
+    /**
+     * Returns the key of the number of ships of a length still afloat.
+     *
+     * @param length the ship length
+     * @param count  the number of such ships afloat
+     * @return the key
+     */
+    public static long fleet(int length, int count) {
+        return key(3, ((long) length << 32) | count);
+    }
+
+    /**
+     * Returns the key of a placement prior, mixed into the hash of positions
+     * whose density maps were counted with it.
+     *
+     * @param size    the board size the prior belongs to
+     * @param version the version of the tables the prior was built from,
+     *                and whether the opening book was loaded
+     * @return the key
+     */
+    public static long prior(int size, long version) {
+        return key(4, ((long) size << 40) ^ version);
+    }
+
+    private static long key(int kind, long index) {
+        long z = SEED + kind * 0x632BE59BD9B4E019L + index * GOLDEN;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,362 @@
+package view;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+import miscellaneous.Misc;
+import model.SparseBoard;
+
+/**
+ * The BoardViewport class shows a SparseBoard of any size through a pannable,
+ * zoomable window. The board is rendered in square tiles that are cached per
+ * zoom level; painting only blits visible tiles and re-renders those that are
+ * missing or marked dirty by a shot. The tile cache is a bounded LRU map
+ * holding twice as many tiles as fit in the viewport, and at least MIN_TILES,
+ * so memory follows the window size rather than the board size and panning
+ * back finds the tiles it left.
+ *
+ * A minimap in the bottom-right corner shows shot coverage of the whole board
+ * and the visible area.
+ *
+ * Drag to pan, use the mouse wheel to zoom around the pointer, and click a
+ * cell to fire an ActionEvent; the clicked cell is then available from
+ * getSelectedCell.
+ */
+public class BoardViewport extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    private static final int TILE_SIZE = 256;
+    private static final int MIN_TILES = 16;
+    private static final int MIN_CELL_SIZE = 1;
+    private static final int MAX_CELL_SIZE = 64;
+    private static final int MINIMAP_SIZE = 160;
+    private static final Color BACKGROUND = new Color(26, 20, 35);
+
+    private final SparseBoard board;
+    private final Map<Long, Tile> tiles = new LinkedHashMap<Long, Tile>(MIN_TILES, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+            return size() > getTileLimit();
+        }
+    };
+    private final BufferedImage minimap;
+    private final double minimapScale;
+
+    private int cellSize = 12;
+    private int offsetX;
+    private int offsetY;
+    private int selectedCell = -1;
+
+    /**
+     * Constructs a viewport showing the given board.
+     *
+     * @param board the board to show
+     */
+    public BoardViewport(SparseBoard board) {
+        this.board = board;
+        setPreferredSize(new Dimension(Misc.WIDTH, Misc.HEIGHT));
+        setOpaque(true);
+
+        minimapScale = Math.max(board.getWidth(), board.getHeight()) / (double) MINIMAP_SIZE;
+        minimap = new BufferedImage((int) Math.ceil(board.getWidth() / minimapScale),
+                (int) Math.ceil(board.getHeight() / minimapScale), BufferedImage.TYPE_INT_RGB);
+        Graphics g = minimap.getGraphics();
+        g.setColor(Misc.UNSELECTED_COLOR);
+        g.fillRect(0, 0, minimap.getWidth(), minimap.getHeight());
+        g.dispose();
+
+        MouseAdapter mouse = new MouseAdapter() {
+            private Point pressed;
+            private boolean dragged;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                pressed = e.getPoint();
+                dragged = false;
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                panBy(pressed.x - e.getX(), pressed.y - e.getY());
+                pressed = e.getPoint();
+                dragged = true;
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (!dragged && SwingUtilities.isLeftMouseButton(e)) {
+                    int cell = cellAt(e.getX(), e.getY());
+                    if (cell >= 0) {
+                        selectedCell = cell;
+                        fireActionPerformed();
+                    }
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoomAt(e.getX(), e.getY(), e.getWheelRotation() < 0 ? cellSize * 2 : cellSize / 2);
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    /**
+     * Adds a listener notified when a cell is clicked.
+     *
+     * @param listener the listener to add
+     */
+    public void addActionListener(ActionListener listener) {
+        listenerList.add(ActionListener.class, listener);
+    }
+
+    private void fireActionPerformed() {
+        ActionEvent event = new ActionEvent(this, ActionEvent.ACTION_PERFORMED, "shoot");
+        for (ActionListener listener : listenerList.getListeners(ActionListener.class)) {
+            listener.actionPerformed(event);
+        }
+    }
+
+    /**
+     * Returns the board shown by this viewport.
+     *
+     * @return the board
+     */
+    public SparseBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * Returns the last clicked cell.
+     *
+     * @return the cell id, or -1 if no cell has been clicked
+     */
+    public int getSelectedCell() {
+        return selectedCell;
+    }
+
+    /**
+     * Marks a cell as changed: cached tiles containing it are re-rendered on
+     * the next paint, the minimap is updated, and only the cell's area is
+     * repainted.
+     *
+     * @param cellId the cell id
+     */
+    public void cellChanged(int cellId) {
+        int row = cellId / board.getWidth();
+        int col = cellId % board.getWidth();
+
+        for (Tile tile : tiles.values()) {
+            if (tile.contains(row, col)) {
+                tile.dirty = true;
+            }
+        }
+
+        int state = board.getCellState(cellId);
+        int miniX = (int) (col / minimapScale);
+        int miniY = (int) (row / minimapScale);
+        if (state != SparseBoard.MISSED || minimap.getRGB(miniX, miniY) == Misc.UNSELECTED_COLOR.getRGB()) {
+            minimap.setRGB(miniX, miniY, colorOf(state).getRGB());
+        }
+
+        repaint(col * cellSize - offsetX, row * cellSize - offsetY, cellSize, cellSize);
+        repaint(getWidth() - minimap.getWidth() - 10, getHeight() - minimap.getHeight() - 10, minimap.getWidth(),
+                minimap.getHeight());
+    }
+
+    /**
+     * Returns the cell under a point of the component.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the cell id, or -1 if the point is outside the board
+     */
+    public int cellAt(int x, int y) {
+        int col = (x + offsetX) / cellSize;
+        int row = (y + offsetY) / cellSize;
+        if (x + offsetX < 0 || y + offsetY < 0 || col >= board.getWidth() || row >= board.getHeight()) {
+            return -1;
+        }
+        return row * board.getWidth() + col;
+    }
+
+    private void panBy(int dx, int dy) {
+        offsetX = clamp(offsetX + dx, board.getWidth() * cellSize - getWidth());
+        offsetY = clamp(offsetY + dy, board.getHeight() * cellSize - getHeight());
+        repaint();
+    }
+
+    private void zoomAt(int x, int y, int newCellSize) {
+        newCellSize = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, newCellSize));
+        if (newCellSize == cellSize) {
+            return;
+        }
+        // Keep the board point under the pointer fixed.
+        double boardX = (x + offsetX) / (double) cellSize;
+        double boardY = (y + offsetY) / (double) cellSize;
+        cellSize = newCellSize;
+        offsetX = 0;
+        offsetY = 0;
+        panBy((int) (boardX * cellSize) - x, (int) (boardY * cellSize) - y);
+    }
+
+    private static int clamp(int value, int max) {
+        return Math.max(0, Math.min(value, Math.max(0, max)));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(BACKGROUND);
+        g.fillRect(0, 0, getWidth(), getHeight());
+
+        int boardWidth = board.getWidth() * cellSize;
+        int boardHeight = board.getHeight() * cellSize;
+        int firstX = offsetX / TILE_SIZE;
+        int firstY = offsetY / TILE_SIZE;
+        int lastX = Math.min(offsetX + getWidth(), boardWidth - 1) / TILE_SIZE;
+        int lastY = Math.min(offsetY + getHeight(), boardHeight - 1) / TILE_SIZE;
+
+        for (int ty = firstY; ty <= lastY; ty++) {
+            for (int tx = firstX; tx <= lastX; tx++) {
+                Tile tile = getTile(tx, ty);
+                g.drawImage(tile.image, tx * TILE_SIZE - offsetX, ty * TILE_SIZE - offsetY, null);
+            }
+        }
+
+        paintMinimap(g);
+    }
+
+    /**
+     * Returns a cached tile, rendering it if it is missing or dirty.
+     */
+    private Tile getTile(int tx, int ty) {
+        long key = ((long) cellSize << 48) | ((long) tx << 24) | ty;
+        Tile tile = tiles.get(key);
+        if (tile == null) {
+            tile = new Tile(tx, ty, cellSize);
+            tiles.put(key, tile);
+        }
+        if (tile.dirty) {
+            renderTile(tile);
+        }
+        return tile;
+    }
+
+    private void renderTile(Tile tile) {
+        Graphics2D g = tile.image.createGraphics();
+        g.setColor(BACKGROUND);
+        g.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+
+        int size = tile.cellSize;
+        int originX = tile.tx * TILE_SIZE;
+        int originY = tile.ty * TILE_SIZE;
+        int width = board.getWidth();
+        int gap = size >= 6 ? 1 : 0;
+        for (int row = tile.firstRow; row <= tile.lastRow; row++) {
+            for (int col = tile.firstCol; col <= tile.lastCol; col++) {
+                g.setColor(colorOf(board.getCellState(row * width + col)));
+                g.fillRect(col * size - originX, row * size - originY, size - gap, size - gap);
+            }
+        }
+        g.dispose();
+        tile.dirty = false;
+    }
+
+    private void paintMinimap(Graphics g) {
+        int x = getWidth() - minimap.getWidth() - 10;
+        int y = getHeight() - minimap.getHeight() - 10;
+        g.drawImage(minimap, x, y, null);
+        g.setColor(Misc.WHITE);
+        g.drawRect(x - 1, y - 1, minimap.getWidth() + 1, minimap.getHeight() + 1);
+
+        double scale = cellSize * minimapScale;
+        g.setColor(Misc.HOVER_COLOR);
+        g.drawRect(x + (int) (offsetX / scale), y + (int) (offsetY / scale),
+                Math.min(minimap.getWidth(), (int) (getWidth() / scale)),
+                Math.min(minimap.getHeight(), (int) (getHeight() / scale)));
+    }
+
+    private static Color colorOf(int state) {
+        switch (state) {
+            case SparseBoard.MISSED:
+                return Misc.MISSED_COLOR;
+            case SparseBoard.HIT:
+                return Misc.HIT_COLOR;
+            case SparseBoard.SUNK:
+                return Misc.DESTROYED_COLOR;
+            default:
+                return Misc.UNSELECTED_COLOR;
+        }
+    }
+
+    /**
+     * Returns the number of tiles currently cached.
+     *
+     * @return the tile count, at most getTileLimit
+     */
+    public int getCachedTileCount() {
+        return tiles.size();
+    }
+
+    /**
+     * Returns the most tiles the cache keeps: twice the number of tiles a
+     * viewport of the current size can show at once, at least MIN_TILES.
+     *
+     * @return the tile limit
+     */
+    public int getTileLimit() {
+        int across = (getWidth() + TILE_SIZE - 1) / TILE_SIZE + 1;
+        int down = (getHeight() + TILE_SIZE - 1) / TILE_SIZE + 1;
+        return Math.max(MIN_TILES, 2 * across * down);
+    }
+
+    /**
+     * One cached square of the rendered board at a given zoom level.
+     */
+    private class Tile {
+        final BufferedImage image;
+        final int tx;
+        final int ty;
+        final int cellSize;
+        final int firstRow;
+        final int lastRow;
+        final int firstCol;
+        final int lastCol;
+        boolean dirty = true;
+
+        Tile(int tx, int ty, int cellSize) {
+            this.tx = tx;
+            this.ty = ty;
+            this.cellSize = cellSize;
+            image = getGraphicsConfiguration() != null
+                    ? getGraphicsConfiguration().createCompatibleImage(TILE_SIZE, TILE_SIZE)
+                    : new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+            firstCol = tx * TILE_SIZE / cellSize;
+            firstRow = ty * TILE_SIZE / cellSize;
+            lastCol = Math.min(board.getWidth() - 1, ((tx + 1) * TILE_SIZE - 1) / cellSize);
+            lastRow = Math.min(board.getHeight() - 1, ((ty + 1) * TILE_SIZE - 1) / cellSize);
+        }
+
+        boolean contains(int row, int col) {
+            return row >= firstRow && row <= lastRow && col >= firstCol && col <= lastCol;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package view;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+
+import javax.swing.AbstractButton;
+import javax.swing.ButtonModel;
+import javax.swing.JComponent;
+import javax.swing.UIManager;
+import javax.swing.plaf.ComponentUI;
+import javax.swing.plaf.basic.BasicButtonUI;
+
+/**
+ * The CellSpriteUI class paints the cells of the game boards from CellSprites.
+ * It is registered with the UIManager under Coordinate.UI_CLASS_ID, so the
+ * model's cells are painted by the view without knowing about sprites.
+ *
+ * A pressed cell is drawn darker, a cell under the mouse with a white border
+ * and a disabled cell with the look and feel's disabled text colour; each of
+ * these states is a sprite of its own. Everything else about the cell behaves
+ * as a BasicButtonUI button.
+ */
+public class CellSpriteUI extends BasicButtonUI {
+
+    private static final CellSpriteUI INSTANCE = new CellSpriteUI();
+    private static final Color BORDER = Color.GRAY;
+    private static final Color ROLLOVER_BORDER = Color.WHITE;
+
+    /**
+     * Returns the shared UI delegate. Called by the UIManager.
+     *
+     * @param component the cell
+     * @return the delegate
+     */
+    public static ComponentUI createUI(JComponent component) {
+        return INSTANCE;
+    }
+
+    /**
+     * Leaves the border to the sprite.
+     */
+    @Override
+    protected void installDefaults(AbstractButton button) {
+        super.installDefaults(button);
+        button.setBorderPainted(false);
+    }
+
+    @Override
+    protected void uninstallDefaults(AbstractButton button) {
+        button.setBorderPainted(true);
+        super.uninstallDefaults(button);
+    }
+
+    /**
+     * Paints the cell; the sprite covers the whole cell, so the background is
+     * not filled first.
+     */
+    @Override
+    public void update(Graphics g, JComponent component) {
+        paint(g, component);
+    }
+
+    @Override
+    public void paint(Graphics g, JComponent component) {
+        AbstractButton button = (AbstractButton) component;
+        ButtonModel model = button.getModel();
+        Color background = button.getBackground();
+        Color foreground = button.getForeground();
+        Color border = BORDER;
+        if (!model.isEnabled()) {
+            Color disabled = UIManager.getColor("Button.disabledText");
+            foreground = disabled != null ? disabled : Color.GRAY;
+        } else if (model.isArmed() && model.isPressed()) {
+            background = background.darker();
+        } else if (button.isRolloverEnabled() && model.isRollover()) {
+            border = ROLLOVER_BORDER;
+        }
+        double scale = ((Graphics2D) g).getTransform().getScaleX();
+        g.drawImage(CellSprites.get(background, foreground, border, button.getText(), button.getFont(),
+                button.getWidth(), button.getHeight(), scale), 0, 0, button.getWidth(), button.getHeight(), null);
+    }
+}
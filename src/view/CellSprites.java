@@ -0,0 +1,169 @@
+package view;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The CellSprites class caches pre-rendered images of board cells. A sprite
+ * holds everything a cell draws: background, border and label (ship length,
+ * "X" for destroyed), rendered once at device resolution into a compatible
+ * image. CellSpriteUI then paints a cell with a single image blit.
+ *
+ * Sprites are keyed by the colours and text of the cell state, the font, the
+ * cell size and the display scale factor. The cache is a bounded LRU map, so
+ * sprites of an old palette age out; it is cleared when cells start painting
+ * at a different scale, e.g. after the window moves to a HiDPI screen.
+ *
+ * The cache must only be used from the Event Dispatch Thread.
+ */
+public final class CellSprites {
+
+    private static final int MAX_SPRITES = 512;
+
+    private static final Map<Key, BufferedImage> sprites = new LinkedHashMap<Key, BufferedImage>(64, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, BufferedImage> eldest) {
+            return size() > MAX_SPRITES;
+        }
+    };
+    private static final Key probe = new Key();
+    private static double lastScale = 1.0;
+
+    private CellSprites() {
+    }
+
+    /**
+     * Returns the sprite for a cell state, rendering it on first use.
+     *
+     * @param background the background colour
+     * @param foreground the text colour
+     * @param border     the border colour
+     * @param text       the label, may be empty
+     * @param font       the label font
+     * @param width      the cell width in logical pixels
+     * @param height     the cell height in logical pixels
+     * @param scale      the display scale factor
+     * @return an image of width * scale by height * scale device pixels
+     */
+    public static BufferedImage get(Color background, Color foreground, Color border, String text, Font font,
+            int width, int height, double scale) {
+        if (scale != lastScale) {
+            sprites.clear();
+            lastScale = scale;
+        }
+
+        probe.set(background.getRGB(), foreground.getRGB(), border.getRGB(), text == null ? "" : text, font, width,
+                height, scale);
+        BufferedImage sprite = sprites.get(probe);
+        if (sprite == null) {
+            sprite = render(background, foreground, border, probe.text, font, width, height, scale);
+            Key key = new Key();
+            key.set(probe.background, probe.foreground, probe.border, probe.text, font, width, height, scale);
+            sprites.put(key, sprite);
+        }
+        return sprite;
+    }
+
+    /**
+     * Returns the number of cached sprites.
+     *
+     * @return the sprite count, at most MAX_SPRITES
+     */
+    public static int size() {
+        return sprites.size();
+    }
+
+    private static BufferedImage render(Color background, Color foreground, Color border, String text, Font font,
+            int width, int height, double scale) {
+        int deviceWidth = Math.max(1, (int) Math.ceil(width * scale));
+        int deviceHeight = Math.max(1, (int) Math.ceil(height * scale));
+        BufferedImage image;
+        if (GraphicsEnvironment.isHeadless()) {
+            image = new BufferedImage(deviceWidth, deviceHeight, BufferedImage.TYPE_INT_RGB);
+        } else {
+            GraphicsConfiguration configuration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            image = configuration.createCompatibleImage(deviceWidth, deviceHeight, Transparency.OPAQUE);
+        }
+
+        Graphics2D g = image.createGraphics();
+        g.scale(scale, scale);
+        g.setColor(background);
+        g.fillRect(0, 0, width, height);
+        g.setColor(border);
+        g.drawRect(0, 0, width - 1, height - 1);
+
+        if (!text.isEmpty()) {
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(font);
+            g.setColor(foreground);
+            FontMetrics metrics = g.getFontMetrics();
+            g.drawString(text, (width - metrics.stringWidth(text)) / 2,
+                    (height - metrics.getHeight()) / 2 + metrics.getAscent());
+        }
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Cache key of a sprite.
+     */
+    private static final class Key {
+        int background;
+        int foreground;
+        int border;
+        String text;
+        Font font;
+        int width;
+        int height;
+        double scale;
+
+        void set(int background, int foreground, int border, String text, Font font, int width, int height,
+                double scale) {
+            this.background = background;
+            this.foreground = foreground;
+            this.border = border;
+            this.text = text;
+            this.font = font;
+            this.width = width;
+            this.height = height;
+            this.scale = scale;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return background == other.background && foreground == other.foreground && border == other.border
+                    && width == other.width
+                    && height == other.height && scale == other.scale && text.equals(other.text)
+                    && Objects.equals(font, other.font);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = background;
+            hash = 31 * hash + foreground;
+            hash = 31 * hash + border;
+            hash = 31 * hash + text.hashCode();
+            hash = 31 * hash + width;
+            hash = 31 * hash + height;
+            hash = 31 * hash + Double.hashCode(scale);
+            return hash;
+        }
+    }
+}
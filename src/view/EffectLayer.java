@@ -0,0 +1,246 @@
+package view;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * The EffectLayer class draws shot animations (explosions for hits, splashes
+ * for misses, sinking ripples for destroyed ships) above the boards. It is
+ * installed as the glass pane of the game window and lets mouse events through.
+ *
+ * All effects run on one shared clock. Every frame the clock advances every
+ * active effect by a fixed timestep, catching up with at most MAX_STEPS steps
+ * when the EDT falls behind, so effects run at the same speed whatever the
+ * frame rate and however quickly shots arrive. Only the union of the areas
+ * covered by the effects before and after the step is repainted.
+ *
+ * Effects come from a preallocated pool and their colours from precomputed
+ * alpha ramps, so a frame allocates nothing. When the pool is exhausted, e.g.
+ * during accelerated computer-vs-computer playback, the oldest effect is
+ * recycled. The clock stops when no effect is active.
+ *
+ * The layer is only visible while an effect runs: the first effect shows it
+ * and it hides again when the last one ends, so Swing has no glass pane to
+ * paint over the boards the rest of the time.
+ */
+public class EffectLayer extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    /** An explosion, for a hit. */
+    public static final int EXPLOSION = 0;
+    /** A splash, for a missed shot. */
+    public static final int SPLASH = 1;
+    /** A sinking ripple, for a destroyed ship. */
+    public static final int SINK = 2;
+
+    private static final int POOL_SIZE = 128;
+    private static final long STEP_NANOS = 1_000_000_000L / 60;
+    private static final int MAX_STEPS = 5;
+    private static final int ALPHA_LEVELS = 32;
+    private static final int[] DURATION_STEPS = { 30, 24, 45 };
+    private static final Color[][] RAMPS = {
+            ramp(new Color(255, 140, 40)),
+            ramp(new Color(200, 235, 255)),
+            ramp(new Color(0, 12, 24)) };
+
+    private final Effect[] pool = new Effect[POOL_SIZE];
+    private final Rectangle dirty = new Rectangle();
+    private final Timer timer = new Timer(1000 / 60, e -> tick());
+    private long lastTick;
+    private long accumulator;
+    private int active;
+
+    /**
+     * Constructs an effect layer with an empty pool.
+     */
+    public EffectLayer() {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            pool[i] = new Effect();
+        }
+        setOpaque(false);
+        timer.setCoalesce(true);
+    }
+
+    private static Color[] ramp(Color color) {
+        Color[] colors = new Color[ALPHA_LEVELS];
+        for (int i = 0; i < ALPHA_LEVELS; i++) {
+            colors[i] = new Color(color.getRed(), color.getGreen(), color.getBlue(), 255 * i / (ALPHA_LEVELS - 1));
+        }
+        return colors;
+    }
+
+    /**
+     * Starts an effect centred on a component, typically a board coordinate.
+     *
+     * @param type   EXPLOSION, SPLASH or SINK
+     * @param target the component the effect is drawn over
+     */
+    public void spawn(int type, Component target) {
+        if (!target.isShowing() || getParent() == null) {
+            return;
+        }
+        setVisible(true);
+        Rectangle bounds = SwingUtilities.convertRectangle(target.getParent(), target.getBounds(), this);
+
+        Effect effect = null;
+        Effect oldest = pool[0];
+        for (Effect candidate : pool) {
+            if (!candidate.active) {
+                effect = candidate;
+                break;
+            }
+            if (candidate.age > oldest.age) {
+                oldest = candidate;
+            }
+        }
+        if (effect == null) {
+            int r = oldest.radius() + 2;
+            repaint(oldest.x - r, oldest.y - r, 2 * r, 2 * r);
+            effect = oldest;
+        } else {
+            active++;
+        }
+
+        effect.start(type, bounds.x + bounds.width / 2, bounds.y + bounds.height / 2,
+                Math.max(bounds.width, bounds.height));
+
+        if (!timer.isRunning()) {
+            lastTick = System.nanoTime();
+            accumulator = 0;
+            timer.start();
+        }
+    }
+
+    /**
+     * Advances the clock by whole fixed steps and repaints the area touched by
+     * the effects.
+     */
+    private void tick() {
+        long now = System.nanoTime();
+        accumulator += now - lastTick;
+        lastTick = now;
+
+        int steps = (int) Math.min(MAX_STEPS, accumulator / STEP_NANOS);
+        accumulator = steps == MAX_STEPS ? 0 : accumulator - steps * STEP_NANOS;
+        if (steps == 0) {
+            return;
+        }
+
+        dirty.setBounds(0, 0, 0, 0);
+        for (Effect effect : pool) {
+            if (effect.active) {
+                effect.union(dirty);
+                effect.age += steps;
+                if (effect.age >= DURATION_STEPS[effect.type]) {
+                    effect.active = false;
+                    active--;
+                } else {
+                    effect.union(dirty);
+                }
+            }
+        }
+
+        if (!dirty.isEmpty()) {
+            repaint(dirty.x, dirty.y, dirty.width, dirty.height);
+        }
+        if (active == 0) {
+            timer.stop();
+            setVisible(false);
+        }
+    }
+
+    /**
+     * Returns the number of running effects.
+     *
+     * @return the active effect count
+     */
+    public int getActiveCount() {
+        return active;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (active == 0) {
+            return;
+        }
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (Effect effect : pool) {
+            if (effect.active) {
+                effect.paint(g2);
+            }
+        }
+    }
+
+    /**
+     * One pooled effect.
+     */
+    private static final class Effect {
+        boolean active;
+        int type;
+        int x;
+        int y;
+        int size;
+        int age;
+
+        void start(int newType, int centerX, int centerY, int cellSize) {
+            active = true;
+            type = newType;
+            x = centerX;
+            y = centerY;
+            size = cellSize;
+            age = 0;
+        }
+
+        /** Returns the current radius, which grows with age. */
+        int radius() {
+            double progress = (double) age / DURATION_STEPS[type];
+            switch (type) {
+                case EXPLOSION:
+                    return (int) (size * (0.3 + 0.7 * Math.sqrt(progress)));
+                case SPLASH:
+                    return (int) (size * (0.2 + 0.6 * progress));
+                default:
+                    return (int) (size * (0.5 + 1.0 * progress));
+            }
+        }
+
+        void union(Rectangle area) {
+            int r = radius() + 2;
+            if (area.isEmpty()) {
+                area.setBounds(x - r, y - r, 2 * r, 2 * r);
+            } else {
+                area.add(x - r, y - r);
+                area.add(x + r, y + r);
+            }
+        }
+
+        void paint(Graphics2D g) {
+            int remaining = DURATION_STEPS[type] - age;
+            int alpha = Math.max(0, Math.min(ALPHA_LEVELS - 1, remaining * (ALPHA_LEVELS - 1) / DURATION_STEPS[type]));
+            int r = radius();
+            g.setColor(RAMPS[type][alpha]);
+            switch (type) {
+                case EXPLOSION:
+                    g.fillOval(x - r, y - r, 2 * r, 2 * r);
+                    break;
+                case SPLASH:
+                    g.drawOval(x - r, y - r, 2 * r, 2 * r);
+                    g.drawOval(x - r / 2, y - r / 2, r, r);
+                    break;
+                default:
+                    g.drawOval(x - r, y - r, 2 * r, 2 * r);
+                    g.fillOval(x - r / 3, y - r / 3, 2 * r / 3, 2 * r / 3);
+                    break;
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package view;
 
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
@@ -18,6 +19,11 @@ public class MenuBar extends JMenuBar {
     private JMenu gameMenu = new JMenu("Game");
     private JMenuItem newItem = new JMenuItem("New");
     private JMenuItem solutionItem = new JMenuItem("Solution");
+    private JMenuItem megaBoardItem = new JMenuItem("Mega Board");
+    private JCheckBoxMenuItem hardPlacementItem = new JCheckBoxMenuItem("Hard Placement");
+    private JCheckBoxMenuItem salvoItem = new JCheckBoxMenuItem("Salvo");
+    private JCheckBoxMenuItem noTouchItem = new JCheckBoxMenuItem("No Touching");
+    private JMenuItem loadFleetItem = new JMenuItem("Load Fleet...");
     private JMenuItem exitItem = new JMenuItem("Exit");
 
     // Help menu components
@@ -36,10 +42,18 @@ public class MenuBar extends JMenuBar {
     public MenuBar(Controller controller) {
         gameMenu.add(newItem);
         gameMenu.add(solutionItem);
+        gameMenu.add(megaBoardItem);
+        gameMenu.add(hardPlacementItem);
+        gameMenu.add(salvoItem);
+        gameMenu.add(noTouchItem);
+        gameMenu.add(loadFleetItem);
         gameMenu.add(exitItem);
 
         newItem.addActionListener(controller);
         solutionItem.addActionListener(controller);
+        megaBoardItem.addActionListener(controller);
+        noTouchItem.addActionListener(controller);
+        loadFleetItem.addActionListener(controller);
         exitItem.addActionListener(controller);
         hitColor.addActionListener(controller);
         guideItem.addActionListener(controller);
@@ -75,6 +89,56 @@ public class MenuBar extends JMenuBar {
         return solutionItem;
     }
 
+    /**
+     * Returns the "Mega Board" menu item.
+     * 
+     * @return The "Mega Board" menu item.
+     */
+    public JMenuItem getMegaBoardItem() {
+        return megaBoardItem;
+    }
+
+    /**
+     * Returns the "Hard Placement" menu item. When it is selected, the Random
+     * button searches for a hard computer fleet layout.
+     * 
+     * @return The "Hard Placement" menu item.
+     */
+    public JCheckBoxMenuItem getHardPlacementItem() {
+        return hardPlacementItem;
+    }
+
+    /**
+     * Returns the "Salvo" menu item. When it is selected as a game starts,
+     * each side fires one shot per surviving ship every turn.
+     * 
+     * @return The "Salvo" menu item.
+     */
+    public JCheckBoxMenuItem getSalvoItem() {
+        return salvoItem;
+    }
+
+    /**
+     * Returns the "No Touching" menu item. When it is selected, ships may not
+     * touch each other, not even diagonally, on dimensions where the fleet
+     * can be placed that way.
+     * 
+     * @return The "No Touching" menu item.
+     */
+    public JCheckBoxMenuItem getNoTouchItem() {
+        return noTouchItem;
+    }
+
+    /**
+     * Returns the "Load Fleet..." menu item, which places the player's fleet
+     * as in a record of a layout file.
+     * 
+     * @return The "Load Fleet..." menu item.
+     */
+    public JMenuItem getLoadFleetItem() {
+        return loadFleetItem;
+    }
+
     /**
      * Returns the "Exit" menu item.
      * 
@@ -5,7 +5,10 @@ import java.awt.event.*;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import controller.Controller;
+import diagnostics.Log;
 import miscellaneous.Misc;
+import model.MatchClock;
+import strategy.StrategyRegistry;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -22,12 +25,14 @@ public class MiddleMenu extends JPanel {
     private JButton randButton = new JButton("Random");
     private JLabel dimensionLabel = new JLabel();
     private JComboBox<String> dimensionBox = new JComboBox<>(Misc.DIMENSION);
+    private JLabel opponentLabel = new JLabel();
+    private JComboBox<String> opponentBox = new JComboBox<>(StrategyRegistry.getNames());
     private JTextArea historyBox = new JTextArea(25, 25);
     private JScrollPane historyScrollPane = new JScrollPane(historyBox);
     private JLabel timerLabel = new JLabel();
     private JLabel timerBox = new JLabel();
-    private int elapsedTime = 0;
-    private Timer timer = new Timer(1000, e -> updateTimer());
+    private MatchClock clock;
+    private Timer timer = new Timer(200, e -> updateTimer());
 
     private JButton resetButton = new JButton("Reset");
     private JButton playButton = new JButton("Play");
@@ -52,6 +57,7 @@ public class MiddleMenu extends JPanel {
         addPanel(languageLabel, languageBox);
         addPanel(designButton, randButton);
         addPanel(dimensionLabel, dimensionBox);
+        addPanel(opponentLabel, opponentBox);
         addPanel(historyScrollPane);
         addPanel(timerLabel, timerBox);
         addPanel(resetButton);
@@ -84,18 +90,25 @@ public class MiddleMenu extends JPanel {
         buttonList.add(playButton);
     }
 
+    /**
+     * Refreshes the timer display from the match clock, adding the player's
+     * remaining bank when time controls are on.
+     */
     private void updateTimer() {
-        elapsedTime += 1000;
-        int hours = (int) elapsedTime / 3600000;
-        int minutes = (int) (elapsedTime % 3600000) / 60000;
-        int seconds = (int) ((elapsedTime % 3600000) % 60000) / 1000;
-        String timeString = String.format("%02d:%02d:%02d", hours, minutes, seconds);
+        if (clock == null) {
+            return;
+        }
+        String timeString = MatchClock.format(clock.getElapsedNanos());
+        if (clock.hasBank()) {
+            timeString += " / " + MatchClock.format(clock.getRemainingBankNanos(MatchClock.PLAYER));
+        }
         timerBox.setText(timeString);
     }
 
     public void addComponentsToPanel() {
         languageBox.addActionListener(controller);
         dimensionBox.addActionListener(controller);
+        opponentBox.addActionListener(controller);
         resetButton.addActionListener(controller);
         playButton.addActionListener(controller);
         randButton.addActionListener(controller);
@@ -130,33 +143,56 @@ public class MiddleMenu extends JPanel {
             timerLabel.setText(lines.get(4));
             resetButton.setText(lines.get(5));
             playButton.setText(lines.get(6));
+            opponentLabel.setText(lines.get(7));
         } catch (IOException e) {
-            e.printStackTrace();
+            Log.error("Could not read language file {}", filePath, e);
         }
     }
 
-    public void setStartState() {
+    public void setStartState(MatchClock matchClock) {
+        clock = matchClock;
+        updateTimer();
         timer.start();
         resetButton.setEnabled(true);
         designButton.setEnabled(false);
         randButton.setEnabled(false);
         languageBox.setEnabled(false);
         dimensionBox.setEnabled(false);
+        opponentBox.setEnabled(false);
     }
 
     public void setResetState() {
         stopTimer();
-        elapsedTime = 0;
+        clock = null;
         timerBox.setText("00:00:00");
 
         designButton.setEnabled(true);
         randButton.setEnabled(true);
         languageBox.setEnabled(true);
         dimensionBox.setEnabled(true);
+        opponentBox.setEnabled(true);
+    }
+
+    public void setPlacingState(boolean placing) {
+        playButton.setEnabled(!placing);
+        randButton.setEnabled(!placing);
+        designButton.setEnabled(!placing);
+        dimensionBox.setEnabled(!placing);
+    }
+
+    public void setBuildingState(boolean building) {
+        playButton.setEnabled(!building);
+        randButton.setEnabled(!building);
+        designButton.setEnabled(!building);
     }
 
     public void stopTimer() {
         timer.stop();
+        updateTimer();
+    }
+
+    public Timer getClockTimer() {
+        return timer;
     }
 
     public void updateHistory(String coordinate, String subject, boolean isHit) {
@@ -165,6 +201,12 @@ public class MiddleMenu extends JPanel {
         historyBox.setText(message);
     }
 
+    public void updateVolleyHistory(String coordinates, String subject, int hits) {
+        String message = subject + ": " + coordinates + " (" + hits + (hits == 1 ? " Hit" : " Hits") + ")" + "\n"
+                + historyBox.getText();
+        historyBox.setText(message);
+    }
+
     public void clearHistory() {
         historyBox.setText("");
     }
@@ -181,6 +223,10 @@ public class MiddleMenu extends JPanel {
         return dimensionBox;
     }
 
+    public JComboBox<String> getMenuOpponentBox() {
+        return opponentBox;
+    }
+
     public JButton getMenuResetButton() {
         return resetButton;
     }
@@ -2,6 +2,7 @@ package view;
 
 import javax.swing.*;
 import controller.Controller;
+import diagnostics.Log;
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
@@ -34,7 +35,7 @@ public class StartMenu extends JPanel {
 			backgroundImage = ImageIO.read(getClass().getResource("/resource/bg.png")).getScaledInstance(1500, 1000,
 					Image.SCALE_DEFAULT);
 		} catch (IOException e) {
-			e.printStackTrace();
+			Log.error("Could not read background image", e);
 		}
 
 		configButtons();
@@ -92,7 +93,7 @@ public class StartMenu extends JPanel {
 			clip.start();
 			clip.loop(Clip.LOOP_CONTINUOUSLY);
 		} catch (Exception e) {
-			System.out.println("Error playing audio!");
+			Log.error("Error playing audio {}", "src/resource/audio.wav", e);
 		}
 	}
 
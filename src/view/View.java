@@ -9,10 +9,15 @@ import java.io.FileReader;
 import java.io.IOException;
 
 import javax.swing.JFrame;
+import javax.swing.WindowConstants;
 import javax.swing.JOptionPane;
+import javax.swing.UIManager;
 
 import controller.Controller;
+import diagnostics.Log;
+import model.Coordinate;
 import model.Model;
+import model.SparseBoard;
 
 /**
  * The View class represents the main game window. It extends the JFrame class
@@ -37,6 +42,8 @@ public class View extends JFrame {
     private MenuBar menuBar;
     private StartMenu startMenu;
     private Controller controller;
+    private BoardViewport megaViewport;
+    private EffectLayer effectLayer = new EffectLayer();
 
     /**
      * Constructs a View object.
@@ -48,6 +55,8 @@ public class View extends JFrame {
         setResizable(false);
         getContentPane().setBackground(new Color(26, 20, 35));
         setLayout((LayoutManager) new BorderLayout());
+        UIManager.put(Coordinate.UI_CLASS_ID, CellSpriteUI.class.getName());
+        setGlassPane(effectLayer);
 
     }
 
@@ -87,11 +96,40 @@ public class View extends JFrame {
         removeExistingBoard();
         add(model.getPlayerBoard(), BorderLayout.WEST);
         add(model.getComputerBoard(), BorderLayout.EAST);
+        model.getPlayerBoard().buildIncrementally();
+        model.getComputerBoard().buildIncrementally();
         clearHistory();
         revalidate();
         repaint();
     }
 
+    /**
+     * Opens a separate window showing a large board through a pannable,
+     * zoomable viewport. Clicks on its cells are sent to the controller.
+     * 
+     * @param board the board to show
+     */
+    public void showMegaBoard(SparseBoard board) {
+        megaViewport = new BoardViewport(board);
+        megaViewport.addActionListener(controller);
+
+        JFrame frame = new JFrame("Mega Board " + board.getWidth() + "x" + board.getHeight());
+        frame.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        frame.add(megaViewport);
+        frame.pack();
+        frame.setLocationRelativeTo(this);
+        frame.setVisible(true);
+    }
+
+    /**
+     * Retrieves the viewport of the last opened mega board window.
+     * 
+     * @return the viewport, or null if none has been opened
+     */
+    public BoardViewport getMegaViewport() {
+        return megaViewport;
+    }
+
     /**
      * Retrieves the middle menu from the game window.
      * 
@@ -142,6 +180,31 @@ public class View extends JFrame {
         middleMenu.updateHistory(coordinateName, subjective, isHit);
     }
 
+    /**
+     * Adds one entry for a whole salvo to the history of moves in the middle
+     * menu.
+     * 
+     * @param coordinateNames the names of the coordinates shot, comma separated
+     * @param subjective      the side that fired
+     * @param hits            the number of shots that hit
+     */
+    public void updateVolleyHistory(String coordinateNames, String subjective, int hits) {
+        middleMenu.updateVolleyHistory(coordinateNames, subjective, hits);
+    }
+
+    /**
+     * Plays the animation matching the state of a coordinate that has just
+     * been shot: an explosion for a hit, a splash for a miss, and a sinking
+     * ripple when the shot destroyed a ship.
+     * 
+     * @param coordinate the coordinate that was shot
+     */
+    public void playShotEffect(Coordinate coordinate) {
+        int type = coordinate.isDestroyed() ? EffectLayer.SINK
+                : coordinate.isHit() ? EffectLayer.EXPLOSION : EffectLayer.SPLASH;
+        effectLayer.spawn(type, coordinate);
+    }
+
     /**
      * Clears the history of moves in the middle menu.
      */
@@ -159,11 +222,10 @@ public class View extends JFrame {
             while ((line = reader.readLine()) != null) {
                 message = line;
             }
-            System.out.println(line);
             JOptionPane.showMessageDialog(this, message);
 
         } catch (IOException e) {
-            e.printStackTrace();
+            Log.error("Could not read guide {}", filePath, e);
         }
     }
 